@@ -0,0 +1,93 @@
+package parser.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import parser.bind.Binder;
+import parser.core.CompositeNode;
+import parser.core.LeafNode;
+import parser.core.Node;
+import parser.json.JSONParser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Binding the user records straight from events versus parsing a Node tree and mapping it by hand
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class BindBenchmark {
+
+    public record Address(String city, int zip) {}
+
+    public record User(long id, String name, String email, boolean active, double score, List<String> tags, Address address) {}
+
+    public record Users(List<User> users) {}
+
+    // only the ids: the rest of each record is skipped
+    public record UserId(long id) {}
+
+    public record UserIds(List<UserId> users) {}
+
+    // the shapes made of user records
+    @Param({"SMALL", "MEDIUM", "LARGE", "STRINGS"})
+    public Corpus.Shape shape;
+
+    private String json;
+    private final JSONParser parser = new JSONParser();
+    private final Binder<Users> users = Binder.of(Users.class);
+    private final Binder<UserIds> ids = Binder.of(UserIds.class);
+
+    @Setup
+    public void setup() {
+        json = Corpus.json(shape);
+    }
+
+    @Benchmark
+    public Users bind() {
+        return users.read("json", json);
+    }
+
+    @Benchmark
+    public UserIds bindSkipping() {
+        return ids.read("json", json);
+    }
+
+    @Benchmark
+    public Users parseAndMap() {
+        CompositeNode root = (CompositeNode) parser.parse(json);
+        List<Node> records = root.get("users").getChildren();
+        List<User> mapped = new ArrayList<>(records.size());
+        for (Node node : records) {
+            CompositeNode user = (CompositeNode) node;
+            List<String> tags = new ArrayList<>();
+            for (Node tag : user.get("tags").getChildren()) tags.add((String) ((LeafNode) tag).getValue());
+            CompositeNode address = (CompositeNode) user.get("address");
+            mapped.add(new User(
+                    ((Number) value(user, "id")).longValue(),
+                    (String) value(user, "name"),
+                    (String) value(user, "email"),
+                    (Boolean) value(user, "active"),
+                    ((Number) value(user, "score")).doubleValue(),
+                    tags,
+                    new Address((String) value(address, "city"), ((Number) value(address, "zip")).intValue())));
+        }
+        return new Users(mapped);
+    }
+
+    private static Object value(CompositeNode node, String name) {
+        return ((LeafNode) node.get(name)).getValue();
+    }
+}
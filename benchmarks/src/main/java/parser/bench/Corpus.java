@@ -0,0 +1,131 @@
+package parser.bench;
+
+import parser.core.CompositeNode;
+import parser.core.DoubleLeafNode;
+import parser.core.INodeVisitor;
+import parser.core.LeafNode;
+import parser.core.LongLeafNode;
+import parser.core.Node;
+import parser.json.JSONPrettyPrintVisitorI;
+import parser.xml.XMLPrettyPrintVisitorI;
+import parser.yaml.YAMLPrettyPrintVisitorI;
+
+import java.util.Random;
+
+// Deterministic documents for the benchmarks. Each shape is built as a Node tree once and rendered
+// with the pretty printers, so the JSON, YAML and XML corpora carry the same data.
+public final class Corpus {
+
+    public enum Shape {
+        SMALL,    // a handful of records, ~1 KB
+        MEDIUM,   // ~100 KB of records
+        LARGE,    // ~20 MB of records
+        DEEP,     // objects nested 500 levels deep
+        WIDE,     // one object with 10 000 keys
+        STRINGS,  // records dominated by long string values
+        NUMBERS   // one array of 50 000 integers and decimals
+    }
+
+    private static final long SEED = 42;
+
+    private Corpus() {
+    }
+
+    public static String json(Shape shape) {
+        return render(tree(shape), new JSONPrettyPrintVisitorI());
+    }
+
+    public static String yaml(Shape shape) {
+        return render(tree(shape), new YAMLPrettyPrintVisitorI());
+    }
+
+    public static String xml(Shape shape) {
+        return render(tree(shape), new XMLPrettyPrintVisitorI());
+    }
+
+    public static Node tree(Shape shape) {
+        Random random = new Random(SEED);
+        switch (shape) {
+            case SMALL: return records(5, 12, random);
+            case MEDIUM: return records(500, 12, random);
+            case LARGE: return records(100_000, 12, random);
+            case DEEP: return deep(500);
+            case WIDE: return wide(10_000, random);
+            case STRINGS: return records(2_000, 200, random);
+            case NUMBERS: return numbers(50_000, random);
+            default: throw new IllegalArgumentException("Unknown shape: " + shape);
+        }
+    }
+
+    private static String render(Node root, INodeVisitor printer) {
+        root.accept(printer);
+        return printer.getResult();
+    }
+
+    private static Node records(int count, int textLength, Random random) {
+        CompositeNode root = new CompositeNode(null, false);
+        CompositeNode users = new CompositeNode("users", true);
+        for (int i = 0; i < count; i++) {
+            CompositeNode user = new CompositeNode(null, false);
+            user.addChild(new LongLeafNode("id", i));
+            user.addChild(new LeafNode("name", text(random, textLength)));
+            user.addChild(new LeafNode("email", text(random, textLength) + "@example.com"));
+            user.addChild(new LeafNode("active", random.nextBoolean()));
+            user.addChild(new DoubleLeafNode("score", Math.round(random.nextDouble() * 10_000) / 100.0));
+            CompositeNode tags = new CompositeNode("tags", true);
+            tags.addChild(new LeafNode(null, text(random, 6)));
+            tags.addChild(new LeafNode(null, text(random, 6)));
+            user.addChild(tags);
+            CompositeNode address = new CompositeNode("address", false);
+            address.addChild(new LeafNode("city", text(random, textLength)));
+            address.addChild(new LongLeafNode("zip", 10_000 + random.nextInt(89_999)));
+            user.addChild(address);
+            users.addChild(user);
+        }
+        root.addChild(users);
+        return root;
+    }
+
+    private static Node deep(int depth) {
+        CompositeNode root = new CompositeNode(null, false);
+        CompositeNode current = root;
+        for (int i = 0; i < depth; i++) {
+            current.addChild(new LongLeafNode("level", i));
+            CompositeNode child = new CompositeNode("child", false);
+            current.addChild(child);
+            current = child;
+        }
+        current.addChild(new LeafNode("leaf", "bottom"));
+        return root;
+    }
+
+    private static Node wide(int keys, Random random) {
+        CompositeNode root = new CompositeNode(null, false);
+        for (int i = 0; i < keys; i++) {
+            root.addChild(new LeafNode("key" + i, text(random, 8)));
+        }
+        return root;
+    }
+
+    private static Node numbers(int count, Random random) {
+        CompositeNode root = new CompositeNode(null, false);
+        CompositeNode values = new CompositeNode("values", true);
+        for (int i = 0; i < count; i++) {
+            if ((i & 1) == 0) values.addChild(new LongLeafNode(null, random.nextInt()));
+            else values.addChild(new DoubleLeafNode(null, random.nextDouble() * 1_000_000));
+        }
+        root.addChild(values);
+        return root;
+    }
+
+    // lowercase words and spaces only, so the printers never need to escape anything
+    private static String text(Random random, int length) {
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = i % 7 == 6 ? ' ' : (char) ('a' + random.nextInt(26));
+        }
+        chars[0] = 'x';
+        chars[length - 1] = 'z';
+        return new String(chars);
+    }
+}
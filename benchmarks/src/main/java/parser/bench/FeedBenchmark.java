@@ -0,0 +1,81 @@
+package parser.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import parser.core.CharSink;
+import parser.core.Node;
+import parser.core.NodeBuilder;
+import parser.json.JSONEventWriter;
+import parser.json.JSONFeedParser;
+import parser.json.JSONParser;
+
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+// Chunk-fed parsing, as from a NIO channel, versus collecting the whole body and parsing it
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class FeedBenchmark {
+    private static final int CHUNK = 4096;
+
+    @Param({"SMALL", "MEDIUM", "LARGE", "DEEP", "WIDE", "STRINGS", "NUMBERS"})
+    public Corpus.Shape shape;
+
+    private byte[] bytes;
+    private ByteBuffer direct;
+    private final JSONParser parser = new JSONParser();
+
+    @Setup
+    public void setup() {
+        bytes = Corpus.json(shape).getBytes(StandardCharsets.UTF_8);
+        direct = ByteBuffer.allocateDirect(bytes.length).put(bytes).flip();
+    }
+
+    @Benchmark
+    public void feedNodes(Blackhole bh) {
+        JSONFeedParser feed = new JSONFeedParser(new NodeBuilder(bh::consume));
+        for (int i = 0; i < bytes.length; i += CHUNK) {
+            feed.feed(bytes, i, Math.min(CHUNK, bytes.length - i));
+        }
+        feed.endOfInput();
+    }
+
+    @Benchmark
+    public void feedDirectBuffers(Blackhole bh) {
+        JSONFeedParser feed = new JSONFeedParser(new NodeBuilder(bh::consume));
+        for (int i = 0; i < bytes.length; i += CHUNK) {
+            feed.feed(direct.slice(i, Math.min(CHUNK, bytes.length - i)));
+        }
+        feed.endOfInput();
+    }
+
+    @Benchmark
+    public void feedToWriter() {
+        JSONFeedParser feed = new JSONFeedParser(new JSONEventWriter(new CharSink(Writer.nullWriter()), false));
+        for (int i = 0; i < bytes.length; i += CHUNK) {
+            feed.feed(bytes, i, Math.min(CHUNK, bytes.length - i));
+        }
+        feed.endOfInput();
+    }
+
+    @Benchmark
+    public Node decodeAndParse() {
+        return parser.parse(new String(bytes, StandardCharsets.UTF_8));
+    }
+}
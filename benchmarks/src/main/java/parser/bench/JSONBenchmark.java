@@ -0,0 +1,125 @@
+package parser.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import parser.core.EventType;
+import parser.core.INodeVisitor;
+import parser.core.Node;
+import parser.json.JSONParser;
+import parser.json.JSONPrettyPrintVisitorI;
+import parser.json.JSONStreamReader;
+import parser.json.JSONToken;
+import parser.json.JSONTokenType;
+import parser.json.JSONTokenizer;
+import parser.query.Projection;
+import parser.tape.OffHeapDocument;
+import parser.tape.TapeDocument;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class JSONBenchmark {
+
+    @Param({"SMALL", "MEDIUM", "LARGE", "DEEP", "WIDE", "STRINGS", "NUMBERS"})
+    public Corpus.Shape shape;
+
+    private final JSONParser parser = new JSONParser(); // parsers are stateless and reused across calls
+    private final JSONParser internedParser = new JSONParser(JSONParser.NumberMode.NATIVE, true);
+    // a few fields out of each shape: two per record, one key of the wide object, the top of the deep one
+    private final Projection projection = Projection.of("$.users[*].id", "$.users[*].address.city", "$.key42", "$.level");
+    private String input;
+    private Node tree;
+
+    @Setup
+    public void setup() {
+        input = Corpus.json(shape);
+        tree = parser.parse(input);
+    }
+
+    @Benchmark
+    public void tokenizeCursor(Blackhole bh) {
+        JSONTokenizer tokenizer = new JSONTokenizer(input);
+        while (tokenizer.next() != JSONTokenType.EOF) {
+            bh.consume(tokenizer.tokenEnd());
+        }
+    }
+
+    @Benchmark
+    public void tokenizeTokens(Blackhole bh) {
+        JSONTokenizer tokenizer = new JSONTokenizer(input);
+        JSONToken token;
+        while ((token = tokenizer.nextToken()).type != JSONTokenType.EOF) {
+            bh.consume(token);
+        }
+    }
+
+    @Benchmark
+    public void streamEvents(Blackhole bh) {
+        try (JSONStreamReader reader = new JSONStreamReader(input)) {
+            while (reader.next() != EventType.END_DOCUMENT) {
+                bh.consume(reader.getText());
+            }
+        }
+    }
+
+    @Benchmark
+    public Node parse() {
+        return parser.parse(input);
+    }
+
+    @Benchmark
+    public Node parseInternKeys() {
+        return internedParser.parse(input);
+    }
+
+    @Benchmark
+    public Node parseProjected() {
+        return parser.parse(input, projection);
+    }
+
+    @Benchmark
+    public TapeDocument parseTape() {
+        return parser.parseTape(input);
+    }
+
+    @Benchmark
+    public int parseOffHeap() {
+        try (OffHeapDocument document = parser.parseOffHeap(input)) {
+            return document.size();
+        }
+    }
+
+    @Benchmark
+    public Node parseLazy() {
+        return parser.parseLazy(input);
+    }
+
+    @Benchmark
+    public String print() {
+        INodeVisitor printer = new JSONPrettyPrintVisitorI();
+        tree.accept(printer);
+        return printer.getResult();
+    }
+
+    @Benchmark
+    public String parseAndPrint() {
+        INodeVisitor printer = new JSONPrettyPrintVisitorI();
+        parser.parse(input).accept(printer);
+        return printer.getResult();
+    }
+}
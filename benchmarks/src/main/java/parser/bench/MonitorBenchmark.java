@@ -0,0 +1,73 @@
+package parser.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import parser.core.Node;
+import parser.core.ParseMetrics;
+import parser.core.ParseStatistics;
+import parser.json.JSONParser;
+import parser.yaml.YAMLParser;
+
+import java.util.concurrent.TimeUnit;
+
+// Cost of parse metrics: the plain parse (monitoring off, as in JSONBenchmark/YAMLBenchmark.parse)
+// next to the same parse recording into a ParseMetrics that is then added to a ParseStatistics.
+// Nothing is registered with ParseMonitor, so the plain methods run the unmonitored path.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class MonitorBenchmark {
+
+    @Param({"MEDIUM", "LARGE", "WIDE", "NUMBERS"})
+    public Corpus.Shape shape;
+
+    private final JSONParser jsonParser = new JSONParser();
+    private final YAMLParser yamlParser = new YAMLParser();
+    private final ParseStatistics statistics = new ParseStatistics();
+    private String json;
+    private String yaml;
+
+    @Setup
+    public void setup() {
+        json = Corpus.json(shape);
+        yaml = Corpus.yaml(shape);
+    }
+
+    @Benchmark
+    public Node jsonParse() {
+        return jsonParser.parse(json);
+    }
+
+    @Benchmark
+    public Node jsonMonitored() {
+        ParseMetrics metrics = new ParseMetrics("json");
+        Node root = jsonParser.parse(json, metrics);
+        statistics.completed(metrics);
+        return root;
+    }
+
+    @Benchmark
+    public Node yamlParse() {
+        return yamlParser.parse(yaml);
+    }
+
+    @Benchmark
+    public Node yamlMonitored() {
+        ParseMetrics metrics = new ParseMetrics("yaml");
+        Node root = yamlParser.parse(yaml, metrics);
+        statistics.completed(metrics);
+        return root;
+    }
+}
@@ -0,0 +1,67 @@
+package parser.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import parser.core.Node;
+import parser.json.JSONParser;
+import parser.query.PathQuery;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Compiled path queries against a parsed record corpus
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class QueryBenchmark {
+
+    @Param({"SMALL", "MEDIUM", "LARGE", "STRINGS"})
+    public Corpus.Shape shape;
+
+    private final PathQuery cities = PathQuery.compile("$.users[*].address.city");
+    private final PathQuery highScore = PathQuery.compile("$.users[?(@.score > 99.5 && @.active == true)].name");
+    private final PathQuery lastId = PathQuery.compile("$.users[-1].id");
+    private Node tree;
+
+    @Setup
+    public void setup() {
+        tree = new JSONParser().parse(Corpus.json(shape));
+    }
+
+    @Benchmark
+    public List<Node> selectAll() {
+        return cities.select(tree);
+    }
+
+    @Benchmark
+    public List<Node> selectFiltered() {
+        return highScore.select(tree);
+    }
+
+    @Benchmark
+    public Node firstFiltered() {
+        return highScore.first(tree);
+    }
+
+    @Benchmark
+    public Node firstByIndex() {
+        return lastId.first(tree);
+    }
+
+    @Benchmark
+    public PathQuery compile() {
+        return PathQuery.compile("$.users[?(@.score > 99.5 && @.active == true)].name");
+    }
+}
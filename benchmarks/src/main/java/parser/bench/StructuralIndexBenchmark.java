@@ -0,0 +1,101 @@
+package parser.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import parser.core.Node;
+import parser.json.JSONByteTokenizer;
+import parser.json.JSONParser;
+import parser.json.JSONTokenType;
+import parser.json.StructuralIndex;
+import parser.json.StructuralIndexer;
+import parser.query.Projection;
+import parser.tape.TapeDocument;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+// Stage-1 indexing on its own, the byte tokenizer with and without an index, and the parsers with
+// -Dparser.json.simd switched on; compare the parse* results with the same methods in JSONBenchmark.
+// Every fork adds jdk.incubator.vector, so the vector indexer is available.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g", "--add-modules", "jdk.incubator.vector"})
+public class StructuralIndexBenchmark {
+
+    @Param({"MEDIUM", "LARGE", "WIDE", "STRINGS", "NUMBERS"})
+    public Corpus.Shape shape;
+
+    private final JSONParser parser = new JSONParser();
+    private final Projection projection = Projection.of("$.users[*].id", "$.users[*].address.city", "$.key42", "$.level");
+    private String input;
+    private ByteBuffer bytes;
+    private StructuralIndex index;
+
+    @Setup
+    public void setup() {
+        input = Corpus.json(shape);
+        bytes = ByteBuffer.wrap(input.getBytes(StandardCharsets.UTF_8));
+        index = StructuralIndexer.scalar().index(bytes);
+    }
+
+    @Benchmark
+    public StructuralIndex indexScalar() {
+        return StructuralIndexer.scalar().index(bytes);
+    }
+
+    @Benchmark
+    public StructuralIndex indexVector() {
+        StructuralIndexer vector = StructuralIndexer.vector();
+        if (vector == null) throw new IllegalStateException("jdk.incubator.vector is not available");
+        return vector.index(bytes);
+    }
+
+    @Benchmark
+    public void tokenizeBytes(Blackhole bh) {
+        JSONByteTokenizer tokenizer = new JSONByteTokenizer(bytes.duplicate());
+        while (tokenizer.next() != JSONTokenType.EOF) {
+            bh.consume(tokenizer.position());
+        }
+    }
+
+    // stage 2 only, over an index built in setup
+    @Benchmark
+    public void tokenizeIndexed(Blackhole bh) {
+        JSONByteTokenizer tokenizer = new JSONByteTokenizer(bytes.duplicate(), index);
+        while (tokenizer.next() != JSONTokenType.EOF) {
+            bh.consume(tokenizer.position());
+        }
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g", "--add-modules", "jdk.incubator.vector", "-Dparser.json.simd=true"})
+    public Node parseIndexed() {
+        return parser.parse(input);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g", "--add-modules", "jdk.incubator.vector", "-Dparser.json.simd=true"})
+    public Node parseProjectedIndexed() {
+        return parser.parse(input, projection);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g", "--add-modules", "jdk.incubator.vector", "-Dparser.json.simd=true"})
+    public TapeDocument parseTapeIndexed() {
+        return parser.parseTape(input);
+    }
+}
@@ -0,0 +1,83 @@
+package parser.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import parser.core.CharSink;
+import parser.core.INodeVisitor;
+import parser.factory.ParserFactory;
+import parser.factory.PrettyPrintVisitorFactory;
+import parser.factory.Transcoder;
+import parser.json.JSONEventWriter;
+import parser.json.JSONStreamReader;
+import parser.yaml.YAMLEventWriter;
+
+import java.io.StringReader;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+// Format conversion straight from events versus parsing to a tree and printing it, both writing to
+// a sink that discards the output; run with -prof gc to compare the allocation
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class TranscodeBenchmark {
+
+    @Param({"SMALL", "MEDIUM", "LARGE", "DEEP", "WIDE", "STRINGS", "NUMBERS"})
+    public Corpus.Shape shape;
+
+    private String json;
+    private String yaml;
+
+    @Setup
+    public void setup() {
+        json = Corpus.json(shape);
+        yaml = Corpus.yaml(shape);
+    }
+
+    @Benchmark
+    public long jsonToYamlEvents() {
+        try (JSONStreamReader in = new JSONStreamReader(new StringReader(json))) {
+            return Transcoder.transcode(in, new YAMLEventWriter(new CharSink(Writer.nullWriter()), true));
+        }
+    }
+
+    @Benchmark
+    public void jsonToYamlTree() {
+        CharSink out = new CharSink(Writer.nullWriter());
+        INodeVisitor printer = PrettyPrintVisitorFactory.getStreamingPrintVisitor("yaml", out, true);
+        ParserFactory.getParser("json").parse(json).accept(printer);
+        printer.getResult();
+    }
+
+    @Benchmark
+    public long jsonToJsonEvents() {
+        try (JSONStreamReader in = new JSONStreamReader(new StringReader(json))) {
+            return Transcoder.transcode(in, new JSONEventWriter(new CharSink(Writer.nullWriter()), false));
+        }
+    }
+
+    @Benchmark
+    public long yamlToJsonEvents() {
+        return Transcoder.transcode(Transcoder.getEventReader("yaml", new StringReader(yaml)),
+                new JSONEventWriter(new CharSink(Writer.nullWriter()), true));
+    }
+
+    @Benchmark
+    public long jsonToXmlEvents() {
+        try (JSONStreamReader in = new JSONStreamReader(new StringReader(json))) {
+            return Transcoder.transcode(in, Transcoder.getEventWriter("xml", new CharSink(Writer.nullWriter()), true));
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package parser.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import parser.core.EventType;
+import parser.core.INodeVisitor;
+import parser.core.Node;
+import parser.xml.XMLParser;
+import parser.xml.XMLPrettyPrintVisitorI;
+import parser.xml.XMLStreamReader;
+import parser.xml.XMLTokenType;
+import parser.xml.XMLTokenizer;
+
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class XMLBenchmark {
+
+    @Param({"SMALL", "MEDIUM", "LARGE", "DEEP", "WIDE", "STRINGS", "NUMBERS"})
+    public Corpus.Shape shape;
+
+    private final XMLParser parser = new XMLParser(); // parsers are stateless and reused across calls
+    private String input;
+    private Node tree;
+
+    @Setup
+    public void setup() {
+        input = Corpus.xml(shape);
+        tree = parser.parse(input);
+    }
+
+    // cursor mode over the whole input, nothing decoded
+    @Benchmark
+    public void tokenize(Blackhole bh) {
+        XMLTokenizer tokenizer = new XMLTokenizer(input);
+        XMLTokenType type;
+        while ((type = tokenizer.next()) != XMLTokenType.EOF) {
+            bh.consume(type);
+        }
+    }
+
+    // cursor mode through the default 8 KB window
+    @Benchmark
+    public void tokenizeReader(Blackhole bh) {
+        XMLTokenizer tokenizer = new XMLTokenizer(new StringReader(input));
+        XMLTokenType type;
+        while ((type = tokenizer.next()) != XMLTokenType.EOF) {
+            bh.consume(type);
+        }
+    }
+
+    @Benchmark
+    public void streamEvents(Blackhole bh) {
+        try (XMLStreamReader reader = parser.parseEvents(input)) {
+            while (reader.next() != EventType.END_DOCUMENT) {
+                bh.consume(reader.getText());
+            }
+        }
+    }
+
+    @Benchmark
+    public Node parse() {
+        return parser.parse(input);
+    }
+
+    @Benchmark
+    public String print() {
+        INodeVisitor printer = new XMLPrettyPrintVisitorI();
+        tree.accept(printer);
+        return printer.getResult();
+    }
+
+    @Benchmark
+    public String parseAndPrint() {
+        INodeVisitor printer = new XMLPrettyPrintVisitorI();
+        parser.parse(input).accept(printer);
+        return printer.getResult();
+    }
+}
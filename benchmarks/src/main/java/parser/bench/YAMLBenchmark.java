@@ -0,0 +1,90 @@
+package parser.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import parser.core.EventType;
+import parser.core.INodeVisitor;
+import parser.core.Node;
+import parser.yaml.YAMLParser;
+import parser.yaml.YAMLPrettyPrintVisitorI;
+import parser.yaml.YAMLStreamReader;
+import parser.yaml.YAMLToken;
+import parser.yaml.YAMLTokenType;
+import parser.yaml.YAMLTokenizer;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class YAMLBenchmark {
+
+    @Param({"SMALL", "MEDIUM", "LARGE", "DEEP", "WIDE", "STRINGS", "NUMBERS"})
+    public Corpus.Shape shape;
+
+    private final YAMLParser parser = new YAMLParser(); // parsers are stateless and reused across calls
+    private final YAMLParser internedParser = new YAMLParser(true);
+    private String input;
+    private Node tree;
+
+    @Setup
+    public void setup() {
+        input = Corpus.yaml(shape);
+        tree = parser.parse(input);
+    }
+
+    @Benchmark
+    public void tokenize(Blackhole bh) {
+        YAMLTokenizer tokenizer = new YAMLTokenizer(input);
+        YAMLToken token;
+        while ((token = tokenizer.getNextToken()) != null && token.getType() != YAMLTokenType.STREAM_END) {
+            bh.consume(token);
+        }
+    }
+
+    @Benchmark
+    public void streamEvents(Blackhole bh) {
+        try (YAMLStreamReader reader = new YAMLStreamReader(input)) {
+            while (reader.next() != EventType.END_DOCUMENT) {
+                bh.consume(reader.getText());
+            }
+        }
+    }
+
+    @Benchmark
+    public Node parse() {
+        return parser.parse(input);
+    }
+
+    @Benchmark
+    public Node parseInternKeys() {
+        return internedParser.parse(input);
+    }
+
+    @Benchmark
+    public String print() {
+        INodeVisitor printer = new YAMLPrettyPrintVisitorI();
+        tree.accept(printer);
+        return printer.getResult();
+    }
+
+    @Benchmark
+    public String parseAndPrint() {
+        INodeVisitor printer = new YAMLPrettyPrintVisitorI();
+        parser.parse(input).accept(printer);
+        return printer.getResult();
+    }
+}
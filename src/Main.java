@@ -1,11 +1,11 @@
 import parser.core.IParser;
 import parser.core.Node;
 import parser.core.INodeVisitor;
+import parser.core.ParseMonitor;
 import parser.factory.ParserFactory;
 import parser.factory.PrettyPrintVisitorFactory;
 
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
 
 //TIP To <b>Run</b> code, press <shortcut actionId="Run"/> or
@@ -16,28 +16,26 @@ public class Main {
 
 
         // Example usage of the JSON parser
-        String jsonFilePath = "json.json";
-        String jsonInputFile = Files.readString(Path.of(jsonFilePath));
+        Path jsonFilePath = Path.of("json.json");
 
         // Example usage of the YAML parser
-        String yamlFilePath = "yaml.yaml";
-        String yamlInputFile = Files.readString(Path.of(yamlFilePath));
+        Path yamlFilePath = Path.of("yaml.yaml");
 
         try {
-            // Parse JSON input from a string
+            // Parse JSON input straight from the (memory mapped) file
             IParser parserFile = ParserFactory.getParser("json");
-            Node rootNodeFile = parserFile.parse(jsonInputFile);
+            Node rootNodeFile = parserFile.parse(jsonFilePath);
 
-            // Parse YAML input from a string
+            // Parse YAML input straight from the (memory mapped) file
             IParser parserYaml = ParserFactory.getParser("yaml");
-            Node rootNodeYaml = parserYaml.parse(yamlInputFile);
+            Node rootNodeYaml = parserYaml.parse(yamlFilePath);
 
             // Print the parsed JSON structure
             INodeVisitor JSONprinterFile = PrettyPrintVisitorFactory.getPrettyPrintVisitor("json");
-            rootNodeFile.accept(JSONprinterFile);
+            ParseMonitor.print("json", rootNodeFile, JSONprinterFile);
 
             INodeVisitor YAMLprinterFile = PrettyPrintVisitorFactory.getPrettyPrintVisitor("yaml");
-            rootNodeYaml.accept(YAMLprinterFile);
+            ParseMonitor.print("yaml", rootNodeYaml, YAMLprinterFile);
 
             // Print the parsed stucture
             //System.out.println("Parsed JSON from file successfully! \n" + JSONprinterFile.getResult());
@@ -0,0 +1,96 @@
+package parser.bind;
+
+import parser.core.EventType;
+import parser.core.IEventReader;
+import parser.core.ParseException;
+import parser.factory.Transcoder;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+// Binds JSON, YAML or XML straight into records and plain Java objects, from the events of a pull
+// reader: no Node tree is built, and fields the target does not have are skipped.
+//
+//   record Order(String id, Customer customer, List<Line> lines, BigDecimal total) {}
+//
+//   Binder<Order> orders = Binder.of(Order.class);        // analyzed once, then cached
+//   Order order = orders.read("json", body);
+//   List<Order> all = Binder.listOf(Order.class).read(Path.of("orders.json"));
+//
+// Names match exactly; an XML attribute "@id" also binds to a property "id". Numbers and booleans
+// are converted from their text, so they bind from XML and from quoted YAML as well. A single value
+// where a collection is expected is added to it, which is how repeated XML elements bind to a List.
+// A Binder keeps no state between reads and can be shared by any number of threads.
+public final class Binder<T> {
+    private static final ClassValue<Binder<?>> BINDERS = new ClassValue<>() {
+        @Override
+        protected Binder<?> computeValue(Class<?> type) {
+            return new Binder<>(BinderCompiler.binderFor(type));
+        }
+    };
+    private static final ClassValue<Binder<?>> LIST_BINDERS = new ClassValue<>() {
+        @Override
+        protected Binder<?> computeValue(Class<?> type) {
+            return new Binder<>(BinderCompiler.listOf(type));
+        }
+    };
+
+    private final ValueBinder binder;
+
+    private Binder(ValueBinder binder) {
+        this.binder = binder;
+    }
+
+    // Throws IllegalArgumentException when the type cannot be bound, such as an interface or a
+    // class without a constructor that takes no arguments
+    @SuppressWarnings("unchecked")
+    public static <T> Binder<T> of(Class<T> type) {
+        return (Binder<T>) BINDERS.get(type);
+    }
+
+    // For documents that are an array of the type
+    @SuppressWarnings("unchecked")
+    public static <T> Binder<List<T>> listOf(Class<T> type) {
+        return (Binder<List<T>>) LIST_BINDERS.get(type);
+    }
+
+    // Binds the value that starts with the reader's next event and leaves the reader on its last
+    // event, so a caller can bind parts of a larger document
+    @SuppressWarnings("unchecked")
+    public T read(IEventReader in) {
+        in.next();
+        return (T) binder.read(in);
+    }
+
+    // The whole document, which must hold nothing after the value
+    public T read(String formatOrFileName, String input) {
+        return read(formatOrFileName, new StringReader(input));
+    }
+
+    public T read(String formatOrFileName, Reader input) {
+        IEventReader in = Transcoder.getEventReader(formatOrFileName, input);
+        try {
+            T value = read(in);
+            EventType last = in.next();
+            if (last != EventType.END_DOCUMENT) throw new ParseException("Unexpected " + last + " after the bound value");
+            return value;
+        } finally {
+            in.close();
+        }
+    }
+
+    // UTF-8; the format comes from the file name
+    public T read(Path file) {
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return read(file.getFileName().toString(), reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,304 @@
+package parser.bind;
+
+import parser.core.ParseException;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.RecordComponent;
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+// Analyzes target types once and turns them into ValueBinders:
+//
+//   - records bind through their canonical constructor, by component name,
+//   - other classes need a no-argument constructor and bind through setX(..) methods, or through
+//     fields (of any visibility, not static, final or transient) where there is no setter,
+//   - List, Set, Collection, arrays and Map<String, V> bind from arrays and objects, by their
+//     declared element types; Object binds to maps, lists and plain values.
+//
+// Constructors, setters and fields are reached through MethodHandles adapted to a fixed erased type,
+// so a read calls them with invokeExact and no reflection. Binders are cached per type for the life
+// of the class loader; compiling takes a lock, reading does not.
+final class BinderCompiler {
+    private static final MethodType SUPPLIER = MethodType.methodType(Object.class);
+    private static final MethodType SETTER = MethodType.methodType(void.class, Object.class, Object.class);
+    private static final Map<Type, ValueBinder> BINDERS = new HashMap<>();
+    private static final List<Type> compiling = new ArrayList<>(); // registered by the compile in progress
+
+    static {
+        BINDERS.put(String.class, new ValueBinder.TextValue());
+        BINDERS.put(CharSequence.class, BINDERS.get(String.class));
+        scalar(new ValueBinder.IntValue(), int.class, Integer.class);
+        scalar(new ValueBinder.LongValue(), long.class, Long.class);
+        scalar(new ValueBinder.ShortValue(), short.class, Short.class);
+        scalar(new ValueBinder.ByteValue(), byte.class, Byte.class);
+        scalar(new ValueBinder.DoubleValue(), double.class, Double.class);
+        scalar(new ValueBinder.FloatValue(), float.class, Float.class);
+        scalar(new ValueBinder.BoolValue(), boolean.class, Boolean.class);
+        scalar(new ValueBinder.CharValue(), char.class, Character.class);
+        BINDERS.put(BigDecimal.class, new ValueBinder.DecimalValue());
+        BINDERS.put(BigInteger.class, new ValueBinder.BigIntegerValue());
+        BINDERS.put(Object.class, new ValueBinder.Untyped());
+    }
+
+    private BinderCompiler() {
+    }
+
+    private static void scalar(ValueBinder binder, Class<?> primitive, Class<?> boxed) {
+        BINDERS.put(primitive, binder);
+        BINDERS.put(boxed, binder);
+    }
+
+    // Throws IllegalArgumentException for types that cannot be bound; nothing of a failed compile is
+    // kept, so a type that refers to an unbindable one fails every time
+    static synchronized ValueBinder binderFor(Type type) {
+        try {
+            return compile(type);
+        } catch (RuntimeException e) {
+            for (Type added : compiling) BINDERS.remove(added);
+            throw e;
+        } finally {
+            compiling.clear();
+        }
+    }
+
+    // List<type>, for documents that are an array
+    static synchronized ValueBinder listOf(Class<?> type) {
+        ValueBinder.CollectionOf binder = new ValueBinder.CollectionOf(constructor(lookup(ArrayList.class), ArrayList.class));
+        binder.element = binderFor(type);
+        return binder;
+    }
+
+    private static ValueBinder compile(Type type) {
+        ValueBinder binder = BINDERS.get(type);
+        if (binder != null) return binder;
+        // registered before its parts are compiled, so recursive types find it
+        if (type instanceof Class<?> && ((Class<?>) type).isRecord()) return record((Class<?>) type);
+        if (type instanceof Class<?> && ((Class<?>) type).isArray()) return array(type, ((Class<?>) type).getComponentType());
+        if (type instanceof GenericArrayType) return array(type, ((GenericArrayType) type).getGenericComponentType());
+        if (type instanceof WildcardType) return compile(((WildcardType) type).getUpperBounds()[0]);
+        Class<?> raw = raw(type);
+        if (raw == null) {
+            binder = BINDERS.get(Object.class); // type variables
+        } else if (raw.isEnum()) {
+            binder = new ValueBinder.EnumConstant(raw);
+        } else if (Collection.class.isAssignableFrom(raw)) {
+            return collection(type, raw);
+        } else if (Map.class.isAssignableFrom(raw)) {
+            return map(type, raw);
+        } else if (raw == type) {
+            return bean(raw);
+        } else {
+            binder = compile(raw); // a generic bean: its type arguments are not tracked
+        }
+        register(type, binder);
+        return binder;
+    }
+
+    private static ValueBinder record(Class<?> type) {
+        ValueBinder.ObjectBinder binder = new ValueBinder.ObjectBinder(type);
+        register(type, binder);
+        RecordComponent[] components = type.getRecordComponents();
+        Class<?>[] types = new Class<?>[components.length];
+        List<ValueBinder.Property> properties = new ArrayList<>();
+        for (int i = 0; i < components.length; i++) {
+            types[i] = components[i].getType();
+            ValueBinder.Property property = new ValueBinder.Property(components[i].getName(), i, types[i].isPrimitive());
+            property.binder = compile(components[i].getGenericType());
+            properties.add(property);
+        }
+        try {
+            MethodHandle constructor = lookup(type).findConstructor(type, MethodType.methodType(void.class, types));
+            binder.create = constructor.asSpreader(Object[].class, types.length)
+                    .asType(MethodType.methodType(Object.class, Object[].class));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException("Cannot bind " + type.getName() + ": " + e.getMessage(), e);
+        }
+        finish(binder, properties, types, true);
+        return binder;
+    }
+
+    private static ValueBinder bean(Class<?> type) {
+        if (type.isInterface() || Modifier.isAbstract(type.getModifiers()) || type.isPrimitive()) {
+            throw new IllegalArgumentException("Cannot bind " + type.getName() + ": not a concrete class");
+        }
+        ValueBinder.ObjectBinder binder = new ValueBinder.ObjectBinder(type);
+        register(type, binder);
+        MethodHandles.Lookup lookup = lookup(type);
+        binder.create = constructor(lookup, type);
+        Map<String, MethodHandle> setters = new LinkedHashMap<>();
+        Map<String, Type> types = new LinkedHashMap<>();
+        try {
+            // fields first, so setters of the same name replace them; superclasses before subclasses
+            List<Class<?>> hierarchy = new ArrayList<>();
+            for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) hierarchy.add(0, c);
+            for (Class<?> c : hierarchy) {
+                MethodHandles.Lookup declared = lookup(c);
+                for (Field field : c.getDeclaredFields()) {
+                    int modifiers = field.getModifiers();
+                    if (Modifier.isStatic(modifiers) || Modifier.isFinal(modifiers) || Modifier.isTransient(modifiers) || field.isSynthetic()) continue;
+                    setters.put(field.getName(), declared.unreflectSetter(field));
+                    types.put(field.getName(), field.getGenericType());
+                }
+            }
+            for (Method method : type.getMethods()) {
+                String name = method.getName();
+                if (Modifier.isStatic(method.getModifiers()) || method.getParameterCount() != 1
+                        || name.length() < 4 || !name.startsWith("set") || !Character.isUpperCase(name.charAt(3))) {
+                    continue;
+                }
+                String property = Character.toLowerCase(name.charAt(3)) + name.substring(4);
+                setters.put(property, lookup.unreflect(method));
+                types.put(property, method.getGenericParameterTypes()[0]);
+            }
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("Cannot bind " + type.getName() + ": " + e.getMessage(), e);
+        }
+        List<ValueBinder.Property> properties = new ArrayList<>();
+        Class<?>[] raw = new Class<?>[setters.size()];
+        for (Map.Entry<String, MethodHandle> setter : setters.entrySet()) {
+            int index = properties.size();
+            MethodHandle set = setter.getValue();
+            raw[index] = set.type().parameterType(1);
+            ValueBinder.Property property = new ValueBinder.Property(setter.getKey(), index, raw[index].isPrimitive());
+            property.set = set.asType(SETTER); // the result of a fluent setter is dropped
+            property.binder = compile(types.get(setter.getKey()));
+            properties.add(property);
+        }
+        finish(binder, properties, raw, false);
+        return binder;
+    }
+
+    private static void register(Type type, ValueBinder binder) {
+        BINDERS.put(type, binder);
+        compiling.add(type);
+    }
+
+    private static void finish(ValueBinder.ObjectBinder binder, List<ValueBinder.Property> properties, Class<?>[] types, boolean record) {
+        Map<String, ValueBinder.Property> byName = new HashMap<>();
+        for (ValueBinder.Property property : properties) byName.put(property.name, property);
+        binder.properties = byName;
+        binder.ordered = properties.toArray(new ValueBinder.Property[0]);
+        binder.initial = new Object[types.length];
+        // records need a value for each component; beans keep what their constructor set
+        if (record) {
+            for (int i = 0; i < types.length; i++) {
+                if (types[i].isPrimitive()) binder.initial[i] = zero(types[i]);
+            }
+        }
+    }
+
+    private static ValueBinder array(Type type, Type component) {
+        ValueBinder.ArrayOf binder = new ValueBinder.ArrayOf(raw(component) == null ? Object.class : raw(component));
+        register(type, binder);
+        binder.element = compile(component);
+        return binder;
+    }
+
+    private static ValueBinder collection(Type type, Class<?> raw) {
+        Class<?> implementation;
+        if (!raw.isInterface() && !Modifier.isAbstract(raw.getModifiers())) implementation = raw;
+        else if (raw.isAssignableFrom(ArrayList.class)) implementation = ArrayList.class;
+        else if (raw.isAssignableFrom(LinkedHashSet.class)) implementation = LinkedHashSet.class;
+        else if (raw == SortedSet.class || raw == NavigableSet.class) implementation = TreeSet.class;
+        else throw new IllegalArgumentException("Cannot bind " + type.getTypeName() + ": no implementation to create");
+        ValueBinder.CollectionOf binder = new ValueBinder.CollectionOf(constructor(lookup(implementation), implementation));
+        register(type, binder);
+        binder.element = compile(typeArgument(type, 0));
+        return binder;
+    }
+
+    private static ValueBinder map(Type type, Class<?> raw) {
+        Type key = typeArgument(type, 0);
+        if (key != Object.class && key != String.class && key != CharSequence.class) {
+            throw new IllegalArgumentException("Cannot bind " + type.getTypeName() + ": keys must be Strings");
+        }
+        Class<?> implementation;
+        if (!raw.isInterface() && !Modifier.isAbstract(raw.getModifiers())) implementation = raw;
+        else if (raw.isAssignableFrom(LinkedHashMap.class)) implementation = LinkedHashMap.class;
+        else if (raw == SortedMap.class || raw == NavigableMap.class) implementation = TreeMap.class;
+        else throw new IllegalArgumentException("Cannot bind " + type.getTypeName() + ": no implementation to create");
+        ValueBinder.MapOf binder = new ValueBinder.MapOf(constructor(lookup(implementation), implementation));
+        register(type, binder);
+        binder.value = compile(typeArgument(type, 1));
+        return binder;
+    }
+
+    private static MethodHandle constructor(MethodHandles.Lookup lookup, Class<?> type) {
+        try {
+            Constructor<?> constructor = type.getDeclaredConstructor();
+            return lookup.unreflectConstructor(constructor).asType(SUPPLIER);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalArgumentException("Cannot bind " + type.getName() + ": no constructor without arguments", e);
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("Cannot bind " + type.getName() + ": " + e.getMessage(), e);
+        }
+    }
+
+    // Private members of the target's own classes are reachable as long as its package is open to
+    // this one, which it is on the class path
+    private static MethodHandles.Lookup lookup(Class<?> type) {
+        try {
+            return MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+        } catch (IllegalAccessException e) {
+            return MethodHandles.publicLookup();
+        }
+    }
+
+    private static Type typeArgument(Type type, int index) {
+        if (type instanceof ParameterizedType) return ((ParameterizedType) type).getActualTypeArguments()[index];
+        return Object.class; // raw List, Map, ...
+    }
+
+    // Null for type variables
+    private static Class<?> raw(Type type) {
+        if (type instanceof Class<?>) return (Class<?>) type;
+        if (type instanceof ParameterizedType) return (Class<?>) ((ParameterizedType) type).getRawType();
+        if (type instanceof GenericArrayType) {
+            Class<?> component = raw(((GenericArrayType) type).getGenericComponentType());
+            return component == null ? Object[].class : component.arrayType();
+        }
+        if (type instanceof WildcardType) return raw(((WildcardType) type).getUpperBounds()[0]);
+        return null;
+    }
+
+    private static Object zero(Class<?> primitive) {
+        if (primitive == boolean.class) return Boolean.FALSE;
+        if (primitive == char.class) return (char) 0;
+        if (primitive == long.class) return 0L;
+        if (primitive == double.class) return 0d;
+        if (primitive == float.class) return 0f;
+        if (primitive == short.class) return (short) 0;
+        if (primitive == byte.class) return (byte) 0;
+        return 0;
+    }
+
+    // Errors thrown while creating the target objects, such as a record's validation
+    static ParseException failure(String message, Throwable e) {
+        if (e instanceof ParseException) return (ParseException) e;
+        if (e instanceof Error) throw (Error) e;
+        return new ParseException(message + ": " + e, e);
+    }
+}
@@ -0,0 +1,431 @@
+package parser.bind;
+
+import parser.core.EventType;
+import parser.core.IEventReader;
+import parser.core.Numbers;
+import parser.core.ParseException;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Reads one value of a target type from an event reader. Binders are made once per type by
+// BinderCompiler and keep no state between reads, so they are shared by all threads.
+abstract class ValueBinder {
+
+    // The current event of the reader is the first of the value (VALUE_* or START_*); returns with
+    // the last event of the value current. VALUE_NULL reads as null.
+    abstract Object read(IEventReader in);
+
+    // Scalars are read from their text, so numbers and booleans also bind from XML, where every
+    // value is a string
+    abstract static class Scalar extends ValueBinder {
+        private final String target;
+
+        Scalar(String target) {
+            this.target = target;
+        }
+
+        @Override
+        final Object read(IEventReader in) {
+            EventType event = in.current();
+            if (event == EventType.VALUE_NULL) return null;
+            if (event == EventType.START_OBJECT || event == EventType.START_ARRAY || event == EventType.FIELD_NAME
+                    || event == EventType.END_DOCUMENT) {
+                throw new ParseException("Expected " + target + ", found " + event);
+            }
+            String text = in.getText();
+            try {
+                return convert(text);
+            } catch (IllegalArgumentException | ArithmeticException e) {
+                throw new ParseException("Cannot bind '" + text + "' to " + target);
+            }
+        }
+
+        abstract Object convert(String text);
+    }
+
+    static final class TextValue extends Scalar {
+        TextValue() {
+            super("a string");
+        }
+
+        @Override
+        Object convert(String text) {
+            return text;
+        }
+    }
+
+    static final class IntValue extends Scalar {
+        IntValue() {
+            super("int");
+        }
+
+        @Override
+        Object convert(String text) {
+            return Integer.parseInt(text);
+        }
+    }
+
+    static final class LongValue extends Scalar {
+        LongValue() {
+            super("long");
+        }
+
+        @Override
+        Object convert(String text) {
+            return Long.parseLong(text);
+        }
+    }
+
+    static final class ShortValue extends Scalar {
+        ShortValue() {
+            super("short");
+        }
+
+        @Override
+        Object convert(String text) {
+            return Short.parseShort(text);
+        }
+    }
+
+    static final class ByteValue extends Scalar {
+        ByteValue() {
+            super("byte");
+        }
+
+        @Override
+        Object convert(String text) {
+            return Byte.parseByte(text);
+        }
+    }
+
+    static final class DoubleValue extends Scalar {
+        DoubleValue() {
+            super("double");
+        }
+
+        @Override
+        Object convert(String text) {
+            return Double.parseDouble(text);
+        }
+    }
+
+    static final class FloatValue extends Scalar {
+        FloatValue() {
+            super("float");
+        }
+
+        @Override
+        Object convert(String text) {
+            return Float.parseFloat(text);
+        }
+    }
+
+    static final class BoolValue extends Scalar {
+        BoolValue() {
+            super("boolean");
+        }
+
+        @Override
+        Object convert(String text) {
+            if (text.equals("true")) return Boolean.TRUE;
+            if (text.equals("false")) return Boolean.FALSE;
+            throw new IllegalArgumentException(text);
+        }
+    }
+
+    static final class CharValue extends Scalar {
+        CharValue() {
+            super("char");
+        }
+
+        @Override
+        Object convert(String text) {
+            if (text.length() != 1) throw new IllegalArgumentException(text);
+            return text.charAt(0);
+        }
+    }
+
+    static final class DecimalValue extends Scalar {
+        DecimalValue() {
+            super("BigDecimal");
+        }
+
+        @Override
+        Object convert(String text) {
+            return new BigDecimal(text);
+        }
+    }
+
+    static final class BigIntegerValue extends Scalar {
+        BigIntegerValue() {
+            super("BigInteger");
+        }
+
+        @Override
+        Object convert(String text) {
+            return new BigInteger(text);
+        }
+    }
+
+    // By constant name
+    static final class EnumConstant extends Scalar {
+        private final Map<String, Object> constants = new HashMap<>();
+
+        EnumConstant(Class<?> type) {
+            super(type.getSimpleName());
+            for (Object constant : type.getEnumConstants()) constants.put(((Enum<?>) constant).name(), constant);
+        }
+
+        @Override
+        Object convert(String text) {
+            Object constant = constants.get(text);
+            if (constant == null) throw new IllegalArgumentException(text);
+            return constant;
+        }
+    }
+
+    // Object: maps, lists, strings, Long (BigInteger beyond its range), Double and Boolean
+    static final class Untyped extends ValueBinder {
+        @Override
+        Object read(IEventReader in) {
+            switch (in.current()) {
+                case START_OBJECT: {
+                    Map<String, Object> map = new LinkedHashMap<>();
+                    while (in.next() == EventType.FIELD_NAME) {
+                        String key = in.getText();
+                        in.next();
+                        map.put(key, read(in));
+                    }
+                    expectEnd(in, EventType.END_OBJECT);
+                    return map;
+                }
+                case START_ARRAY: {
+                    List<Object> list = new ArrayList<>();
+                    while (in.next() != EventType.END_ARRAY) {
+                        ended(in);
+                        list.add(read(in));
+                    }
+                    return list;
+                }
+                case VALUE_NUMBER: return Numbers.parse(in.getText());
+                case VALUE_TRUE: return Boolean.TRUE;
+                case VALUE_FALSE: return Boolean.FALSE;
+                case VALUE_NULL: return null;
+                case VALUE_STRING: return in.getText();
+                default: throw new ParseException("Expected a value, found " + in.current());
+            }
+        }
+    }
+
+    // Arrays and collections take a JSON array or sequence; element may be set after construction
+    // when the element type refers back to the collection's owner
+    static final class CollectionOf extends ValueBinder {
+        private final MethodHandle create; // () -> Object
+        ValueBinder element;
+
+        CollectionOf(MethodHandle create) {
+            this.create = create;
+        }
+
+        @Override
+        Object read(IEventReader in) {
+            if (in.current() == EventType.VALUE_NULL) return null;
+            expect(in, EventType.START_ARRAY);
+            Collection<Object> collection = create();
+            while (in.next() != EventType.END_ARRAY) {
+                ended(in);
+                collection.add(element.read(in));
+            }
+            return collection;
+        }
+
+        // A single value where a collection is expected, as XML's repeated elements
+        void add(Object collection, IEventReader in) {
+            @SuppressWarnings("unchecked")
+            Collection<Object> values = (Collection<Object>) collection;
+            values.add(element.read(in));
+        }
+
+        @SuppressWarnings("unchecked")
+        Collection<Object> create() {
+            try {
+                return (Collection<Object>) (Object) create.invokeExact();
+            } catch (Throwable e) {
+                throw BinderCompiler.failure("Cannot create a collection", e);
+            }
+        }
+    }
+
+    static final class ArrayOf extends ValueBinder {
+        private final Class<?> component;
+        ValueBinder element;
+
+        ArrayOf(Class<?> component) {
+            this.component = component;
+        }
+
+        @Override
+        Object read(IEventReader in) {
+            if (in.current() == EventType.VALUE_NULL) return null;
+            expect(in, EventType.START_ARRAY);
+            List<Object> values = new ArrayList<>();
+            while (in.next() != EventType.END_ARRAY) {
+                ended(in);
+                Object value = element.read(in);
+                if (value == null && component.isPrimitive()) throw new ParseException("null in an array of " + component);
+                values.add(value);
+            }
+            Object array = Array.newInstance(component, values.size());
+            for (int i = 0; i < values.size(); i++) Array.set(array, i, values.get(i));
+            return array;
+        }
+    }
+
+    // Maps with String keys
+    static final class MapOf extends ValueBinder {
+        private final MethodHandle create; // () -> Object
+        ValueBinder value;
+
+        MapOf(MethodHandle create) {
+            this.create = create;
+        }
+
+        @Override
+        Object read(IEventReader in) {
+            if (in.current() == EventType.VALUE_NULL) return null;
+            expect(in, EventType.START_OBJECT);
+            Map<String, Object> map;
+            try {
+                @SuppressWarnings("unchecked")
+                Map<String, Object> created = (Map<String, Object>) (Object) create.invokeExact();
+                map = created;
+            } catch (Throwable e) {
+                throw BinderCompiler.failure("Cannot create a map", e);
+            }
+            while (in.next() == EventType.FIELD_NAME) {
+                String key = in.getText();
+                in.next();
+                map.put(key, value.read(in));
+            }
+            expectEnd(in, EventType.END_OBJECT);
+            return map;
+        }
+    }
+
+    // Records and beans. Values are collected per property first, then handed to the canonical
+    // constructor or the setters, so a collection property can also gather repeated single values.
+    // Fields that match no property are skipped without being read into anything.
+    static final class ObjectBinder extends ValueBinder {
+        private final Class<?> type;
+        // set by BinderCompiler once the property types are compiled, which may refer back to this
+        Map<String, Property> properties;
+        Property[] ordered;
+        Object[] initial;           // values of properties that are absent: zero for primitives
+        MethodHandle create;        // records: (Object[]) -> Object; beans: () -> Object
+
+        ObjectBinder(Class<?> type) {
+            this.type = type;
+        }
+
+        @Override
+        Object read(IEventReader in) {
+            if (in.current() == EventType.VALUE_NULL) return null;
+            expect(in, EventType.START_OBJECT);
+            Object[] values = initial.clone();
+            while (in.next() == EventType.FIELD_NAME) {
+                String name = in.getText();
+                Property property = properties.get(name);
+                if (property == null && name.startsWith("@")) property = properties.get(name.substring(1)); // XML attributes
+                EventType event = in.next();
+                if (property == null) {
+                    skip(in);
+                    continue;
+                }
+                try {
+                    if (property.binder instanceof CollectionOf && event != EventType.START_ARRAY && event != EventType.VALUE_NULL) {
+                        CollectionOf collection = (CollectionOf) property.binder;
+                        if (values[property.index] == null) values[property.index] = collection.create();
+                        collection.add(values[property.index], in);
+                    } else {
+                        Object value = property.binder.read(in);
+                        if (value != null || !property.primitive) values[property.index] = value;
+                    }
+                } catch (ParseException e) {
+                    throw new ParseException(type.getSimpleName() + "." + property.name + ": " + e.getMessage(), e);
+                }
+            }
+            expectEnd(in, EventType.END_OBJECT);
+            return type.isRecord() ? construct(values) : populate(values);
+        }
+
+        private Object construct(Object[] values) {
+            try {
+                return (Object) create.invokeExact(values);
+            } catch (Throwable e) {
+                throw BinderCompiler.failure("Cannot create " + type.getSimpleName(), e);
+            }
+        }
+
+        private Object populate(Object[] values) {
+            Object bean;
+            try {
+                bean = (Object) create.invokeExact();
+                for (int i = 0; i < ordered.length; i++) {
+                    // absent and null values leave the property as the constructor set it
+                    if (values[i] != null) ordered[i].set.invokeExact(bean, values[i]);
+                }
+            } catch (Throwable e) {
+                throw BinderCompiler.failure("Cannot create " + type.getSimpleName(), e);
+            }
+            return bean;
+        }
+    }
+
+    // Record component, bean setter or field
+    static final class Property {
+        final String name;
+        final int index;
+        final boolean primitive;
+        ValueBinder binder;
+        MethodHandle set; // beans: (Object, Object) -> void
+
+        Property(String name, int index, boolean primitive) {
+            this.name = name;
+            this.index = index;
+            this.primitive = primitive;
+        }
+    }
+
+    // Skips the value whose first event is current, with everything nested in it
+    static void skip(IEventReader in) {
+        EventType event = in.current();
+        if (event != EventType.START_OBJECT && event != EventType.START_ARRAY) return;
+        int depth = in.getDepth();
+        while (in.getDepth() >= depth) {
+            in.next();
+            ended(in);
+        }
+    }
+
+    static void expect(IEventReader in, EventType event) {
+        if (in.current() != event) throw new ParseException("Expected " + event + ", found " + in.current());
+    }
+
+    private static void expectEnd(IEventReader in, EventType event) {
+        ended(in);
+        expect(in, event);
+    }
+
+    private static void ended(IEventReader in) {
+        if (in.current() == EventType.END_DOCUMENT) throw new ParseException("Unexpected end of input");
+    }
+}
@@ -0,0 +1,145 @@
+package parser.core;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+// Bounded output buffer in front of a Writer. Printers append to it and it is flushed whenever it
+// fills up, so the text held in memory never depends on the size of the document being written.
+public class CharSink implements Closeable, Flushable {
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private final Writer out;
+    private final char[] buf;
+    private int count = 0;
+
+    public CharSink(Writer out) {
+        this(out, DEFAULT_BUFFER_SIZE);
+    }
+
+    public CharSink(Writer out, int bufferSize) {
+        if (bufferSize < 32) throw new IllegalArgumentException("Buffer size too small: " + bufferSize);
+        this.out = out;
+        this.buf = new char[bufferSize];
+    }
+
+    // UTF-8 output to a stream
+    public static CharSink of(OutputStream out) {
+        return new CharSink(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+    }
+
+    // In-memory output; the buffer is copied into the builder whenever it fills up or is flushed
+    public static CharSink of(StringBuilder target) {
+        return new CharSink(new Writer() {
+            @Override
+            public void write(char[] cbuf, int off, int len) {
+                target.append(cbuf, off, len);
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        });
+    }
+
+    // UTF-8 output to a channel (file, socket, pipe)
+    public static CharSink of(WritableByteChannel channel) {
+        return new CharSink(Channels.newWriter(channel, StandardCharsets.UTF_8));
+    }
+
+    public CharSink append(char c) {
+        if (count == buf.length) drain();
+        buf[count++] = c;
+        return this;
+    }
+
+    public CharSink append(String s) {
+        return append(s, 0, s.length());
+    }
+
+    public CharSink append(String s, int start, int end) {
+        while (start < end) {
+            if (count == buf.length) drain();
+            int n = Math.min(end - start, buf.length - count);
+            s.getChars(start, start + n, buf, count);
+            count += n;
+            start += n;
+        }
+        return this;
+    }
+
+    public CharSink append(char[] chars, int offset, int length) {
+        int end = offset + length;
+        while (offset < end) {
+            if (count == buf.length) drain();
+            int n = Math.min(end - offset, buf.length - count);
+            System.arraycopy(chars, offset, buf, count, n);
+            count += n;
+            offset += n;
+        }
+        return this;
+    }
+
+    // Writes the digits straight into the buffer instead of going through Long.toString
+    public CharSink append(long value) {
+        if (value == Long.MIN_VALUE) return append(Long.toString(value));
+        if (buf.length - count < 20) drain();
+        if (value < 0) {
+            buf[count++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for (long v = value; v >= 10; v /= 10) digits++;
+        for (int i = count + digits - 1; i >= count; i--) {
+            buf[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        count += digits;
+        return this;
+    }
+
+    public CharSink append(double value) {
+        return append(Double.toString(value));
+    }
+
+    @Override
+    public void flush() {
+        drain();
+        try {
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        drain();
+        try {
+            out.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void drain() {
+        if (count == 0) return;
+        try {
+            out.write(buf, 0, count);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        count = 0;
+    }
+}
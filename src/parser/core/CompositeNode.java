@@ -6,8 +6,12 @@ import java.util.List;
 
 // used for objects like arrays, XML elements, YAML maps/lists, etc.
 public class CompositeNode extends Node {
+    private static final int INDEX_THRESHOLD = 8; // below this a linear scan beats hashing
+
     private final List<Node> children = new ArrayList<>();
     private boolean isArray;
+    private List<Node> view; // read-only view handed out by getChildren(), created once
+    private int[] index; // open-addressing table of child position + 1 (0 = empty), built on demand
 
     public CompositeNode(String name, boolean isArray) {
         this(name, isArray, 0);
@@ -21,7 +25,12 @@ public class CompositeNode extends Node {
 
 
     public void addChild(Node child) {
+        materialize();
         children.add(child);
+        if (index != null) {
+            if ((children.size() << 1) > index.length) buildIndex(); // keep the load factor at 1/2 or below
+            else insert(index, children.size() - 1);
+        }
     }
 
     @Override
@@ -31,7 +40,54 @@ public class CompositeNode extends Node {
 
     @Override
     public List<Node> getChildren() {
-        return Collections.unmodifiableList(children);
+        materialize();
+        if (view == null) view = Collections.unmodifiableList(children);
+        return view;
+    }
+
+    public int size() {
+        materialize();
+        return children.size();
+    }
+
+    public Node get(int position) {
+        materialize();
+        return children.get(position);
+    }
+
+    // First child with the given name, or null
+    public Node get(String name) {
+        int position = indexOf(name, 0);
+        return position < 0 ? null : children.get(position);
+    }
+
+    // Position of the first child with the given name at or after from, or -1. XML elements may
+    // repeat a name, so callers that want every match continue from the last position + 1.
+    // Small nodes are scanned; larger ones get a hash index on the first lookup, which is then kept
+    // up to date by addChild().
+    public int indexOf(String name, int from) {
+        materialize();
+        if (name == null) return -1;
+        int size = children.size();
+        if (size < INDEX_THRESHOLD) {
+            for (int i = from; i < size; i++) {
+                if (name.equals(children.get(i).getName())) return i;
+            }
+            return -1;
+        }
+        if (index == null) buildIndex();
+        // children are inserted in order and slots are never freed, so a probe meets the children
+        // of one name in order too
+        int mask = index.length - 1;
+        for (int slot = spread(name.hashCode()) & mask; index[slot] != 0; slot = (slot + 1) & mask) {
+            int position = index[slot] - 1;
+            if (position >= from && name.equals(children.get(position).getName())) return position;
+        }
+        return -1;
+    }
+
+    public boolean has(String name) {
+        return get(name) != null;
     }
 
     public boolean isArray() { return isArray; }
@@ -41,14 +97,38 @@ public class CompositeNode extends Node {
         this.isArray = isArray;
     }
 
+    // Hook for subclasses whose children are produced on demand; called before any access to them
+    protected void materialize() {
+    }
+
+    private void buildIndex() {
+        int capacity = Integer.highestOneBit(Math.max(children.size(), INDEX_THRESHOLD) << 1) << 1;
+        int[] table = new int[capacity];
+        for (int i = 0; i < children.size(); i++) insert(table, i);
+        index = table;
+    }
+
+    private void insert(int[] table, int position) {
+        String name = children.get(position).getName();
+        if (name == null) return; // array elements have no key
+        int mask = table.length - 1;
+        int slot = spread(name.hashCode()) & mask;
+        while (table[slot] != 0) slot = (slot + 1) & mask;
+        table[slot] = position + 1;
+    }
+
+    private static int spread(int h) {
+        return h ^ (h >>> 16);
+    }
+
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
         sb.append("CompositeNode{name='").append(getName()).append("', children=[");
-        for (Node child : children) {
+        for (Node child : getChildren()) {
             sb.append(child.toString()).append(", ");
         }
-        if (!children.isEmpty()) {
+        if (!getChildren().isEmpty()) {
             sb.setLength(sb.length() - 2); // Remove trailing comma and space
         }
         sb.append("]}");
@@ -0,0 +1,30 @@
+package parser.core;
+
+import java.math.BigDecimal;
+
+public class DoubleLeafNode extends NumberLeafNode {
+    private final double value;
+
+    public DoubleLeafNode(String name, double value) {
+        super(name);
+        this.value = value;
+    }
+
+    @Override
+    public boolean isIntegral() { return false; }
+
+    @Override
+    public long longValue() { return (long) value; }
+
+    @Override
+    public double doubleValue() { return value; }
+
+    @Override
+    public BigDecimal decimalValue() { return BigDecimal.valueOf(value); }
+
+    @Override
+    public void appendTo(CharSink out) { out.append(value); }
+
+    @Override
+    public Number getValue() { return value; }
+}
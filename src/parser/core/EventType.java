@@ -0,0 +1,16 @@
+package parser.core;
+
+// Events produced by the pull readers, shared by every format so readers and writers can be mixed
+public enum EventType {
+    START_OBJECT,   // {  / mapping start
+    END_OBJECT,     // }  / mapping end
+    START_ARRAY,    // [  / sequence start
+    END_ARRAY,      // ]  / sequence end
+    FIELD_NAME,     // key of the next value
+    VALUE_STRING,
+    VALUE_NUMBER,
+    VALUE_TRUE,
+    VALUE_FALSE,
+    VALUE_NULL,
+    END_DOCUMENT    // no more events
+}
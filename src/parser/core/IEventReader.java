@@ -0,0 +1,24 @@
+package parser.core;
+
+// Pull-style reader: the caller asks for one event at a time instead of getting a whole Node tree
+public interface IEventReader extends AutoCloseable {
+
+    // Advances to the next event and returns it, END_DOCUMENT once the input is exhausted
+    EventType next() throws ParseException;
+
+    // The event returned by the last call to next(), null before the first call
+    EventType current();
+
+    // Field name for FIELD_NAME, raw scalar text for VALUE_* events, null otherwise
+    String getText();
+
+    // Number of currently open objects/arrays
+    int getDepth();
+
+    default boolean hasNext() {
+        return current() != EventType.END_DOCUMENT;
+    }
+
+    @Override
+    void close();
+}
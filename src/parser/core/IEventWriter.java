@@ -0,0 +1,21 @@
+package parser.core;
+
+// Push-style writer, the counterpart of IEventReader: takes one event at a time and writes it out
+// without holding the document, so events from a reader of any format can be fed straight in
+public interface IEventWriter extends AutoCloseable {
+
+    // text is what IEventReader.getText() returns for the event: the field name for FIELD_NAME, the
+    // scalar as written for VALUE_* events (null allowed for VALUE_NULL), ignored otherwise
+    void write(EventType event, String text);
+
+    // Writes the reader's current event
+    default void write(IEventReader reader) {
+        write(reader.current(), reader.getText());
+    }
+
+    void flush();
+
+    // Flushes and closes the underlying sink
+    @Override
+    void close();
+}
@@ -0,0 +1,11 @@
+package parser.core;
+
+// Receives the metrics of every monitored parse and print; see ParseMonitor. Called on the thread
+// that did the work, so implementations must be thread safe and should return quickly.
+public interface IParseListener {
+    void completed(ParseMetrics metrics);
+
+    // The metrics cover the input up to the failure
+    default void failed(ParseMetrics metrics, RuntimeException error) {
+    }
+}
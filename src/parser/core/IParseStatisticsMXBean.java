@@ -0,0 +1,31 @@
+package parser.core;
+
+import java.util.Map;
+
+// Totals since start (or the last reset) over all monitored operations, as exposed over JMX
+public interface IParseStatisticsMXBean {
+    long getParses();
+
+    long getFailures();
+
+    long getPrints();
+
+    long getInputSize();
+
+    long getTokens();
+
+    // "JSON.STRING", "YAML.KEY" and the like: format and token type, to count
+    Map<String, Long> getTokenCounts();
+
+    long getNodes();
+
+    int getMaxDepth();
+
+    long getTokenizeMillis();
+
+    long getParseMillis();
+
+    long getPrintMillis();
+
+    void reset();
+}
@@ -1,6 +1,41 @@
 package parser.core;
 
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
 public interface IParser {
     Node parse(String input) throws ParseException;
+
+    // Parses a file. The default reads it into a String; parsers that can work on the raw bytes
+    // (memory mapped) override this.
+    default Node parse(Path file) throws ParseException {
+        try {
+            return parse(Files.readString(file));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Parses while recording into the given metrics; nothing is reported to ParseMonitor's listeners.
+    // The default times the call and counts the finished tree; parsers whose tokenizers count tokens
+    // override it.
+    default Node parse(String input, ParseMetrics metrics) throws ParseException {
+        metrics.addInput(input.length());
+        long start = System.nanoTime();
+        Node root = parse(input);
+        metrics.addParseNanos(System.nanoTime() - start);
+        metrics.countTree(root);
+        return root;
+    }
+
+    default Node parse(Path file, ParseMetrics metrics) throws ParseException {
+        try {
+            return parse(Files.readString(file), metrics);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 }
@@ -0,0 +1,74 @@
+package parser.core;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+// Output core shared by the print visitors. Indentation is copied out of a precomputed table
+// (grown only when nesting goes deeper than it covers), so writing it allocates nothing.
+public class IndentPrinter {
+    public static final int DEFAULT_WIDTH = 2;
+    private static final int INITIAL_LEVELS = 32;
+    private static final int CHARS_PER_NODE = 24; // average name + value + punctuation, used for pre-sizing
+
+    private final CharSink out;
+    private final int width;
+    private final char indentChar;
+    private char[] table;
+    private int level = 0;
+
+    public IndentPrinter(CharSink out) {
+        this(out, DEFAULT_WIDTH, ' ');
+    }
+
+    public IndentPrinter(CharSink out, int width, char indentChar) {
+        if (width < 0) throw new IllegalArgumentException("Negative indent width: " + width);
+        this.out = out;
+        this.width = width;
+        this.indentChar = indentChar;
+        this.table = new char[width * INITIAL_LEVELS];
+        Arrays.fill(table, indentChar);
+    }
+
+    public CharSink out() {
+        return out;
+    }
+
+    public int level() {
+        return level;
+    }
+
+    public void indent() {
+        level++;
+    }
+
+    public void dedent() {
+        level--;
+    }
+
+    public void writeIndent() {
+        int n = Math.max(0, level) * width;
+        if (n > table.length) {
+            table = new char[Math.max(n, table.length * 2)];
+            Arrays.fill(table, indentChar);
+        }
+        out.append(table, 0, n);
+    }
+
+    public void newLine() {
+        out.append('\n');
+        writeIndent();
+    }
+
+    // Rough size of the printed tree, good enough to size an output buffer once up front
+    public static int estimateSize(Node root) {
+        long nodes = 0;
+        ArrayDeque<Node> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            Node node = pending.pop();
+            nodes++;
+            for (Node child : node.getChildren()) pending.push(child);
+        }
+        return (int) Math.min(Integer.MAX_VALUE - 8, nodes * CHARS_PER_NODE);
+    }
+}
@@ -33,7 +33,7 @@ public class LeafNode extends Node {
 
     @Override
     public String toString() {
-        return "LeafNode{name='" + getName() + "', value=" + value + "}";
+        return "LeafNode{name='" + getName() + "', value=" + getValue() + "}";
     }
 
 }
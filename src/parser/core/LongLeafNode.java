@@ -0,0 +1,30 @@
+package parser.core;
+
+import java.math.BigDecimal;
+
+public class LongLeafNode extends NumberLeafNode {
+    private final long value;
+
+    public LongLeafNode(String name, long value) {
+        super(name);
+        this.value = value;
+    }
+
+    @Override
+    public boolean isIntegral() { return true; }
+
+    @Override
+    public long longValue() { return value; }
+
+    @Override
+    public double doubleValue() { return value; }
+
+    @Override
+    public BigDecimal decimalValue() { return BigDecimal.valueOf(value); }
+
+    @Override
+    public void appendTo(CharSink out) { out.append(value); }
+
+    @Override
+    public Number getValue() { return value; }
+}
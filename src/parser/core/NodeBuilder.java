@@ -0,0 +1,79 @@
+package parser.core;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+// Event sink that builds Node trees: each value at the top level is handed to the consumer as soon
+// as its last event arrives, so a push parser can deliver documents while the input is still coming
+// in. Numbers become LongLeafNode when they are integers that fit, DoubleLeafNode otherwise, and
+// RawNumberLeafNode beyond the long range, as in JSONParser's NATIVE mode.
+public class NodeBuilder implements IEventWriter {
+    private final Consumer<Node> roots;
+    private CompositeNode[] open = new CompositeNode[16];
+    private int depth = 0;
+    private String name; // from the last FIELD_NAME, until its value arrives
+
+    public NodeBuilder(Consumer<Node> roots) {
+        this.roots = roots;
+    }
+
+    @Override
+    public void write(EventType event, String text) {
+        switch (event) {
+            case FIELD_NAME:
+                name = text;
+                return;
+            case START_OBJECT:
+            case START_ARRAY:
+                CompositeNode container = new CompositeNode(name, event == EventType.START_ARRAY);
+                if (depth > 0) open[depth - 1].addChild(container);
+                if (depth == open.length) open = Arrays.copyOf(open, depth * 2);
+                open[depth++] = container;
+                break;
+            case END_OBJECT:
+            case END_ARRAY:
+                if (depth == 0) throw new ParseException("Unexpected " + event + " at the top level");
+                CompositeNode done = open[--depth];
+                open[depth] = null;
+                if (depth == 0) roots.accept(done);
+                break;
+            case END_DOCUMENT:
+                return;
+            default:
+                Node leaf = leaf(event, text);
+                if (depth > 0) open[depth - 1].addChild(leaf);
+                else roots.accept(leaf);
+        }
+        name = null;
+    }
+
+    private Node leaf(EventType event, String text) {
+        switch (event) {
+            case VALUE_NUMBER: return number(name, text);
+            case VALUE_TRUE: return new LeafNode(name, Boolean.TRUE);
+            case VALUE_FALSE: return new LeafNode(name, Boolean.FALSE);
+            case VALUE_NULL: return new LeafNode(name, null);
+            default: return new LeafNode(name, text);
+        }
+    }
+
+    private static Node number(String name, String text) {
+        Number value = Numbers.parse(text);
+        if (value instanceof Long) return new LongLeafNode(name, (Long) value);
+        if (value instanceof Double) return new DoubleLeafNode(name, (Double) value);
+        return new RawNumberLeafNode(name, text); // beyond the long range
+    }
+
+    // Objects and arrays started but not finished yet
+    public int getDepth() {
+        return depth;
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,26 @@
+package parser.core;
+
+import java.math.BigDecimal;
+
+// Leaf holding a number; subclasses keep it unboxed and only box when getValue() is called
+public abstract class NumberLeafNode extends LeafNode {
+
+    protected NumberLeafNode(String name) {
+        super(name, null);
+    }
+
+    // true when the number has no fraction or exponent and fits in a long
+    public abstract boolean isIntegral();
+
+    public abstract long longValue();
+
+    public abstract double doubleValue();
+
+    public abstract BigDecimal decimalValue();
+
+    // Appends the number's text without boxing it
+    public abstract void appendTo(CharSink out);
+
+    @Override
+    public abstract Number getValue();
+}
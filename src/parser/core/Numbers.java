@@ -0,0 +1,54 @@
+package parser.core;
+
+import java.math.BigInteger;
+
+// The JSON number grammar and the conversion of number text to a value, for the readers and builders
+// that work on number text rather than on a tokenizer's digits. JSONTokenizer and JSONByteTokenizer
+// check the same grammar while they scan, so every reader accepts the same numbers.
+public final class Numbers {
+
+    private Numbers() {
+    }
+
+    // -?(0|[1-9][0-9]*)(.[0-9]+)?([eE][+-]?[0-9]+)?  A leading zero followed by more digits is not a
+    // number, so everything accepted here can be written back as JSON
+    public static boolean isNumber(String s) {
+        int i = 0;
+        int n = s.length();
+        if (i < n && s.charAt(i) == '-') i++;
+        int digits = i;
+        while (i < n && isDigit(s.charAt(i))) i++;
+        if (i == digits) return false;
+        if (s.charAt(digits) == '0' && i - digits > 1) return false;
+        if (i < n && s.charAt(i) == '.') {
+            int fraction = ++i;
+            while (i < n && isDigit(s.charAt(i))) i++;
+            if (i == fraction) return false;
+        }
+        if (i < n && (s.charAt(i) == 'e' || s.charAt(i) == 'E')) {
+            i++;
+            if (i < n && (s.charAt(i) == '+' || s.charAt(i) == '-')) i++;
+            int exponent = i;
+            while (i < n && isDigit(s.charAt(i))) i++;
+            if (i == exponent) return false;
+        }
+        return i == n;
+    }
+
+    // Long for an integer that fits, BigInteger for one beyond the long range, Double for anything
+    // with a fraction or exponent. Throws NumberFormatException when the text is not a number.
+    public static Number parse(String text) {
+        if (text.indexOf('.') < 0 && text.indexOf('e') < 0 && text.indexOf('E') < 0) {
+            try {
+                return Long.parseLong(text);
+            } catch (NumberFormatException e) {
+                return new BigInteger(text); // beyond the long range, or not a number at all
+            }
+        }
+        return Double.parseDouble(text);
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
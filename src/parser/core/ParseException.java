@@ -1,6 +1,9 @@
 package parser.core;
 
 public class ParseException extends RuntimeException{
+    // what the parse had read when it failed, when it was monitored; not serialized with the exception
+    private transient ParseMetrics metrics;
+
     public ParseException(String msg){
         super(msg);
     }
@@ -8,4 +11,14 @@ public class ParseException extends RuntimeException{
     public ParseException(String msg, Throwable cause){
         super(msg, cause);
     }
+
+    // Null unless the parse ran with metrics (see ParseMonitor)
+    public ParseMetrics getMetrics() {
+        return metrics;
+    }
+
+    // Keeps the innermost metrics when a failure is reported by nested parses
+    void attach(ParseMetrics metrics) {
+        if (this.metrics == null) this.metrics = metrics;
+    }
 }
@@ -0,0 +1,22 @@
+package parser.core;
+
+// Nesting limit for the parsers and printers. They keep open objects and arrays on stacks of their
+// own rather than on the call stack, so deep documents no longer overflow the thread's stack and the
+// depth is bounded only by the heap and this limit. Set -Dparser.maxDepth to lower it, for example
+// when documents come from untrusted sources.
+public final class ParseLimits {
+    public static final int DEFAULT_MAX_DEPTH = 1_000_000;
+    private static final int MAX_DEPTH = Math.max(1, Integer.getInteger("parser.maxDepth", DEFAULT_MAX_DEPTH));
+
+    private ParseLimits() {
+    }
+
+    public static int maxDepth() {
+        return MAX_DEPTH;
+    }
+
+    // Called before opening a level below the given depth
+    public static void checkDepth(int depth) {
+        if (depth >= MAX_DEPTH) throw new ParseException("Nesting deeper than " + MAX_DEPTH + " levels (see -Dparser.maxDepth)");
+    }
+}
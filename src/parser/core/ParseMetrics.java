@@ -0,0 +1,178 @@
+package parser.core;
+
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// What one parse (or print) did: input consumed, tokens per type, nodes built, deepest nesting and the
+// time spent per phase. One instance belongs to one operation on one thread; tokenizers update it
+// from their hot loop, so nothing here is synchronized. ParseMonitor hands finished instances to the
+// registered listeners.
+//
+// Input is counted in the tokenizer's own units: bytes for files and byte buffers, chars for Strings
+// and Readers. Tokenize time covers the passes that only tokenize (structural indexing, splitting a
+// YAML stream into documents); tokenizing interleaved with parsing is part of parse time.
+public final class ParseMetrics {
+    private final String format;
+    private final boolean print;
+    private long inputSize;
+    private Enum<?>[] tokenTypes; // constants of the token enum, known from the first token
+    private long[] tokens;
+    private long nodes;
+    private int maxDepth;
+    private long tokenizeNanos;
+    private long parseNanos;
+    private long printNanos;
+
+    public ParseMetrics(String format) {
+        this(format, false);
+    }
+
+    // print: the operation wrote a tree out instead of reading one
+    public ParseMetrics(String format, boolean print) {
+        this.format = format;
+        this.print = print;
+    }
+
+    // --- recording ---
+
+    public void token(Enum<?> type) {
+        if (tokens == null) {
+            tokenTypes = type.getDeclaringClass().getEnumConstants();
+            tokens = new long[tokenTypes.length];
+        }
+        tokens[type.ordinal()]++;
+    }
+
+    public void addInput(long size) {
+        inputSize += size;
+    }
+
+    public void addNodes(long count) {
+        nodes += count;
+    }
+
+    public void depth(int depth) {
+        if (depth > maxDepth) maxDepth = depth;
+    }
+
+    public void addTokenizeNanos(long nanos) {
+        tokenizeNanos += nanos;
+    }
+
+    public void addParseNanos(long nanos) {
+        parseNanos += nanos;
+    }
+
+    public void addPrintNanos(long nanos) {
+        printNanos += nanos;
+    }
+
+    // Counts the nodes of a finished tree and its depth (the root is at depth 1), without recursion
+    public void countTree(Node root) {
+        if (root == null) return;
+        ArrayDeque<Node> nodesLeft = new ArrayDeque<>();
+        ArrayDeque<Integer> depths = new ArrayDeque<>();
+        nodesLeft.push(root);
+        depths.push(1);
+        while (!nodesLeft.isEmpty()) {
+            Node node = nodesLeft.pop();
+            int depth = depths.pop();
+            nodes++;
+            depth(depth);
+            for (Node child : node.getChildren()) {
+                nodesLeft.push(child);
+                depths.push(depth + 1);
+            }
+        }
+    }
+
+    // Adds the counts of another operation, e.g. one document of a stream parsed on another thread
+    public void add(ParseMetrics other) {
+        inputSize += other.inputSize;
+        if (other.tokens != null) {
+            if (tokens == null) {
+                tokenTypes = other.tokenTypes;
+                tokens = new long[other.tokens.length];
+            }
+            if (tokenTypes == other.tokenTypes || tokenTypes[0].getDeclaringClass() == other.tokenTypes[0].getDeclaringClass()) {
+                for (int i = 0; i < tokens.length; i++) tokens[i] += other.tokens[i];
+            }
+        }
+        nodes += other.nodes;
+        depth(other.maxDepth);
+        tokenizeNanos += other.tokenizeNanos;
+        parseNanos += other.parseNanos;
+        printNanos += other.printNanos;
+    }
+
+    // --- reading ---
+
+    public String getFormat() {
+        return format;
+    }
+
+    public boolean isPrint() {
+        return print;
+    }
+
+    public long getInputSize() {
+        return inputSize;
+    }
+
+    public long getTokens() {
+        long total = 0;
+        if (tokens != null) {
+            for (long count : tokens) total += count;
+        }
+        return total;
+    }
+
+    public long getTokenCount(Enum<?> type) {
+        if (tokens == null || tokenTypes[0].getDeclaringClass() != type.getDeclaringClass()) return 0;
+        return tokens[type.ordinal()];
+    }
+
+    // Token type name to count, for the types that occurred, in declaration order
+    public Map<String, Long> getTokenCounts() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        if (tokens == null) return counts;
+        for (int i = 0; i < tokens.length; i++) {
+            if (tokens[i] > 0) counts.put(tokenTypes[i].name(), tokens[i]);
+        }
+        return counts;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public long getTokenizeNanos() {
+        return tokenizeNanos;
+    }
+
+    public long getParseNanos() {
+        return parseNanos;
+    }
+
+    public long getPrintNanos() {
+        return printNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "ParseMetrics{format=" + format +
+                (print ? ", print" : "") +
+                ", input=" + inputSize +
+                ", tokens=" + getTokenCounts() +
+                ", nodes=" + nodes +
+                ", maxDepth=" + maxDepth +
+                ", tokenizeNanos=" + tokenizeNanos +
+                ", parseNanos=" + parseNanos +
+                ", printNanos=" + printNanos + '}';
+    }
+}
@@ -0,0 +1,119 @@
+package parser.core;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+
+// Process-wide switch for parse metrics. Nothing is recorded until a listener is added: the parsers
+// check isEnabled() once per call and, while it is false, run exactly as before with no metrics
+// object and no timing; tokenizers only test a null field per token.
+//
+//   ParseMonitor.registerMBean();                       // totals under parser:type=ParseStatistics
+//   ParseMonitor.addListener(metrics -> log(metrics));  // or any IParseListener
+//
+// A single parse can also be measured without a listener through IParser.parse(input, metrics).
+public final class ParseMonitor {
+    public static final String MBEAN_NAME = "parser:type=ParseStatistics";
+
+    private static final List<IParseListener> listeners = new CopyOnWriteArrayList<>();
+    private static volatile boolean enabled = false;
+    private static ParseStatistics statistics; // the registered MBean, guarded by the class lock
+
+    private ParseMonitor() {
+    }
+
+    // Both take the class lock, so enabled always matches the list left by the last change
+    public static synchronized void addListener(IParseListener listener) {
+        listeners.add(listener);
+        enabled = true;
+    }
+
+    public static synchronized void removeListener(IParseListener listener) {
+        listeners.remove(listener);
+        enabled = !listeners.isEmpty();
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    // Runs a parse with a fresh metrics object and reports it to the listeners, also when it fails.
+    // A ParseException leaves with the metrics attached.
+    public static <T> T record(String format, Function<ParseMetrics, T> parse) {
+        ParseMetrics metrics = new ParseMetrics(format);
+        T result;
+        try {
+            result = parse.apply(metrics);
+        } catch (RuntimeException e) {
+            if (e instanceof ParseException) ((ParseException) e).attach(metrics);
+            failed(metrics, e);
+            throw e;
+        }
+        completed(metrics);
+        return result;
+    }
+
+    // Prints the tree with the visitor, timing it when monitoring is on
+    public static void print(String format, Node root, INodeVisitor printer) {
+        if (!enabled) {
+            root.accept(printer);
+            return;
+        }
+        ParseMetrics metrics = new ParseMetrics(format, true);
+        long start = System.nanoTime();
+        try {
+            root.accept(printer);
+        } catch (RuntimeException e) {
+            failed(metrics, e);
+            throw e;
+        }
+        metrics.addPrintNanos(System.nanoTime() - start);
+        metrics.countTree(root);
+        completed(metrics);
+    }
+
+    public static void completed(ParseMetrics metrics) {
+        for (IParseListener listener : listeners) listener.completed(metrics);
+    }
+
+    public static void failed(ParseMetrics metrics, RuntimeException error) {
+        for (IParseListener listener : listeners) listener.failed(metrics, error);
+    }
+
+    // Registers a ParseStatistics listener with the platform MBean server; calling it again returns the
+    // one already registered
+    public static synchronized ParseStatistics registerMBean() {
+        if (statistics != null) return statistics;
+        ParseStatistics created = new ParseStatistics();
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(created, new ObjectName(MBEAN_NAME));
+        } catch (InstanceAlreadyExistsException e) {
+            throw new IllegalStateException(MBEAN_NAME + " is already registered by another class loader", e);
+        } catch (JMException e) {
+            throw new IllegalStateException("Failed to register " + MBEAN_NAME, e);
+        }
+        statistics = created;
+        addListener(created);
+        return created;
+    }
+
+    public static synchronized void unregisterMBean() {
+        if (statistics == null) return;
+        removeListener(statistics);
+        statistics = null;
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.unregisterMBean(new ObjectName(MBEAN_NAME));
+        } catch (InstanceNotFoundException e) {
+            // already gone
+        } catch (JMException e) {
+            throw new IllegalStateException("Failed to unregister " + MBEAN_NAME, e);
+        }
+    }
+}
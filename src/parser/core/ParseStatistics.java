@@ -0,0 +1,123 @@
+package parser.core;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// Listener that keeps running totals; ParseMonitor.registerMBean() publishes one over JMX. Counters
+// are LongAdders, so parses on many threads do not contend on them.
+public class ParseStatistics implements IParseListener, IParseStatisticsMXBean {
+    private final LongAdder parses = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder prints = new LongAdder();
+    private final LongAdder inputSize = new LongAdder();
+    private final LongAdder tokens = new LongAdder();
+    private final Map<String, LongAdder> tokenCounts = new ConcurrentHashMap<>();
+    private final LongAdder nodes = new LongAdder();
+    private final LongAccumulator maxDepth = new LongAccumulator(Math::max, 0);
+    private final LongAdder tokenizeNanos = new LongAdder();
+    private final LongAdder parseNanos = new LongAdder();
+    private final LongAdder printNanos = new LongAdder();
+
+    @Override
+    public void completed(ParseMetrics metrics) {
+        if (metrics.isPrint()) prints.increment();
+        else parses.increment();
+        record(metrics);
+    }
+
+    @Override
+    public void failed(ParseMetrics metrics, RuntimeException error) {
+        failures.increment();
+        record(metrics);
+    }
+
+    private void record(ParseMetrics metrics) {
+        inputSize.add(metrics.getInputSize());
+        tokens.add(metrics.getTokens());
+        for (Map.Entry<String, Long> entry : metrics.getTokenCounts().entrySet()) {
+            String key = metrics.getFormat().toUpperCase() + "." + entry.getKey();
+            tokenCounts.computeIfAbsent(key, k -> new LongAdder()).add(entry.getValue());
+        }
+        nodes.add(metrics.getNodes());
+        maxDepth.accumulate(metrics.getMaxDepth());
+        tokenizeNanos.add(metrics.getTokenizeNanos());
+        parseNanos.add(metrics.getParseNanos());
+        printNanos.add(metrics.getPrintNanos());
+    }
+
+    @Override
+    public long getParses() {
+        return parses.sum();
+    }
+
+    @Override
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    @Override
+    public long getPrints() {
+        return prints.sum();
+    }
+
+    @Override
+    public long getInputSize() {
+        return inputSize.sum();
+    }
+
+    @Override
+    public long getTokens() {
+        return tokens.sum();
+    }
+
+    @Override
+    public Map<String, Long> getTokenCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        tokenCounts.forEach((type, count) -> counts.put(type, count.sum()));
+        return counts;
+    }
+
+    @Override
+    public long getNodes() {
+        return nodes.sum();
+    }
+
+    @Override
+    public int getMaxDepth() {
+        return (int) maxDepth.get();
+    }
+
+    @Override
+    public long getTokenizeMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(tokenizeNanos.sum());
+    }
+
+    @Override
+    public long getParseMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(parseNanos.sum());
+    }
+
+    @Override
+    public long getPrintMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(printNanos.sum());
+    }
+
+    @Override
+    public void reset() {
+        parses.reset();
+        failures.reset();
+        prints.reset();
+        inputSize.reset();
+        tokens.reset();
+        tokenCounts.clear();
+        nodes.reset();
+        maxDepth.reset();
+        tokenizeNanos.reset();
+        parseNanos.reset();
+        printNanos.reset();
+    }
+}
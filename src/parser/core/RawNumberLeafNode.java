@@ -0,0 +1,49 @@
+package parser.core;
+
+import java.math.BigDecimal;
+
+// Keeps the number exactly as written and only parses it when asked, so nothing is lost for
+// integers beyond the long range or decimals that a double cannot represent
+public class RawNumberLeafNode extends NumberLeafNode {
+    private final String text;
+    private BigDecimal decimal; // parsed on first use
+
+    public RawNumberLeafNode(String name, String text) {
+        super(name);
+        this.text = text;
+    }
+
+    public String getText() { return text; }
+
+    @Override
+    public boolean isIntegral() {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '.' || c == 'e' || c == 'E') return false;
+        }
+        try {
+            Long.parseLong(text);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public long longValue() { return isIntegral() ? Long.parseLong(text) : decimalValue().longValue(); }
+
+    @Override
+    public double doubleValue() { return Double.parseDouble(text); }
+
+    @Override
+    public BigDecimal decimalValue() {
+        if (decimal == null) decimal = new BigDecimal(text);
+        return decimal;
+    }
+
+    @Override
+    public void appendTo(CharSink out) { out.append(text); }
+
+    @Override
+    public Number getValue() { return decimalValue(); }
+}
@@ -0,0 +1,109 @@
+package parser.core;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+// Bounded cache of key names. Tokenizers look a key up by hashing its raw characters, before any
+// String is allocated, so a key that repeats across thousands of records becomes one shared instance.
+// The table is direct mapped: a slot holds the last name that hashed to it, so memory stays fixed
+// and a collision only costs an allocation. Slots hold immutable Strings, which makes it safe to
+// share one table between threads without locking.
+public class SymbolTable {
+    public static final int DEFAULT_CAPACITY = 1024;
+    private static final int MAX_LENGTH = 64; // longer names rarely repeat, they are not cached
+
+    private final String[] symbols;
+    private final int mask;
+
+    public SymbolTable() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public SymbolTable(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) size <<= 1; // round up to a power of two
+        this.symbols = new String[size];
+        this.mask = size - 1;
+    }
+
+    public String intern(String name) {
+        if (name.length() > MAX_LENGTH) return name;
+        int slot = slot(name.hashCode());
+        String symbol = symbols[slot];
+        if (name.equals(symbol)) return symbol;
+        symbols[slot] = name;
+        return name;
+    }
+
+    public String intern(char[] chars, int start, int end) {
+        int length = end - start;
+        if (length > MAX_LENGTH) return new String(chars, start, length);
+        int hash = 0;
+        for (int i = start; i < end; i++) hash = 31 * hash + chars[i];
+        int slot = slot(hash);
+        String symbol = symbols[slot];
+        if (symbol != null && symbol.length() == length) {
+            int i = 0;
+            while (i < length && symbol.charAt(i) == chars[start + i]) i++;
+            if (i == length) return symbol;
+        }
+        return symbols[slot] = new String(chars, start, length);
+    }
+
+    // Any text when given a String; other sequences (such as a Utf8CharSequence, whose charAt() returns
+    // raw bytes) are only cached when the name is ASCII, where chars and bytes agree
+    public String intern(CharSequence text, int start, int end) {
+        int length = end - start;
+        if (length > MAX_LENGTH) return text.subSequence(start, end).toString();
+        boolean decoded = text instanceof String;
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c >= 0x80 && !decoded) return text.subSequence(start, end).toString();
+            hash = 31 * hash + c;
+        }
+        int slot = slot(hash);
+        String symbol = symbols[slot];
+        if (symbol != null && symbol.length() == length) {
+            int i = 0;
+            while (i < length && symbol.charAt(i) == text.charAt(start + i)) i++;
+            if (i == length) return symbol;
+        }
+        return symbols[slot] = text.subSequence(start, end).toString();
+    }
+
+    // UTF-8 bytes; only ASCII names are cached, anything else is decoded as usual
+    public String intern(ByteBuffer bytes, int start, int end) {
+        int length = end - start;
+        if (length > MAX_LENGTH) return decode(bytes, start, end);
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            byte b = bytes.get(i);
+            if (b < 0) return decode(bytes, start, end);
+            hash = 31 * hash + b;
+        }
+        int slot = slot(hash);
+        String symbol = symbols[slot];
+        if (symbol != null && symbol.length() == length) {
+            int i = 0;
+            while (i < length && symbol.charAt(i) == bytes.get(start + i)) i++;
+            if (i == length) return symbol;
+        }
+        return symbols[slot] = decode(bytes, start, end); // ASCII, so one char per byte
+    }
+
+    private int slot(int hash) {
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private static String decode(ByteBuffer bytes, int start, int end) {
+        int length = end - start;
+        if (bytes.hasArray()) {
+            return new String(bytes.array(), bytes.arrayOffset() + start, length, StandardCharsets.UTF_8);
+        }
+        byte[] copy = new byte[length];
+        bytes.get(start, copy, 0, length);
+        return new String(copy, StandardCharsets.UTF_8);
+    }
+}
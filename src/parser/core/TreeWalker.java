@@ -0,0 +1,63 @@
+package parser.core;
+
+import java.util.Arrays;
+import java.util.List;
+
+// Depth-first walk over a Node tree that keeps the open composites on an explicit stack instead of
+// the call stack, so printers can handle trees of any depth the heap allows. The handler sees each
+// composite before and after its children, with the parent and the node's position in it.
+public final class TreeWalker {
+
+    public interface Handler {
+        // parent is null (and index 0) for the node the walk started at
+        void enter(CompositeNode node, CompositeNode parent, int index);
+
+        void leaf(Node node, CompositeNode parent, int index);
+
+        void exit(CompositeNode node, CompositeNode parent, int index);
+    }
+
+    private TreeWalker() {
+    }
+
+    public static void walk(CompositeNode root, Handler handler) {
+        CompositeNode[] nodes = new CompositeNode[16];
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        List<Node>[] children = new List[16];
+        int[] next = new int[16]; // position of the next child to visit
+        handler.enter(root, null, 0);
+        nodes[0] = root;
+        children[0] = root.getChildren();
+        int depth = 1;
+        while (depth > 0) {
+            int top = depth - 1;
+            int index = next[top];
+            if (index < children[top].size()) {
+                next[top] = index + 1;
+                Node child = children[top].get(index);
+                if (!(child instanceof CompositeNode)) {
+                    handler.leaf(child, nodes[top], index);
+                    continue;
+                }
+                CompositeNode composite = (CompositeNode) child;
+                handler.enter(composite, nodes[top], index);
+                if (depth == nodes.length) {
+                    nodes = Arrays.copyOf(nodes, depth * 2);
+                    children = Arrays.copyOf(children, depth * 2);
+                    next = Arrays.copyOf(next, depth * 2);
+                }
+                nodes[depth] = composite;
+                children[depth] = composite.getChildren();
+                next[depth] = 0;
+                depth++;
+            } else {
+                CompositeNode done = nodes[top];
+                nodes[top] = null;
+                children[top] = null;
+                depth = top;
+                if (depth == 0) handler.exit(done, null, 0);
+                else handler.exit(done, nodes[depth - 1], next[depth - 1] - 1);
+            }
+        }
+    }
+}
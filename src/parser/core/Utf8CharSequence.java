@@ -0,0 +1,69 @@
+package parser.core;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Read-only view of UTF-8 bytes for tokenizers that only look for ASCII delimiters. charAt() returns
+// the raw byte, which is enough because bytes of multi-byte sequences are never ASCII; the slices the
+// tokenizer keeps are decoded properly in subSequence(..).toString().
+public class Utf8CharSequence implements CharSequence {
+    private final ByteBuffer bytes;
+    private final int start;
+    private final int end;
+
+    public Utf8CharSequence(ByteBuffer bytes) {
+        this(bytes, bytes.position(), bytes.limit());
+    }
+
+    private Utf8CharSequence(ByteBuffer bytes, int start, int end) {
+        this.bytes = bytes;
+        this.start = start;
+        this.end = end;
+    }
+
+    // Maps a whole file read-only; a single mapping is limited to 2 GB
+    public static Utf8CharSequence map(Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new ParseException("File too large to map (" + size + " bytes), use a streaming reader: " + file);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            return new Utf8CharSequence(buffer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public int length() {
+        return end - start;
+    }
+
+    @Override
+    public char charAt(int index) {
+        return (char) (bytes.get(start + index) & 0xFF);
+    }
+
+    @Override
+    public CharSequence subSequence(int from, int to) {
+        return new Utf8CharSequence(bytes, start + from, start + to);
+    }
+
+    @Override
+    public String toString() {
+        int length = end - start;
+        if (bytes.hasArray()) {
+            return new String(bytes.array(), bytes.arrayOffset() + start, length, StandardCharsets.UTF_8);
+        }
+        byte[] copy = new byte[length];
+        bytes.get(start, copy, 0, length);
+        return new String(copy, StandardCharsets.UTF_8);
+    }
+}
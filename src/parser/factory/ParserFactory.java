@@ -2,24 +2,47 @@ package parser.factory;
 
 import parser.core.IParser;
 import parser.json.JSONParser;
+import parser.json.NDJSONParser;
 import parser.xml.XMLParser;
 import parser.yaml.YAMLParser;
 
 public class ParserFactory {
 
     public enum Format{
-        JSON, XML, YAML
+        JSON, XML, YAML, NDJSON
+    }
+
+    // Parsers keep no state between calls, so one instance per format is shared by all callers
+    private static final IParser JSON_PARSER = new JSONParser();
+    private static final IParser XML_PARSER = new XMLParser();
+    private static final IParser YAML_PARSER = new YAMLParser();
+    private static final IParser NDJSON_PARSER = new NDJSONParser();
+
+    public static IParser getParser(Format format){
+        return switch (format) {
+            case JSON -> JSON_PARSER;
+            case XML -> XML_PARSER;
+            case YAML -> YAML_PARSER;
+            case NDJSON -> NDJSON_PARSER;
+        };
     }
 
     public static IParser getParser(String formatOrFileName){
+        return getParser(formatOf(formatOrFileName));
+    }
+
+    // Resolves a format name ("json") or a file name ("data.json") to its format
+    public static Format formatOf(String formatOrFileName){
         String fmt = formatOrFileName.trim().toLowerCase();
 
-        if(fmt.endsWith(".json") || fmt.equals("json")){
-            return new JSONParser();
+        if(fmt.endsWith(".ndjson") || fmt.endsWith(".jsonl") || fmt.equals("ndjson") || fmt.equals("jsonl")){
+            return Format.NDJSON;
+        } else if(fmt.endsWith(".json") || fmt.equals("json")){
+            return Format.JSON;
         } else if(fmt.endsWith(".xml") || fmt.equals("xml")){
-            return new XMLParser();
+            return Format.XML;
         } else if(fmt.endsWith(".yaml") || fmt.equals("yaml")){
-            return new YAMLParser();
+            return Format.YAML;
         } else {
             throw new IllegalArgumentException("Unsupported format: " + formatOrFileName);
         }
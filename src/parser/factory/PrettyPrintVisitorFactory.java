@@ -1,9 +1,12 @@
 package parser.factory;
 
+import parser.core.CharSink;
 import parser.json.JSONPrettyPrintVisitorI;
 import parser.core.INodeVisitor;
+import parser.json.JSONStreamingPrintVisitor;
 import parser.xml.XMLPrettyPrintVisitorI;
 import parser.yaml.YAMLPrettyPrintVisitorI;
+import parser.yaml.YAMLStreamingPrintVisitor;
 
 public class PrettyPrintVisitorFactory {
 
@@ -24,4 +27,17 @@ public class PrettyPrintVisitorFactory {
             throw new IllegalArgumentException("Unsupported format: " + formatOrFileName);
         }
     }
+
+    // Visitors that write straight to the sink instead of building the whole output as a String
+    public static INodeVisitor getStreamingPrintVisitor(String formatOrFileName, CharSink out, boolean pretty){
+        String fmt = formatOrFileName.trim().toLowerCase();
+
+        if(fmt.endsWith(".json") || fmt.equals("json")){
+            return new JSONStreamingPrintVisitor(out, pretty);
+        } else if(fmt.endsWith(".yaml") || fmt.equals("yaml")){
+            return new YAMLStreamingPrintVisitor(out, pretty);
+        } else {
+            throw new IllegalArgumentException("Unsupported streaming format: " + formatOrFileName);
+        }
+    }
 }
@@ -0,0 +1,96 @@
+package parser.factory;
+
+import parser.core.CharSink;
+import parser.core.EventType;
+import parser.core.IEventReader;
+import parser.core.IEventWriter;
+import parser.json.JSONEventWriter;
+import parser.json.JSONStreamReader;
+import parser.xml.XMLEventWriter;
+import parser.xml.XMLStreamReader;
+import parser.yaml.YAMLEventWriter;
+import parser.yaml.YAMLStreamReader;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Converts between JSON, YAML and XML by feeding the events of a pull reader straight into an event
+// writer, without building a Node tree. Readers and writers only keep their input window and a
+// stack of open objects and arrays, so a conversion runs in memory bounded by the nesting depth.
+public class Transcoder {
+
+    // Copies events up to and including END_DOCUMENT and flushes the writer; closes neither.
+    // Returns the number of events copied before END_DOCUMENT.
+    public static long transcode(IEventReader in, IEventWriter out) {
+        long events = 0;
+        while (in.next() != EventType.END_DOCUMENT) {
+            out.write(in);
+            events++;
+        }
+        out.write(EventType.END_DOCUMENT, null);
+        out.flush();
+        return events;
+    }
+
+    public static long transcode(String fromFormat, Reader in, String toFormat, Writer out, boolean pretty) {
+        IEventReader reader = getEventReader(fromFormat, in);
+        try {
+            return transcode(reader, getEventWriter(toFormat, new CharSink(out), pretty));
+        } finally {
+            reader.close();
+        }
+    }
+
+    public static String transcode(String fromFormat, String input, String toFormat, boolean pretty) {
+        StringBuilder sb = new StringBuilder(input.length());
+        IEventReader reader = getEventReader(fromFormat, new StringReader(input));
+        try {
+            transcode(reader, getEventWriter(toFormat, CharSink.of(sb), pretty));
+        } finally {
+            reader.close();
+        }
+        return sb.toString();
+    }
+
+    // Formats come from the file names (data.json -> data.yaml); both files are UTF-8
+    public static long transcode(Path source, Path target, boolean pretty) {
+        // the readers fill their own windows, so the input needs no extra buffering
+        try (Reader in = new InputStreamReader(Files.newInputStream(source), StandardCharsets.UTF_8);
+             OutputStream out = Files.newOutputStream(target)) {
+            IEventReader reader = getEventReader(source.getFileName().toString(), in);
+            try (IEventWriter writer = getEventWriter(target.getFileName().toString(), CharSink.of(out), pretty)) {
+                return transcode(reader, writer);
+            } finally {
+                reader.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static IEventReader getEventReader(String formatOrFileName, Reader in) {
+        return switch (ParserFactory.formatOf(formatOrFileName)) {
+            case JSON -> new JSONStreamReader(in);
+            case YAML -> new YAMLStreamReader(in);
+            case XML -> new XMLStreamReader(in);
+            default -> throw new IllegalArgumentException("Unsupported streaming format: " + formatOrFileName);
+        };
+    }
+
+    public static IEventWriter getEventWriter(String formatOrFileName, CharSink out, boolean pretty) {
+        return switch (ParserFactory.formatOf(formatOrFileName)) {
+            case JSON -> new JSONEventWriter(out, pretty);
+            case YAML -> new YAMLEventWriter(out, pretty);
+            case XML -> new XMLEventWriter(out, pretty);
+            default -> throw new IllegalArgumentException("Unsupported streaming format: " + formatOrFileName);
+        };
+    }
+}
@@ -0,0 +1,43 @@
+package parser.json;
+
+import parser.core.ParseMetrics;
+import parser.core.SymbolTable;
+
+// Allocation-free view of the current JSON token, implemented by the char and the byte tokenizer so
+// the parser can run on either
+public interface IJSONCursor {
+
+    // Moves to the next token and returns its type
+    JSONTokenType next();
+
+    // Counts each token next() returns into metrics; null (the default) counts nothing. Values passed
+    // over by skipValue() are not counted.
+    void setMetrics(ParseMetrics metrics);
+
+    JSONTokenType tokenType();
+
+    // Decodes the current STRING token
+    String stringValue();
+
+    // Decodes the current STRING token through a symbol table, so repeated keys share one instance;
+    // a null table decodes as usual
+    String stringValue(SymbolTable symbols);
+
+    // True when the current STRING token decodes to the given text; compared in place, so nothing is
+    // allocated unless the token holds escapes
+    boolean stringEquals(String text);
+
+    // Raw text of the current NUMBER token
+    String numberText();
+
+    // True when the current NUMBER has no fraction or exponent and fits in a long
+    boolean isIntegral();
+
+    long longValue();
+
+    // Skips the object/array starting at the current token; its closing bracket becomes current
+    void skipValue();
+
+    // Absolute position of the next unread character (or byte) in the input
+    long position();
+}
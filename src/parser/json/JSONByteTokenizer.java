@@ -0,0 +1,405 @@
+package parser.json;
+
+import parser.core.ParseException;
+import parser.core.ParseMetrics;
+import parser.core.SymbolTable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+// Byte-level twin of JSONTokenizer's cursor mode: works on UTF-8 bytes directly, typically a memory
+// mapped file, so the input is never decoded into a String. Only string values are decoded, when
+// stringValue() is called. Files are mapped in windows, so their size is not limited to 2 GB.
+//
+// Given a StructuralIndex of the buffer, next() jumps straight to the next token start instead of
+// skipping whitespace, and skipValue() balances brackets over the index alone.
+public class JSONByteTokenizer implements IJSONCursor {
+    private static final long DEFAULT_WINDOW_SIZE = 256L << 20; // bytes mapped at a time
+
+    private final FileChannel channel; // null when tokenizing a buffer that is already in memory
+    private final long fileSize;
+    private final long windowSize;
+    private ByteBuffer buf;
+    private long base = 0; // file offset of buf's first byte
+    private int pos;
+    private int limit;
+    private int mark = -1; // start of the token being read, kept in the window while remapping
+    private byte[] scratch = new byte[64]; // reused when copying bytes out for decoding
+    private final StructuralIndex index; // null when not indexed
+    private final int[] structurals; // token starts from the index
+    private final int structuralCount;
+    private int nextStructural = 0;
+    private int nextEscape = 0; // first backslash in the index not behind the current token
+
+    // cursor state of the current token
+    private JSONTokenType type;
+    private int tokenStart;
+    private int tokenEnd;
+    private boolean escaped;
+    private boolean numberIntegral;
+    private long longValue;
+    private ParseMetrics metrics; // null unless the parse is monitored
+
+    public JSONByteTokenizer(ByteBuffer input) {
+        this(input, null);
+    }
+
+    // The index must come from the same buffer, covering its position to its limit
+    public JSONByteTokenizer(ByteBuffer input, StructuralIndex index) {
+        this.channel = null;
+        this.buf = input;
+        this.pos = input.position();
+        this.limit = input.limit();
+        this.fileSize = limit;
+        this.windowSize = limit;
+        this.index = index;
+        this.structurals = index == null ? null : index.positions();
+        this.structuralCount = index == null ? 0 : index.size();
+    }
+
+    public JSONByteTokenizer(FileChannel channel) throws IOException {
+        this(channel, DEFAULT_WINDOW_SIZE);
+    }
+
+    JSONByteTokenizer(FileChannel channel, long windowSize) throws IOException {
+        this.channel = channel;
+        this.fileSize = channel.size();
+        this.windowSize = windowSize;
+        this.buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(windowSize, fileSize));
+        this.pos = 0;
+        this.limit = buf.limit();
+        this.index = null;
+        this.structurals = null;
+        this.structuralCount = 0;
+    }
+
+    @Override
+    public JSONTokenType next() {
+        JSONTokenType next = scan();
+        if (metrics != null) metrics.token(next);
+        return next;
+    }
+
+    @Override
+    public void setMetrics(ParseMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    private JSONTokenType scan() {
+        if (structurals != null) {
+            nextIndexed();
+        } else {
+            skipWhitespace();
+        }
+        if (pos >= limit && !fill()) {
+            tokenStart = tokenEnd = pos;
+            return type = JSONTokenType.EOF;
+        }
+        byte c = buf.get(pos);
+        tokenStart = pos;
+        switch (c) {
+            case '{': tokenEnd = ++pos; return type = JSONTokenType.LEFT_BRACE;
+            case '}': tokenEnd = ++pos; return type = JSONTokenType.RIGHT_BRACE;
+            case '[': tokenEnd = ++pos; return type = JSONTokenType.LEFT_BRACKET;
+            case ']': tokenEnd = ++pos; return type = JSONTokenType.RIGHT_BRACKET;
+            case ':': tokenEnd = ++pos; return type = JSONTokenType.COLON;
+            case ',': tokenEnd = ++pos; return type = JSONTokenType.COMMA;
+            case '"': return type = index != null ? indexedString() : scanString();
+            default:
+                if ((c >= '0' && c <= '9') || c == '-') return type = scanNumber();
+                if (matches("true")) {tokenStart = pos; tokenEnd = pos += 4; return type = JSONTokenType.TRUE;}
+                if (matches("false")) {tokenStart = pos; tokenEnd = pos += 5; return type = JSONTokenType.FALSE;}
+                if (matches("null")) {tokenStart = pos; tokenEnd = pos += 4; return type = JSONTokenType.NULL;}
+                throw new ParseException("Unexpected byte: " + (char) (c & 0xFF) + " at position " + position());
+        }
+    }
+
+    @Override
+    public JSONTokenType tokenType() {
+        return type;
+    }
+
+    @Override
+    public long position() {
+        return base + pos;
+    }
+
+    @Override
+    public String stringValue() {
+        if (!escaped) return decode(tokenStart, tokenEnd);
+        StringBuilder sb = new StringBuilder(tokenEnd - tokenStart);
+        int run = tokenStart;
+        for (int i = tokenStart; i < tokenEnd; i++) {
+            if (buf.get(i) != '\\' || i + 1 >= tokenEnd) continue;
+            sb.append(decode(run, i));
+            byte c = buf.get(++i);
+            switch (c) {
+                case 'n': sb.append('\n'); break;
+                case 't': sb.append('\t'); break;
+                case 'r': sb.append('\r'); break;
+                case 'b': sb.append('\b'); break;
+                case 'f': sb.append('\f'); break;
+                case 'u':
+                    if (i + 4 >= tokenEnd) throw new ParseException("Invalid unicode escape at position " + (base + i));
+                    int code = 0;
+                    for (int k = 1; k <= 4; k++) {
+                        int digit = Character.digit(buf.get(i + k), 16);
+                        if (digit < 0) throw new ParseException("Invalid unicode escape at position " + (base + i));
+                        code = (code << 4) | digit;
+                    }
+                    sb.append((char) code);
+                    i += 4;
+                    break;
+                case '"': case '\\': case '/': sb.append((char) c); break;
+                default: throw new ParseException("Invalid escape at position " + (base + i - 1));
+            }
+            run = i + 1;
+        }
+        return sb.append(decode(run, tokenEnd)).toString();
+    }
+
+    @Override
+    public String stringValue(SymbolTable symbols) {
+        if (symbols == null || escaped) return stringValue();
+        return symbols.intern(buf, tokenStart, tokenEnd);
+    }
+
+    // Compared byte by byte while the token is ASCII; a token with other bytes is decoded first
+    @Override
+    public boolean stringEquals(String text) {
+        if (escaped) return stringValue().equals(text);
+        int length = tokenEnd - tokenStart;
+        if (text.length() > length) return false; // UTF-8 never has fewer bytes than chars
+        for (int i = 0; i < length; i++) {
+            byte b = buf.get(tokenStart + i);
+            if (b < 0) return decode(tokenStart, tokenEnd).equals(text);
+            if (i >= text.length() || b != text.charAt(i)) return false;
+        }
+        return length == text.length();
+    }
+
+    @Override
+    public String numberText() {
+        return decode(tokenStart, tokenEnd);
+    }
+
+    @Override
+    public boolean isIntegral() {
+        return numberIntegral;
+    }
+
+    @Override
+    public long longValue() {
+        return longValue;
+    }
+
+    @Override
+    public void skipValue() {
+        if (type != JSONTokenType.LEFT_BRACE && type != JSONTokenType.LEFT_BRACKET) return;
+        long start = base + tokenStart;
+        int depth = 1;
+        if (structurals != null) {
+            while (nextStructural < structuralCount) {
+                int at = structurals[nextStructural++];
+                byte c = buf.get(at);
+                if (c == '{' || c == '[') {
+                    depth++;
+                } else if ((c == '}' || c == ']') && --depth == 0) {
+                    tokenStart = at;
+                    tokenEnd = pos = at + 1;
+                    type = c == '}' ? JSONTokenType.RIGHT_BRACE : JSONTokenType.RIGHT_BRACKET;
+                    return;
+                }
+            }
+            throw new ParseException("Unterminated " + (type == JSONTokenType.LEFT_BRACE ? "object" : "array") + " at position " + start);
+        }
+        while (pos < limit || fill()) {
+            byte c = buf.get(pos++);
+            if (c == '"') {
+                skipString(start);
+            } else if (c == '{' || c == '[') {
+                depth++;
+            } else if ((c == '}' || c == ']') && --depth == 0) {
+                tokenStart = pos - 1;
+                tokenEnd = pos;
+                type = c == '}' ? JSONTokenType.RIGHT_BRACE : JSONTokenType.RIGHT_BRACKET;
+                return;
+            }
+        }
+        throw new ParseException("Unterminated " + (type == JSONTokenType.LEFT_BRACE ? "object" : "array") + " at position " + start);
+    }
+
+    // The previous token must be followed by whitespace or by the next token start; anything else was
+    // glued to it ("12ab", "truex") and is not in the index
+    private void nextIndexed() {
+        int target = nextStructural < structuralCount ? structurals[nextStructural++] : limit;
+        if (pos < target) {
+            byte c = buf.get(pos);
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+                throw new ParseException("Unexpected byte: " + (char) (c & 0xFF) + " at position " + position());
+            }
+        }
+        pos = target;
+    }
+
+    private void skipWhitespace() {
+        while (pos < limit || fill()) {
+            byte c = buf.get(pos);
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t') return;
+            pos++;
+        }
+    }
+
+    private boolean matches(String literal) {
+        int n = literal.length();
+        while (limit - pos < n) {
+            if (!fill()) return false;
+        }
+        for (int i = 0; i < n; i++) {
+            if (buf.get(pos + i) != literal.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private JSONTokenType scanString() {
+        long start = position();
+        mark = pos;
+        pos++; // skip the opening quote
+        escaped = false;
+        while (pos < limit || fill()) {
+            byte c = buf.get(pos);
+            if (c == '"') {
+                tokenStart = mark + 1;
+                tokenEnd = pos;
+                pos++;
+                mark = -1;
+                return JSONTokenType.STRING;
+            }
+            if (c == '\\') {
+                escaped = true;
+                pos++;
+                if (pos >= limit && !fill()) break;
+            }
+            pos++;
+        }
+        mark = -1;
+        throw new ParseException("Unterminated string at position " + start);
+    }
+
+    // The closing quote is the last non-whitespace byte before the next token start, and the index
+    // says whether a backslash lies in between, so the contents are never read
+    private JSONTokenType indexedString() {
+        int next = nextStructural < structuralCount ? structurals[nextStructural] : limit;
+        if (next == limit && index.endsInString()) {
+            throw new ParseException("Unterminated string at position " + position());
+        }
+        int close = next - 1;
+        while (close > pos) {
+            byte c = buf.get(close);
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t') break;
+            close--;
+        }
+        tokenStart = pos + 1;
+        tokenEnd = close;
+        int[] escapes = index.escapes();
+        int escapeCount = index.escapeCount();
+        while (nextEscape < escapeCount && escapes[nextEscape] < tokenStart) nextEscape++;
+        escaped = nextEscape < escapeCount && escapes[nextEscape] < tokenEnd;
+        pos = close + 1;
+        return JSONTokenType.STRING;
+    }
+
+    private void skipString(long containerStart) {
+        while (pos < limit || fill()) {
+            byte c = buf.get(pos++);
+            if (c == '"') return;
+            if (c == '\\' && (pos < limit || fill())) pos++;
+        }
+        throw new ParseException("Unterminated string inside value at position " + containerStart);
+    }
+
+    // The grammar of Numbers.isNumber, checked as the digits go by
+    private JSONTokenType scanNumber() {
+        mark = pos;
+        boolean negative = buf.get(pos) == '-';
+        if (negative) pos++;
+        // accumulated as a negative value, so that -9223372036854775808 still fits
+        long bound = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long value = 0;
+        int digits = 0;
+        boolean leadingZero = false;
+        boolean fits = true;
+        while ((pos < limit || fill()) && isDigit(buf.get(pos))) {
+            int d = buf.get(pos++) - '0';
+            if (digits == 0) leadingZero = d == 0;
+            if (value < (bound + d) / 10) fits = false;
+            value = value * 10 - d;
+            digits++;
+        }
+        if (digits == 0 || leadingZero && digits > 1) throw new ParseException("Invalid number at position " + (base + mark));
+        boolean integral = true;
+        if ((pos < limit || fill()) && buf.get(pos) == '.') {
+            integral = false;
+            pos++;
+            scanDigits();
+        }
+        if ((pos < limit || fill()) && (buf.get(pos) == 'e' || buf.get(pos) == 'E')) {
+            integral = false;
+            pos++;
+            if ((pos < limit || fill()) && (buf.get(pos) == '+' || buf.get(pos) == '-')) pos++;
+            scanDigits();
+        }
+        numberIntegral = integral && fits;
+        longValue = negative ? value : -value;
+        tokenStart = mark;
+        tokenEnd = pos;
+        mark = -1;
+        return JSONTokenType.NUMBER;
+    }
+
+    // Fraction and exponent need at least one digit, as in JSONTokenizer
+    private void scanDigits() {
+        int digits = 0; // counted, since fill() moves pos when it maps the next window
+        while ((pos < limit || fill()) && isDigit(buf.get(pos))) {
+            pos++;
+            digits++;
+        }
+        if (digits == 0) throw new ParseException("Invalid number at position " + (base + mark));
+    }
+
+    private static boolean isDigit(byte c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private String decode(int start, int end) {
+        int length = end - start;
+        if (buf.hasArray()) {
+            return new String(buf.array(), buf.arrayOffset() + start, length, StandardCharsets.UTF_8);
+        }
+        if (scratch.length < length) scratch = new byte[Math.max(length, scratch.length * 2)];
+        buf.get(start, scratch, 0, length);
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    // Maps the next window of the file, starting at the current token; false at the end of the file
+    private boolean fill() {
+        if (channel == null || base + limit >= fileSize) return false;
+        int keepFrom = mark >= 0 ? mark : pos;
+        if (keepFrom == 0 && limit == buf.limit() && limit >= windowSize) {
+            throw new ParseException("Token at position " + base + " is larger than the mapping window");
+        }
+        long newBase = base + keepFrom;
+        try {
+            buf = channel.map(FileChannel.MapMode.READ_ONLY, newBase, Math.min(windowSize, fileSize - newBase));
+        } catch (IOException e) {
+            throw new ParseException("Failed to map JSON input at position " + newBase, e);
+        }
+        base = newBase;
+        pos -= keepFrom;
+        if (mark >= 0) mark -= keepFrom;
+        limit = buf.limit();
+        return true;
+    }
+}
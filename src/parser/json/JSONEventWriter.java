@@ -0,0 +1,128 @@
+package parser.json;
+
+import parser.core.CharSink;
+import parser.core.EventType;
+import parser.core.IEventWriter;
+import parser.core.IndentPrinter;
+import parser.core.ParseException;
+
+import java.io.Writer;
+import java.util.Arrays;
+
+// Writes JSON from events with the layout of JSONStreamingPrintVisitor, so feeding it a reader gives
+// the same text as parsing to a tree and printing that. The only state is two flags per open object
+// or array, so memory does not grow with the size of the document. Events that would not make valid
+// JSON, such as a name inside an array or a value without one inside an object, throw ParseException
+// rather than being written.
+public class JSONEventWriter implements IEventWriter {
+    private final CharSink out;
+    private final IndentPrinter printer;
+    private final boolean pretty;
+    private boolean[] hasEntries = new boolean[16]; // per open object/array: an entry has been written
+    private boolean[] inArray = new boolean[16]; // per open object/array: it is an array
+    private int depth = 0;
+    private String name; // from the last FIELD_NAME, until its value is written
+
+    public JSONEventWriter(Writer writer, boolean pretty) {
+        this(new CharSink(writer), pretty);
+    }
+
+    public JSONEventWriter(CharSink out, boolean pretty) {
+        this(out, pretty, IndentPrinter.DEFAULT_WIDTH, ' ');
+    }
+
+    public JSONEventWriter(CharSink out, boolean pretty, int indentWidth, char indentChar) {
+        this.out = out;
+        this.printer = new IndentPrinter(out, indentWidth, indentChar);
+        this.pretty = pretty;
+    }
+
+    @Override
+    public void write(EventType event, String text) {
+        switch (event) {
+            case FIELD_NAME:
+                if (depth == 0 || inArray[depth - 1]) throw new ParseException("Unexpected FIELD_NAME '" + text + "' outside an object");
+                if (name != null) throw new ParseException("Unexpected FIELD_NAME '" + text + "' after '" + name + "'");
+                name = text;
+                break;
+            case START_OBJECT:
+            case START_ARRAY:
+                entry();
+                out.append(event == EventType.START_OBJECT ? '{' : '[');
+                if (depth == hasEntries.length) {
+                    hasEntries = Arrays.copyOf(hasEntries, depth * 2);
+                    inArray = Arrays.copyOf(inArray, depth * 2);
+                }
+                inArray[depth] = event == EventType.START_ARRAY;
+                hasEntries[depth++] = false;
+                break;
+            case END_OBJECT:
+            case END_ARRAY:
+                if (depth == 0) throw new ParseException("Unexpected " + event + " at the top level");
+                if (inArray[depth - 1] != (event == EventType.END_ARRAY) || name != null) {
+                    throw new ParseException("Unexpected " + event + (name != null ? " after FIELD_NAME '" + name + "'" : ""));
+                }
+                if (hasEntries[--depth]) {
+                    printer.dedent();
+                    newLine();
+                }
+                out.append(event == EventType.END_OBJECT ? '}' : ']');
+                break;
+            case VALUE_STRING:
+                entry();
+                JSONStreamingPrintVisitor.writeString(out, text);
+                break;
+            case VALUE_NUMBER:
+                entry();
+                out.append(text);
+                break;
+            case VALUE_TRUE:
+                entry();
+                out.append("true");
+                break;
+            case VALUE_FALSE:
+                entry();
+                out.append("false");
+                break;
+            case VALUE_NULL:
+                entry();
+                out.append("null");
+                break;
+            default:
+                break; // END_DOCUMENT: nothing left to close
+        }
+    }
+
+    // Separator, line break and name in front of a value or a nested object/array
+    private void entry() {
+        if (depth > 0) {
+            if (!inArray[depth - 1] && name == null) throw new ParseException("Value without a FIELD_NAME inside an object");
+            if (hasEntries[depth - 1]) {
+                out.append(',');
+            } else {
+                hasEntries[depth - 1] = true;
+                printer.indent();
+            }
+            newLine();
+        }
+        if (name != null) {
+            JSONStreamingPrintVisitor.writeString(out, name);
+            out.append(pretty ? ": " : ":");
+            name = null;
+        }
+    }
+
+    private void newLine() {
+        if (pretty) printer.newLine();
+    }
+
+    @Override
+    public void flush() {
+        out.flush();
+    }
+
+    @Override
+    public void close() {
+        out.close();
+    }
+}
@@ -0,0 +1,307 @@
+package parser.json;
+
+import parser.core.EventType;
+import parser.core.IEventWriter;
+import parser.core.Numbers;
+import parser.core.ParseException;
+import parser.core.ParseLimits;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Non-blocking JSON parser for input that arrives in pieces, such as the ByteBuffers of a NIO channel
+// or an async HTTP body. feed() takes the bytes it is given, reports every event they complete to the
+// sink and returns; it never waits for more input. A string, number or literal cut off at the end of
+// a chunk is kept until the rest arrives, also when the cut falls inside an escape or a UTF-8
+// sequence. Nothing else of the input is held, so memory is the longest single token plus the
+// nesting depth, not the message.
+//
+//   JSONFeedParser parser = new JSONFeedParser(new NodeBuilder(root -> handle(root)));
+//   parser.feed(chunk);   // as often as chunks arrive
+//   parser.endOfInput();
+//
+// Events follow JSONStreamReader: the text of VALUE_NUMBER is the number as written, VALUE_TRUE and
+// VALUE_FALSE carry "true" and "false", and END_DOCUMENT is sent by endOfInput(). The parser is not
+// thread-safe; use one instance per message or connection, fed by one thread at a time.
+public class JSONFeedParser {
+
+    // what the parser expects next
+    private static final int VALUE = 0;
+    private static final int KEY_OR_END = 1;   // after {
+    private static final int KEY = 2;          // after a comma in an object
+    private static final int COLON = 3;
+    private static final int VALUE_OR_END = 4; // after [
+    private static final int COMMA_OR_END = 5;
+    private static final int DONE = 6;         // after the root value
+
+    // token being read; it may continue in the next chunk
+    private static final int NONE = 0;
+    private static final int STRING = 1;
+    private static final int FIELD = 2;
+    private static final int NUMBER = 3;
+    private static final int LITERAL = 4;
+
+    private final IEventWriter sink;
+    private final boolean valueStream;
+
+    private boolean[] inObject = new boolean[16]; // open containers: true for objects, false for arrays
+    private int depth = 0;
+    private int expect = VALUE;
+    private long values = 0; // top-level values completed
+    private boolean ended = false; // endOfInput() was called, or the input was found to be invalid
+
+    private int token = NONE;
+    private long tokenPosition;
+    private boolean escaped;    // in a string, the previous byte was a backslash
+    private boolean hasEscapes;
+    private byte[] partial = new byte[64]; // start of the token, when it did not end in its chunk
+    private int partialLength = 0;
+    private long position = 0; // bytes fed so far
+    private byte[] copy;       // for buffers without an accessible array
+
+    public JSONFeedParser(IEventWriter sink) {
+        this(sink, false);
+    }
+
+    // valueStream: the input is a sequence of values separated by whitespace (as in NDJSON) instead
+    // of a single one; each reaches the sink as soon as it is complete
+    public JSONFeedParser(IEventWriter sink, boolean valueStream) {
+        this.sink = sink;
+        this.valueStream = valueStream;
+    }
+
+    // Consumes all remaining bytes of the chunk; the buffer is not kept
+    public void feed(ByteBuffer chunk) {
+        if (chunk.hasArray()) {
+            int start = chunk.arrayOffset() + chunk.position();
+            feed(chunk.array(), start, chunk.remaining());
+            chunk.position(chunk.limit());
+            return;
+        }
+        if (copy == null) copy = new byte[8192];
+        while (chunk.hasRemaining()) {
+            int length = Math.min(copy.length, chunk.remaining());
+            chunk.get(copy, 0, length);
+            feed(copy, 0, length);
+        }
+    }
+
+    public void feed(byte[] bytes, int offset, int length) {
+        if (ended) throw new IllegalStateException("No more input is expected");
+        try {
+            parse(bytes, offset, offset + length, position - offset);
+        } catch (ParseException e) {
+            ended = true;
+            throw e;
+        }
+        position += length;
+    }
+
+    // Completes a number or literal still open at the end and checks that the input is complete
+    public void endOfInput() {
+        if (ended) return;
+        ended = true;
+        if (token == STRING || token == FIELD) throw new ParseException("Unterminated string at byte " + tokenPosition);
+        if (token != NONE) finishWord(partial, 0, 0);
+        if (depth > 0) throw new ParseException("Unexpected end of input at byte " + position + ", " + depth + " object(s) or array(s) still open");
+        if (values == 0 && !valueStream) throw new ParseException("No JSON value in the input");
+        sink.write(EventType.END_DOCUMENT, null);
+    }
+
+    // base is the input position of bytes[0]
+    private void parse(byte[] bytes, int i, int end, long base) {
+        while (i < end) {
+            if (token != NONE) {
+                i = token == STRING || token == FIELD ? string(bytes, i, end) : word(bytes, i, end);
+                continue;
+            }
+            byte c = bytes[i];
+            switch (c) {
+                case ' ': case '\t': case '\n': case '\r':
+                    i++;
+                    break;
+                case '{':
+                case '[':
+                    startValue(base + i, c);
+                    ParseLimits.checkDepth(depth);
+                    if (depth == inObject.length) inObject = Arrays.copyOf(inObject, depth * 2);
+                    inObject[depth++] = c == '{';
+                    expect = c == '{' ? KEY_OR_END : VALUE_OR_END;
+                    sink.write(c == '{' ? EventType.START_OBJECT : EventType.START_ARRAY, null);
+                    i++;
+                    break;
+                case '}':
+                case ']':
+                    boolean object = c == '}';
+                    if (depth == 0 || inObject[depth - 1] != object
+                            || expect != COMMA_OR_END && expect != (object ? KEY_OR_END : VALUE_OR_END)) {
+                        throw unexpected(c, base + i);
+                    }
+                    depth--;
+                    sink.write(object ? EventType.END_OBJECT : EventType.END_ARRAY, null);
+                    valueDone();
+                    i++;
+                    break;
+                case ',':
+                    if (expect != COMMA_OR_END) throw unexpected(c, base + i);
+                    expect = inObject[depth - 1] ? KEY : VALUE;
+                    i++;
+                    break;
+                case ':':
+                    if (expect != COLON) throw unexpected(c, base + i);
+                    expect = VALUE;
+                    i++;
+                    break;
+                case '"':
+                    if (expect == KEY || expect == KEY_OR_END) {
+                        token = FIELD;
+                    } else {
+                        startValue(base + i, c);
+                        token = STRING;
+                    }
+                    tokenPosition = base + i;
+                    escaped = false;
+                    hasEscapes = false;
+                    i++;
+                    break;
+                default:
+                    // the word is read from this byte on by word()
+                    if (c == '-' || c >= '0' && c <= '9') token = NUMBER;
+                    else if (c >= 'a' && c <= 'z') token = LITERAL;
+                    else throw unexpected(c, base + i);
+                    startValue(base + i, c);
+                    tokenPosition = base + i;
+            }
+        }
+    }
+
+    // Scans to the closing quote; without one the bytes are kept for the next chunk
+    private int string(byte[] bytes, int i, int end) {
+        int start = i;
+        while (i < end) {
+            byte c = bytes[i];
+            if (escaped) {
+                escaped = false;
+            } else if (c == '\\') {
+                escaped = true;
+                hasEscapes = true;
+            } else if (c == '"') {
+                finishString(bytes, start, i);
+                return i + 1;
+            } else if ((c & 0xFF) < 0x20) {
+                throw new ParseException("Unescaped control character in string at byte " + (tokenPosition + partialLength + i - start + 1));
+            }
+            i++;
+        }
+        keep(bytes, start, end);
+        return end;
+    }
+
+    // Numbers and literals end at the first byte that cannot be part of them, which may only come
+    // with the next chunk (or with endOfInput)
+    private int word(byte[] bytes, int i, int end) {
+        int start = i;
+        if (token == NUMBER) {
+            while (i < end && isNumberByte(bytes[i])) i++;
+        } else {
+            while (i < end && bytes[i] >= 'a' && bytes[i] <= 'z') i++;
+        }
+        if (i == end) {
+            keep(bytes, start, end);
+        } else {
+            finishWord(bytes, start, i);
+        }
+        return i;
+    }
+
+    private void finishString(byte[] bytes, int start, int end) {
+        if (partialLength > 0) {
+            keep(bytes, start, end);
+            bytes = partial;
+            start = 0;
+            end = partialLength;
+            partialLength = 0;
+        }
+        // UTF-8 is decoded once the whole string is there, so a sequence split between chunks is
+        // decoded as one character; escapes are ASCII and are resolved afterwards
+        String text = new String(bytes, start, end - start, StandardCharsets.UTF_8);
+        if (hasEscapes) text = JSONTokenizer.unescape(text.toCharArray(), 0, text.length(), tokenPosition + 1);
+        if (token == FIELD) {
+            token = NONE;
+            expect = COLON;
+            sink.write(EventType.FIELD_NAME, text);
+        } else {
+            token = NONE;
+            sink.write(EventType.VALUE_STRING, text);
+            valueDone();
+        }
+    }
+
+    private void finishWord(byte[] bytes, int start, int end) {
+        if (partialLength > 0) {
+            keep(bytes, start, end);
+            bytes = partial;
+            start = 0;
+            end = partialLength;
+            partialLength = 0;
+        }
+        String text = new String(bytes, start, end - start, StandardCharsets.ISO_8859_1); // ASCII only
+        int type = token;
+        token = NONE;
+        if (type == NUMBER) {
+            if (!Numbers.isNumber(text)) throw new ParseException("Invalid number '" + text + "' at byte " + tokenPosition);
+            sink.write(EventType.VALUE_NUMBER, text);
+        } else {
+            switch (text) {
+                case "true": sink.write(EventType.VALUE_TRUE, "true"); break;
+                case "false": sink.write(EventType.VALUE_FALSE, "false"); break;
+                case "null": sink.write(EventType.VALUE_NULL, null); break;
+                default: throw new ParseException("Invalid literal '" + text + "' at byte " + tokenPosition);
+            }
+        }
+        valueDone();
+    }
+
+    private void startValue(long at, byte c) {
+        if (expect != VALUE && expect != VALUE_OR_END) throw unexpected(c, at);
+    }
+
+    private void valueDone() {
+        if (depth > 0) {
+            expect = COMMA_OR_END;
+        } else {
+            values++;
+            expect = valueStream ? VALUE : DONE;
+        }
+    }
+
+    private void keep(byte[] bytes, int start, int end) {
+        int length = end - start;
+        if (partialLength + length > partial.length) {
+            partial = Arrays.copyOf(partial, Math.max(partial.length * 2, partialLength + length));
+        }
+        System.arraycopy(bytes, start, partial, partialLength, length);
+        partialLength += length;
+    }
+
+    private ParseException unexpected(byte c, long at) {
+        String what = c >= 0x20 && c < 0x7F ? "'" + (char) c + "'" : "byte 0x" + Integer.toHexString(c & 0xFF);
+        if (expect == DONE) return new ParseException("Unexpected " + what + " after the root value at byte " + at);
+        return new ParseException("Unexpected " + what + " at byte " + at);
+    }
+
+    private static boolean isNumberByte(byte c) {
+        return c >= '0' && c <= '9' || c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E';
+    }
+
+    // Objects and arrays opened but not closed yet
+    public int getDepth() {
+        return depth;
+    }
+
+    // Number of bytes fed so far
+    public long position() {
+        return position;
+    }
+}
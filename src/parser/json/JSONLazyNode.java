@@ -0,0 +1,76 @@
+package parser.json;
+
+import parser.core.CompositeNode;
+import parser.core.LeafNode;
+import parser.core.Node;
+import parser.core.ParseException;
+import parser.core.SymbolTable;
+
+// Object or array from JSONParser.parseLazy: remembers where it starts in the source and only parses
+// its direct children when they are first asked for (getChildren(), get(name), ...). Nested
+// objects/arrays become lazy nodes again, so reaching one field costs a skip over its siblings' bytes.
+class JSONLazyNode extends CompositeNode {
+    private final char[] source;
+    private final int start; // offset of the opening bracket in source
+    private final JSONParser.NumberMode numberMode;
+    private final SymbolTable keys; // shared by the whole document, null when keys are not interned
+    private boolean expanded = false;
+
+    JSONLazyNode(String name, boolean isArray, char[] source, int start, JSONParser.NumberMode numberMode, SymbolTable keys) {
+        super(name, isArray);
+        this.source = source;
+        this.start = start;
+        this.numberMode = numberMode;
+        this.keys = keys;
+    }
+
+    @Override
+    protected void materialize() {
+        if (!expanded) expand();
+    }
+
+    // Builds the node for the value at the tokenizer's current token, skipping over nested containers
+    static Node valueAt(JSONTokenizer tokenizer, String name, char[] source, JSONParser.NumberMode numberMode, SymbolTable keys) {
+        switch (tokenizer.tokenType()) {
+            case LEFT_BRACE:
+            case LEFT_BRACKET: {
+                boolean isArray = tokenizer.tokenType() == JSONTokenType.LEFT_BRACKET;
+                int valueStart = tokenizer.tokenStart();
+                tokenizer.skipValue();
+                return new JSONLazyNode(name, isArray, source, valueStart, numberMode, keys);
+            }
+            case STRING: return new LeafNode(name, tokenizer.stringValue());
+            case NUMBER: return JSONParser.numberLeaf(tokenizer, name, numberMode);
+            case TRUE: return new LeafNode(name, Boolean.TRUE);
+            case FALSE: return new LeafNode(name, Boolean.FALSE);
+            case NULL: return new LeafNode(name, null);
+            default:
+                throw new ParseException("Invalid JSON value at: " + tokenizer.tokenType());
+        }
+    }
+
+    private void expand() {
+        expanded = true;
+        JSONTokenizer tokenizer = new JSONTokenizer(source, start, source.length);
+        tokenizer.next(); // opening bracket
+        JSONTokenType close = isArray() ? JSONTokenType.RIGHT_BRACKET : JSONTokenType.RIGHT_BRACE;
+        JSONTokenType type = tokenizer.next();
+        if (type == close) return;
+        while (true) {
+            String key = null;
+            if (!isArray()) {
+                if (type != JSONTokenType.STRING) throw new ParseException("Expected string key, found: " + type);
+                key = tokenizer.stringValue(keys);
+                if (tokenizer.next() != JSONTokenType.COLON) {
+                    throw new ParseException("Expected token: COLON, but found: " + tokenizer.tokenType());
+                }
+                tokenizer.next();
+            }
+            addChild(valueAt(tokenizer, key, source, numberMode, keys));
+            type = tokenizer.next();
+            if (type == close) return;
+            if (type != JSONTokenType.COMMA) throw new ParseException("Expected token: COMMA, but found: " + type);
+            type = tokenizer.next();
+        }
+    }
+}
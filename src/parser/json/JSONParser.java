@@ -1,89 +1,508 @@
 package parser.json;
 
 import parser.core.*;
+import parser.query.Projection;
+import parser.tape.ITapeBuilder;
+import parser.tape.ITapeDocument;
+import parser.tape.OffHeapDocument;
+import parser.tape.TapeBuilder;
+import parser.tape.TapeDocument;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.function.Function;
 
 public class JSONParser implements IParser {
-    private JSONTokenizer tokenizer;
-    private JSONToken currentToken;
+    private static final String FORMAT = "json"; // as named in ParserFactory
+
+    // How NUMBER tokens become leaves
+    public enum NumberMode {
+        NATIVE, // LongLeafNode for integers, DoubleLeafNode for the rest
+        EXACT,  // LongLeafNode for integers, RawNumberLeafNode (BigDecimal) for the rest
+        LAZY    // RawNumberLeafNode for everything, parsed only when read
+    }
+
+    // Immutable: every parse call works on its own tokenizer, so one instance can be shared by any
+    // number of threads
+    private final NumberMode numberMode;
+    private final SymbolTable symbols; // shared by all parse calls, null when not shared
+    private final boolean internKeys;  // a fresh table per parse call when there is no shared one
+
+    public JSONParser() {
+        this(NumberMode.NATIVE);
+    }
+
+    public JSONParser(NumberMode numberMode) {
+        this(numberMode, false);
+    }
+
+    // internKeys: object keys are interned in a table created for each parse call, so the key names
+    // repeated across the records of one document share a single String
+    public JSONParser(NumberMode numberMode, boolean internKeys) {
+        this.numberMode = numberMode;
+        this.symbols = null;
+        this.internKeys = internKeys;
+    }
+
+    // Object keys are interned in the given table, which is kept across parse calls (and threads)
+    public JSONParser(NumberMode numberMode, SymbolTable symbols) {
+        this.numberMode = numberMode;
+        this.symbols = symbols;
+        this.internKeys = symbols != null;
+    }
 
     @Override
     public Node parse(String input) {
+        if (ParseMonitor.isEnabled()) return ParseMonitor.record(FORMAT, metrics -> parse(input, metrics));
+        return parseDocument(cursor(input, null));
+    }
+
+    @Override
+    public Node parse(String input, ParseMetrics metrics) {
+        return tree(cursor(input, metrics), metrics, this::parseDocument);
+    }
+
+    // Memory maps the file and tokenizes its UTF-8 bytes directly instead of decoding it into a String
+    @Override
+    public Node parse(Path file) {
+        if (ParseMonitor.isEnabled()) return ParseMonitor.record(FORMAT, metrics -> parse(file, metrics));
+        return parseFile(file, null, this::parseDocument);
+    }
+
+    @Override
+    public Node parse(Path file, ParseMetrics metrics) {
+        return parseFile(file, metrics, this::parseDocument);
+    }
+
+    // Builds nodes only for the selected paths and their enclosing objects and arrays. Everything else
+    // is skipped at the tokenizer: unselected objects and arrays are passed over by matching brackets
+    // and quotes, and unselected strings and numbers are never decoded. Skipped values are only
+    // checked for balanced brackets. Arrays keep just the elements that were selected, so with a
+    // position such as [2] the element is the only child of its array. Returns null when the root
+    // itself is a scalar the projection does not select.
+    public Node parse(String input, Projection projection) {
+        Function<IJSONCursor, Node> parse = tokenizer -> parseProjected(tokenizer, projection);
+        if (ParseMonitor.isEnabled()) return ParseMonitor.record(FORMAT, metrics -> tree(cursor(input, metrics), metrics, parse));
+        return parse.apply(cursor(input, null));
+    }
+
+    public Node parse(Path file, Projection projection) {
+        Function<IJSONCursor, Node> parse = tokenizer -> parseProjected(tokenizer, projection);
+        if (ParseMonitor.isEnabled()) return ParseMonitor.record(FORMAT, metrics -> parseFile(file, metrics, parse));
+        return parseFile(file, null, parse);
+    }
+
+    // Parses straight onto a tape, so no Node objects are created for the document
+    public TapeDocument parseTape(String input) {
+        if (ParseMonitor.isEnabled()) return ParseMonitor.record(FORMAT, metrics -> tape(cursor(input, metrics), metrics));
+        return tape(cursor(input, null), null);
+    }
+
+    public TapeDocument parseTape(Path file) {
+        if (ParseMonitor.isEnabled()) return ParseMonitor.record(FORMAT, metrics -> tapeFile(file, metrics));
+        return tapeFile(file, null);
+    }
+
+    // Parses onto a tape in direct memory; the caller owns the result and must close it
+    public OffHeapDocument parseOffHeap(String input) {
+        if (ParseMonitor.isEnabled()) return ParseMonitor.record(FORMAT, metrics -> offHeap(cursor(input, metrics), metrics));
+        return offHeap(cursor(input, null), null);
+    }
+
+    public OffHeapDocument parseOffHeap(Path file) {
+        if (ParseMonitor.isEnabled()) return ParseMonitor.record(FORMAT, metrics -> offHeapFile(file, metrics));
+        return offHeapFile(file, null);
+    }
+
+    private Node parseFile(Path file, ParseMetrics metrics, Function<IJSONCursor, Node> parse) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return tree(cursor(channel, metrics), metrics, parse);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Without metrics this is just the parse; with them the cursor counts its tokens, the parse is
+    // timed and the finished tree counted
+    private static Node tree(IJSONCursor tokenizer, ParseMetrics metrics, Function<IJSONCursor, Node> parse) {
+        if (metrics == null) return parse.apply(tokenizer);
+        tokenizer.setMetrics(metrics);
+        long start = System.nanoTime();
+        Node root = parse.apply(tokenizer);
+        metrics.addParseNanos(System.nanoTime() - start);
+        metrics.countTree(root);
+        return root;
+    }
+
+    private TapeDocument tape(IJSONCursor tokenizer, ParseMetrics metrics) {
+        TapeBuilder builder = new TapeBuilder();
+        fillTape(tokenizer, metrics, builder);
+        TapeDocument tape = builder.build();
+        if (metrics != null) countTape(tape, metrics);
+        return tape;
+    }
+
+    private TapeDocument tapeFile(Path file, ParseMetrics metrics) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return tape(cursor(channel, metrics), metrics);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private OffHeapDocument offHeap(IJSONCursor tokenizer, ParseMetrics metrics) {
+        OffHeapDocument.Builder builder = OffHeapDocument.builder();
+        OffHeapDocument tape;
+        try {
+            fillTape(tokenizer, metrics, builder);
+            tape = builder.build();
+        } catch (RuntimeException e) {
+            builder.discard();
+            throw e;
+        }
+        if (metrics != null) countTape(tape, metrics);
+        return tape;
+    }
+
+    private OffHeapDocument offHeapFile(Path file, ParseMetrics metrics) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return offHeap(cursor(channel, metrics), metrics);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void fillTape(IJSONCursor tokenizer, ParseMetrics metrics, ITapeBuilder out) {
+        if (metrics == null) {
+            parseTape(tokenizer, out);
+            return;
+        }
+        tokenizer.setMetrics(metrics);
+        long start = System.nanoTime();
+        parseTape(tokenizer, out);
+        metrics.addParseNanos(System.nanoTime() - start);
+    }
+
+    // Every tape entry is a node; a node's parent always comes before it, so depths fill in one pass
+    private static void countTape(ITapeDocument tape, ParseMetrics metrics) {
+        int[] depths = new int[tape.size()];
+        for (int node = 0; node < depths.length; node++) {
+            int parent = tape.parent(node);
+            depths[node] = parent == ITapeDocument.NO_NODE ? 1 : depths[parent] + 1;
+            metrics.depth(depths[node]);
+        }
+        metrics.addNodes(depths.length);
+    }
+
+    private void parseTape(IJSONCursor tokenizer, ITapeBuilder out) {
+        tokenizer.next();
+        tapeValue(tokenizer, null, out, keyTable());
+        if(tokenizer.tokenType() != JSONTokenType.EOF) {
+            throw new ParseException("Unexpected token after end of input: " + tokenizer.tokenType());
+        }
+    }
+
+    // Same grammar as parseValue, appending to the tape instead of making nodes; the tape builder keeps
+    // the open objects and arrays, so only their kinds are stacked here
+    private void tapeValue(IJSONCursor tokenizer, String name, ITapeBuilder out, SymbolTable keys) {
+        boolean[] inArray = null;
+        int depth = 0;
+        while (true) {
+            JSONTokenType type = tokenizer.tokenType();
+            if (type == JSONTokenType.LEFT_BRACE || type == JSONTokenType.LEFT_BRACKET) {
+                ParseLimits.checkDepth(depth);
+                boolean array = type == JSONTokenType.LEFT_BRACKET;
+                tokenizer.next();
+                if (array) out.startArray(name);
+                else out.startObject(name);
+                if (tokenizer.tokenType() != (array ? JSONTokenType.RIGHT_BRACKET : JSONTokenType.RIGHT_BRACE)) {
+                    if (inArray == null) inArray = new boolean[16];
+                    else if (depth == inArray.length) inArray = Arrays.copyOf(inArray, depth * 2);
+                    inArray[depth++] = array;
+                    name = array ? null : memberName(tokenizer, keys);
+                    continue;
+                }
+                tokenizer.next();
+                out.end();
+            } else {
+                tapeScalar(tokenizer, name, out);
+            }
+            // a value is complete: close every object and array that ends after it
+            while (true) {
+                if (depth == 0) return;
+                if (tokenizer.tokenType() == JSONTokenType.COMMA) {
+                    tokenizer.next();
+                    name = inArray[depth - 1] ? null : memberName(tokenizer, keys);
+                    break;
+                }
+                consume(tokenizer, inArray[--depth] ? JSONTokenType.RIGHT_BRACKET : JSONTokenType.RIGHT_BRACE);
+                out.end();
+            }
+        }
+    }
+
+    private void tapeScalar(IJSONCursor tokenizer, String name, ITapeBuilder out) {
+        switch(tokenizer.tokenType()) {
+            case STRING: out.string(name, tokenizer.stringValue()); break;
+            case NUMBER:
+                if (numberMode != NumberMode.LAZY && tokenizer.isIntegral()) {
+                    out.longValue(name, tokenizer.longValue());
+                } else {
+                    String text = tokenizer.numberText();
+                    boolean decimal = text.indexOf('.') >= 0 || text.indexOf('e') >= 0 || text.indexOf('E') >= 0;
+                    if (numberMode == NumberMode.NATIVE && decimal) out.doubleValue(name, Double.parseDouble(text));
+                    else out.number(name, text);
+                }
+                break;
+            case TRUE: out.bool(name, true); break;
+            case FALSE: out.bool(name, false); break;
+            case NULL: out.nullValue(name); break;
+            default:
+                throw new ParseException("Invalid JSON value at: " + tokenizer.tokenType());
+        }
+        tokenizer.next(); // past the scalar
+    }
+
+    // With -Dparser.json.simd set, the input is indexed first and read through the index; a String is
+    // encoded to UTF-8 for that, since the Vector API loads bytes. The indexing pass is what metrics
+    // count as tokenize time.
+    private static IJSONCursor cursor(String input, ParseMetrics metrics) {
+        if (metrics != null) metrics.addInput(input.length());
         input = input.trim(); // trim whitespace from the input
-        this.tokenizer = new JSONTokenizer(input);
-        this.currentToken = tokenizer.nextToken();
-        Node root = parseValue(null); // start parsing from the root creating AST from the input
+        StructuralIndexer indexer = StructuralIndexer.configured();
+        if (indexer == null) return new JSONTokenizer(input);
+        long start = metrics == null ? 0 : System.nanoTime();
+        ByteBuffer bytes = ByteBuffer.wrap(input.getBytes(StandardCharsets.UTF_8));
+        StructuralIndex index = indexer.index(bytes);
+        if (metrics != null) metrics.addTokenizeNanos(System.nanoTime() - start);
+        return new JSONByteTokenizer(bytes, index);
+    }
+
+    // Files past 2 GB are read through the windowed tokenizer without an index
+    private static IJSONCursor cursor(FileChannel channel, ParseMetrics metrics) throws IOException {
+        if (metrics != null) metrics.addInput(channel.size());
+        StructuralIndexer indexer = StructuralIndexer.configured();
+        if (indexer == null || channel.size() > Integer.MAX_VALUE) return new JSONByteTokenizer(channel);
+        ByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        long start = metrics == null ? 0 : System.nanoTime();
+        StructuralIndex index = indexer.index(bytes);
+        if (metrics != null) metrics.addTokenizeNanos(System.nanoTime() - start);
+        return new JSONByteTokenizer(bytes, index);
+    }
 
-        if(currentToken.type != JSONTokenType.EOF) {
-            throw new ParseException("Unexpected token after end of input: " + currentToken.type  );
+    // Table the keys of one parse call are interned in, or null
+    private SymbolTable keyTable() {
+        if (symbols != null) return symbols;
+        return internKeys ? new SymbolTable() : null;
+    }
+
+    private Node parseDocument(IJSONCursor tokenizer) {
+        tokenizer.next();
+        Node root = parseValue(tokenizer, null, keyTable()); // start parsing from the root creating AST from the input
+
+        if(tokenizer.tokenType() != JSONTokenType.EOF) {
+            throw new ParseException("Unexpected token after end of input: " + tokenizer.tokenType()  );
         }
 
         return root;
     }
 
-    // Recursive descent parsing for JSON values
-    private Node parseValue(String name) {
-        switch(currentToken.type) {
-            case LEFT_BRACE: return parseObject(name);
-            case LEFT_BRACKET: return parseArray(name);
+    private Node parseProjected(IJSONCursor tokenizer, Projection projection) {
+        tokenizer.next();
+        Node root = projectValue(tokenizer, null, projection, keyTable());
+        if(tokenizer.tokenType() != JSONTokenType.EOF) {
+            throw new ParseException("Unexpected token after end of input: " + tokenizer.tokenType());
+        }
+        return root;
+    }
+
+    // Value at a selected position: parsed whole, or walked one level down with the projection
+    private Node projectValue(IJSONCursor tokenizer, String name, Projection projection, SymbolTable keys) {
+        if(projection.selectsAll()) return parseValue(tokenizer, name, keys);
+        switch(tokenizer.tokenType()) {
+            case LEFT_BRACE: {
+                consume(tokenizer, JSONTokenType.LEFT_BRACE);
+                CompositeNode object = new CompositeNode(name, false);
+                if(tokenizer.tokenType() != JSONTokenType.RIGHT_BRACE){
+                    do{
+                        if(tokenizer.tokenType() != JSONTokenType.STRING) throw new ParseException("Expected string key, found: " + tokenizer.tokenType());
+                        // keys are matched in place; the projection's own name is reused for the node
+                        String key = null;
+                        Projection child = null;
+                        for(int i = 0; i < projection.fieldCount(); i++) {
+                            if(tokenizer.stringEquals(projection.fieldName(i))) {
+                                key = projection.fieldName(i);
+                                child = projection.field(i);
+                                break;
+                            }
+                        }
+                        if(child == null && projection.any() != null) {
+                            key = tokenizer.stringValue(keys);
+                            child = projection.any();
+                        }
+                        consume(tokenizer, JSONTokenType.STRING);
+                        consume(tokenizer, JSONTokenType.COLON);
+                        if(child == null) {
+                            skip(tokenizer);
+                        } else {
+                            Node value = projectValue(tokenizer, key, child, keys);
+                            if(value != null) object.addChild(value);
+                        }
+                        if(tokenizer.tokenType() != JSONTokenType.COMMA) break;
+                        consume(tokenizer, JSONTokenType.COMMA);
+                    }while(true);
+                }
+                consume(tokenizer, JSONTokenType.RIGHT_BRACE);
+                return object;
+            }
+            case LEFT_BRACKET: {
+                consume(tokenizer, JSONTokenType.LEFT_BRACKET);
+                CompositeNode array = new CompositeNode(name, true);
+                if(tokenizer.tokenType() != JSONTokenType.RIGHT_BRACKET){
+                    int position = 0;
+                    do{
+                        Projection child = projection.element(position++);
+                        if(child == null) {
+                            skip(tokenizer);
+                        } else {
+                            Node value = projectValue(tokenizer, null, child, keys);
+                            if(value != null) array.addChild(value);
+                        }
+                        if(tokenizer.tokenType() != JSONTokenType.COMMA) break;
+                        consume(tokenizer, JSONTokenType.COMMA);
+                    }while(true);
+                }
+                consume(tokenizer, JSONTokenType.RIGHT_BRACKET);
+                return array;
+            }
+            default:
+                skip(tokenizer); // a scalar where the path expects more levels
+                return null;
+        }
+    }
+
+    // Passes over one value without decoding it
+    private static void skip(IJSONCursor tokenizer) {
+        switch(tokenizer.tokenType()) {
+            case LEFT_BRACE:
+            case LEFT_BRACKET:
+                tokenizer.skipValue(); // now on the matching closing bracket
+                break;
+            case STRING: case NUMBER: case TRUE: case FALSE: case NULL:
+                break;
+            default:
+                throw new ParseException("Invalid JSON value at: " + tokenizer.tokenType());
+        }
+        tokenizer.next();
+    }
+
+    // Descent over the JSON grammar with the open objects and arrays on an explicit stack instead of
+    // the call stack, so nesting is limited by ParseLimits rather than the thread's stack size
+    private Node parseValue(IJSONCursor tokenizer, String name, SymbolTable keys) {
+        CompositeNode[] open = null;
+        int depth = 0;
+        while (true) {
+            Node value;
+            JSONTokenType type = tokenizer.tokenType();
+            if (type == JSONTokenType.LEFT_BRACE || type == JSONTokenType.LEFT_BRACKET) {
+                ParseLimits.checkDepth(depth);
+                boolean array = type == JSONTokenType.LEFT_BRACKET;
+                tokenizer.next();
+                CompositeNode container = new CompositeNode(name, array);
+                if (tokenizer.tokenType() != (array ? JSONTokenType.RIGHT_BRACKET : JSONTokenType.RIGHT_BRACE)) {
+                    if (open == null) open = new CompositeNode[16];
+                    else if (depth == open.length) open = Arrays.copyOf(open, depth * 2);
+                    open[depth++] = container;
+                    name = array ? null : memberName(tokenizer, keys);
+                    continue; // on to its first member
+                }
+                tokenizer.next();
+                value = container;
+            } else {
+                value = parseScalar(tokenizer, name);
+            }
+            // a value is complete: add it to its parent and close every object and array that ends after it
+            while (true) {
+                if (depth == 0) return value;
+                CompositeNode parent = open[depth - 1];
+                parent.addChild(value);
+                if (tokenizer.tokenType() == JSONTokenType.COMMA) {
+                    tokenizer.next();
+                    name = parent.isArray() ? null : memberName(tokenizer, keys);
+                    break;
+                }
+                consume(tokenizer, parent.isArray() ? JSONTokenType.RIGHT_BRACKET : JSONTokenType.RIGHT_BRACE);
+                open[--depth] = null;
+                value = parent;
+            }
+        }
+    }
+
+    private Node parseScalar(IJSONCursor tokenizer, String name) {
+        switch(tokenizer.tokenType()) {
             case STRING:
-                String strValue = currentToken.value;
-                consume(JSONTokenType.STRING);
+                String strValue = tokenizer.stringValue();
+                consume(tokenizer, JSONTokenType.STRING);
                 return new LeafNode(name, strValue);
             case NUMBER:
-                String numValue = currentToken.value;
-                consume(JSONTokenType.NUMBER);
-                return new LeafNode(name, Double.parseDouble(numValue));
-            case TRUE: consume(JSONTokenType.TRUE); return new LeafNode(name, Boolean.TRUE);
-            case FALSE: consume(JSONTokenType.FALSE); return new LeafNode(name, Boolean.FALSE);
-            case NULL: consume(JSONTokenType.NULL); return new LeafNode(name, null);
+                Node number = numberLeaf(tokenizer, name, numberMode);
+                consume(tokenizer, JSONTokenType.NUMBER);
+                return number;
+            case TRUE: consume(tokenizer, JSONTokenType.TRUE); return new LeafNode(name, Boolean.TRUE);
+            case FALSE: consume(tokenizer, JSONTokenType.FALSE); return new LeafNode(name, Boolean.FALSE);
+            case NULL: consume(tokenizer, JSONTokenType.NULL); return new LeafNode(name, null);
             default:
-                throw new ParseException("Invalid JSON value at: " + currentToken.type);
+                throw new ParseException("Invalid JSON value at: " + tokenizer.tokenType());
         }
     }
 
-    private Node parseObject(String name){
-        consume(JSONTokenType.LEFT_BRACE);
-        CompositeNode object = new CompositeNode(name, false) ;
-        if(currentToken.type != JSONTokenType.RIGHT_BRACE){
-            do{
-                if(currentToken.type != JSONTokenType.STRING) throw new ParseException("Expected string key, found: " + currentToken.type);
-                String key = currentToken.value; // get the key for the object
-                consume(JSONTokenType.STRING);// consume the string token which is the key pass to colon
-                consume(JSONTokenType.COLON); // consume the colon after the key then get the value
-                Node value = parseValue(key); // parse the value associated with the key
-                object.addChild(value); // add the key-value pair to the object
-                if(currentToken.type != JSONTokenType.COMMA)
-                    break; // if the next token is not a comma, we are done with this object
-                consume(JSONTokenType.COMMA); // consume the comma to continue parsing
+    // Reads `"key":` and returns the key
+    private static String memberName(IJSONCursor tokenizer, SymbolTable keys) {
+        if(tokenizer.tokenType() != JSONTokenType.STRING) throw new ParseException("Expected string key, found: " + tokenizer.tokenType());
+        String key = tokenizer.stringValue(keys);
+        consume(tokenizer, JSONTokenType.STRING);
+        consume(tokenizer, JSONTokenType.COLON);
+        return key;
+    }
 
-            }while(true);
+    // Lazy mode: a fast pass that only balances brackets, then each object/array is parsed one level at a
+    // time the first time its children are asked for. Untouched subtrees are never turned into nodes.
+    public Node parseLazy(String input) {
+        char[] source = input.strip().toCharArray();
+        JSONTokenizer lazyTokenizer = new JSONTokenizer(source, 0, source.length);
+        lazyTokenizer.next();
+        Node root = JSONLazyNode.valueAt(lazyTokenizer, null, source, numberMode, keyTable());
+        if(lazyTokenizer.next() != JSONTokenType.EOF) {
+            throw new ParseException("Unexpected token after end of input: " + lazyTokenizer.tokenType());
         }
-
-        consume(JSONTokenType.RIGHT_BRACE);
-        return object;
+        return root;
     }
 
-    private Node parseArray(String name) {
-        consume(JSONTokenType.LEFT_BRACKET);
-        CompositeNode array = new CompositeNode(name, true); // create an array node
-        if (currentToken.type != JSONTokenType.RIGHT_BRACKET) {
-            do {
-                array.addChild(parseValue(null));
-                if (currentToken.type != JSONTokenType.COMMA)
-                    break;
-                consume(JSONTokenType.COMMA);
-            } while (true);
+    static Node numberLeaf(IJSONCursor tokenizer, String name, NumberMode numberMode) {
+        if (numberMode != NumberMode.LAZY && tokenizer.isIntegral()) {
+            return new LongLeafNode(name, tokenizer.longValue()); // fast path, no parsing needed
+        }
+        if (numberMode == NumberMode.NATIVE && !tokenizer.isIntegral()) {
+            String text = tokenizer.numberText();
+            if (text.indexOf('.') >= 0 || text.indexOf('e') >= 0 || text.indexOf('E') >= 0) {
+                return new DoubleLeafNode(name, Double.parseDouble(text));
+            }
         }
-        consume(JSONTokenType.RIGHT_BRACKET);
-        return array;
+        return new RawNumberLeafNode(name, tokenizer.numberText()); // exact, or an integer beyond the long range
     }
 
-    private void consume(JSONTokenType type){
-        if(currentToken.type != type) {
-            throw new ParseException("Expected token: " + type + ", but found: " + currentToken.type);
+    private static void consume(IJSONCursor tokenizer, JSONTokenType type){
+        if(tokenizer.tokenType() != type) {
+            throw new ParseException("Expected token: " + type + ", but found: " + tokenizer.tokenType());
         }
 
-        currentToken = tokenizer.nextToken();
+        tokenizer.next();
     }
 }
 
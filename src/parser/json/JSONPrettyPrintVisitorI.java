@@ -1,74 +1,94 @@
 package parser.json;
 
+import parser.core.CharSink;
 import parser.core.CompositeNode;
+import parser.core.IndentPrinter;
 import parser.core.LeafNode;
 import parser.core.Node;
+import parser.core.NumberLeafNode;
 import parser.core.INodeVisitor;
+import parser.core.TreeWalker;
 
 public class JSONPrettyPrintVisitorI implements INodeVisitor {
 
     private final StringBuilder sb = new StringBuilder();
-    private int indent = 0; // Current indentation level for pretty printing
-    private static final String INDENT_STR = "  "; // Two spaces for indentation for the sake of readability
+    private final IndentPrinter printer; // indentation comes from a precomputed table, two spaces by default
+    private final CharSink out;
 
-    public String getResult() {
-        return sb.toString();
+    public JSONPrettyPrintVisitorI() {
+        this(IndentPrinter.DEFAULT_WIDTH, ' ');
     }
 
-    private void appendIndent() {
-        sb.append(INDENT_STR.repeat(Math.max(0, indent))); // Append indentation based on the current level
+    public JSONPrettyPrintVisitorI(int indentWidth, char indentChar) {
+        this.out = CharSink.of(sb);
+        this.printer = new IndentPrinter(out, indentWidth, indentChar);
     }
 
+    public String getResult() {
+        out.flush();
+        return sb.toString();
+    }
 
     @Override
     public void visitComposite(CompositeNode node) {
-        boolean isRoot = indent == 0; // Check if this is the root node
-        boolean isArray = node.isArray(); // Check if the node is an array
-
-        if (isArray && node.getName() != null) {
-            sb.append("\"").append(node.getName()).append("\": [\n");
-        } else if (!isArray && node.getName() != null) {
-            sb.append("\"").append(node.getName()).append("\": {\n");
-        } else if (isArray) {
-            sb.append("[\n");
-        } else if (isRoot) {
-            sb.append("{\n");
-        } else {
-            sb.append("{\n");
+        if (sb.length() == 0 && printer.level() == 0) {
+            sb.ensureCapacity(IndentPrinter.estimateSize(node)); // size the output once for the whole tree
         }
+        TreeWalker.walk(node, layout);
+    }
 
-        indent++; // Increase indentation for children
-        int childCount = node.getChildren().size();
-        int currentIndex = 0;
+    // Children go on lines of their own, indented one level deeper than their parent
+    private final TreeWalker.Handler layout = new TreeWalker.Handler() {
+        @Override
+        public void enter(CompositeNode node, CompositeNode parent, int index) {
+            if (parent != null) printer.writeIndent();
+            if (node.getName() != null) {
+                out.append('"').append(node.getName()).append("\": ");
+            }
+            out.append(node.isArray() ? "[\n" : "{\n");
+            printer.indent(); // Increase indentation for children
+        }
 
-        for(Node child : node.getChildren()){
-            appendIndent();
-            child.accept(this);
-            currentIndex++;
-            if(currentIndex < childCount) sb.append(","); // Add a comma
-            sb.append('\n'); // No comma after the last child
+        @Override
+        public void leaf(Node node, CompositeNode parent, int index) {
+            printer.writeIndent();
+            node.accept(JSONPrettyPrintVisitorI.this);
+            separator(parent, index);
         }
 
-        indent--; // Decrease indentation after processing children
-        appendIndent(); // Append indentation for closing brace
-        sb.append(isArray ? "]" : "}"); // Close array or object
+        @Override
+        public void exit(CompositeNode node, CompositeNode parent, int index) {
+            printer.dedent(); // Decrease indentation after processing children
+            printer.writeIndent(); // Append indentation for closing brace
+            out.append(node.isArray() ? ']' : '}'); // Close array or object
+            if (parent != null) separator(parent, index);
+        }
 
-    }
+        private void separator(CompositeNode parent, int index) {
+            if (index + 1 < parent.getChildren().size()) out.append(','); // Add a comma
+            out.append('\n'); // No comma after the last child
+        }
+    };
 
     @Override
     public void visitLeaf(LeafNode node) {
         // Print leaf node with its name and value
         if(node.getName() != null) {
-            sb.append("\"").append(node.getName()).append("\": "); // Print leaf name
+            out.append('"').append(node.getName()).append("\": "); // Print leaf name
+        }
+
+        if(node instanceof NumberLeafNode) {
+            ((NumberLeafNode) node).appendTo(out); // numbers are printed without boxing
+            return;
         }
 
         Object value = node.getValue();
         if(value == null) {
-            sb.append("null");
+            out.append("null");
         } else if(value instanceof String){
-            sb.append("\"").append(value).append("\""); // String values are quoted
+            out.append('"').append((String) value).append('"'); // String values are quoted
         }else{
-            sb.append(value); // Other values are printed as is
+            out.append(value.toString()); // Other values are printed as is
         }
     }
 }
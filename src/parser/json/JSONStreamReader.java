@@ -0,0 +1,154 @@
+package parser.json;
+
+import parser.core.EventType;
+import parser.core.IEventReader;
+import parser.core.ParseException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Pull parser for JSON: reads the input through the tokenizer's bounded window and reports one event
+// at a time, so memory only grows with the nesting depth and never with the size of the document.
+public class JSONStreamReader implements IEventReader {
+
+    // what the reader expects to see next
+    private static final int VALUE = 0;
+    private static final int KEY_OR_END = 1;
+    private static final int VALUE_OR_END = 2;
+    private static final int COMMA_OR_END = 3;
+    private static final int DONE = 4;
+
+    private final Reader source;
+    private final JSONTokenizer tokenizer;
+    private boolean[] inObject = new boolean[16]; // container stack: true for objects, false for arrays
+    private int depth = 0;
+    private int state = VALUE;
+    private EventType current;
+    private String text;
+
+    public JSONStreamReader(String input) {
+        this(new StringReader(input));
+    }
+
+    public JSONStreamReader(InputStream in) {
+        this(new InputStreamReader(in, StandardCharsets.UTF_8));
+    }
+
+    public JSONStreamReader(Reader reader) {
+        this.source = reader;
+        this.tokenizer = new JSONTokenizer(reader);
+    }
+
+    public JSONStreamReader(Reader reader, int bufferSize) {
+        this.source = reader;
+        this.tokenizer = new JSONTokenizer(reader, bufferSize);
+    }
+
+    @Override
+    public EventType next() {
+        text = null;
+        switch (state) {
+            case VALUE:
+                return current = readValue(tokenizer.next());
+            case KEY_OR_END: {
+                JSONTokenType type = tokenizer.next();
+                if (type == JSONTokenType.RIGHT_BRACE) return current = endContainer(EventType.END_OBJECT);
+                return current = readField(type);
+            }
+            case VALUE_OR_END: {
+                JSONTokenType type = tokenizer.next();
+                if (type == JSONTokenType.RIGHT_BRACKET) return current = endContainer(EventType.END_ARRAY);
+                return current = readValue(type);
+            }
+            case COMMA_OR_END: {
+                JSONTokenType type = tokenizer.next();
+                boolean object = inObject[depth - 1];
+                if (type == (object ? JSONTokenType.RIGHT_BRACE : JSONTokenType.RIGHT_BRACKET)) {
+                    return current = endContainer(object ? EventType.END_OBJECT : EventType.END_ARRAY);
+                }
+                if (type != JSONTokenType.COMMA) {
+                    throw new ParseException("Expected token: COMMA, but found: " + type + " at position " + tokenizer.position());
+                }
+                return current = object ? readField(tokenizer.next()) : readValue(tokenizer.next());
+            }
+            default: {
+                JSONTokenType type = tokenizer.next();
+                if (type != JSONTokenType.EOF) {
+                    throw new ParseException("Unexpected token after end of input: " + type);
+                }
+                return current = EventType.END_DOCUMENT;
+            }
+        }
+    }
+
+    @Override
+    public EventType current() {
+        return current;
+    }
+
+    @Override
+    public String getText() {
+        return text;
+    }
+
+    @Override
+    public int getDepth() {
+        return depth;
+    }
+
+    @Override
+    public void close() {
+        try {
+            source.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private EventType readField(JSONTokenType type) {
+        if (type != JSONTokenType.STRING) throw new ParseException("Expected string key, found: " + type);
+        String key = tokenizer.stringValue();
+        JSONTokenType colon = tokenizer.next();
+        if (colon != JSONTokenType.COLON) {
+            throw new ParseException("Expected token: COLON, but found: " + colon + " at position " + tokenizer.position());
+        }
+        text = key;
+        state = VALUE;
+        return EventType.FIELD_NAME;
+    }
+
+    private EventType readValue(JSONTokenType type) {
+        switch (type) {
+            case LEFT_BRACE: push(true); state = KEY_OR_END; return EventType.START_OBJECT;
+            case LEFT_BRACKET: push(false); state = VALUE_OR_END; return EventType.START_ARRAY;
+            case STRING: text = tokenizer.stringValue(); valueDone(); return EventType.VALUE_STRING;
+            case NUMBER: text = tokenizer.numberText(); valueDone(); return EventType.VALUE_NUMBER;
+            case TRUE: text = "true"; valueDone(); return EventType.VALUE_TRUE;
+            case FALSE: text = "false"; valueDone(); return EventType.VALUE_FALSE;
+            case NULL: valueDone(); return EventType.VALUE_NULL;
+            case EOF: throw new ParseException("Unexpected end of input at position " + tokenizer.position());
+            default: throw new ParseException("Invalid JSON value at: " + type);
+        }
+    }
+
+    private EventType endContainer(EventType event) {
+        depth--;
+        valueDone();
+        return event;
+    }
+
+    private void push(boolean object) {
+        if (depth == inObject.length) inObject = Arrays.copyOf(inObject, depth * 2);
+        inObject[depth++] = object;
+    }
+
+    private void valueDone() {
+        state = depth == 0 ? DONE : COMMA_OR_END;
+    }
+}
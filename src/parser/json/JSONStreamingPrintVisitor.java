@@ -0,0 +1,137 @@
+package parser.json;
+
+import parser.core.CharSink;
+import parser.core.CompositeNode;
+import parser.core.INodeVisitor;
+import parser.core.IndentPrinter;
+import parser.core.LeafNode;
+import parser.core.Node;
+import parser.core.NumberLeafNode;
+import parser.core.TreeWalker;
+
+import java.io.Writer;
+
+// Writes JSON to a CharSink while walking the tree instead of collecting it in a StringBuilder.
+// Pretty mode matches JSONPrettyPrintVisitorI, compact mode leaves out all whitespace.
+public class JSONStreamingPrintVisitor implements INodeVisitor {
+    private final CharSink out;
+    private final IndentPrinter printer;
+    private final boolean pretty;
+
+    public JSONStreamingPrintVisitor(Writer writer, boolean pretty) {
+        this(new CharSink(writer), pretty);
+    }
+
+    public JSONStreamingPrintVisitor(CharSink out, boolean pretty) {
+        this(out, pretty, IndentPrinter.DEFAULT_WIDTH, ' ');
+    }
+
+    public JSONStreamingPrintVisitor(CharSink out, boolean pretty, int indentWidth, char indentChar) {
+        this.out = out;
+        this.printer = new IndentPrinter(out, indentWidth, indentChar);
+        this.pretty = pretty;
+    }
+
+    // The output has already been written to the sink; this only flushes it
+    @Override
+    public String getResult() {
+        out.flush();
+        return "";
+    }
+
+    public void flush() {
+        out.flush();
+    }
+
+    @Override
+    public void visitComposite(CompositeNode node) {
+        TreeWalker.walk(node, layout);
+    }
+
+    private final TreeWalker.Handler layout = new TreeWalker.Handler() {
+        @Override
+        public void enter(CompositeNode node, CompositeNode parent, int index) {
+            separator(parent, index);
+            writeName(node.getName());
+            out.append(node.isArray() ? '[' : '{');
+            if (!node.getChildren().isEmpty()) printer.indent();
+        }
+
+        @Override
+        public void leaf(Node node, CompositeNode parent, int index) {
+            separator(parent, index);
+            node.accept(JSONStreamingPrintVisitor.this);
+        }
+
+        @Override
+        public void exit(CompositeNode node, CompositeNode parent, int index) {
+            if (!node.getChildren().isEmpty()) {
+                printer.dedent();
+                newLine();
+            }
+            out.append(node.isArray() ? ']' : '}');
+        }
+
+        private void separator(CompositeNode parent, int index) {
+            if (parent == null) return;
+            if (index > 0) out.append(',');
+            newLine();
+        }
+    };
+
+    @Override
+    public void visitLeaf(LeafNode node) {
+        writeName(node.getName());
+        if (node instanceof NumberLeafNode) {
+            ((NumberLeafNode) node).appendTo(out);
+            return;
+        }
+        Object value = node.getValue();
+        if (value == null) {
+            out.append("null");
+        } else if (value instanceof String) {
+            writeString((String) value);
+        } else {
+            out.append(value.toString()); // booleans and other values are printed as is
+        }
+    }
+
+    private void writeName(String name) {
+        if (name == null) return;
+        writeString(name);
+        out.append(pretty ? ": " : ":");
+    }
+
+    private void writeString(String s) {
+        writeString(out, s);
+    }
+
+    // Quotes and escapes a string, copying unescaped runs in one go
+    static void writeString(CharSink out, String s) {
+        out.append('"');
+        int run = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\') continue;
+            out.append(s, run, i);
+            run = i + 1;
+            switch (c) {
+                case '"': out.append("\\\""); break;
+                case '\\': out.append("\\\\"); break;
+                case '\n': out.append("\\n"); break;
+                case '\r': out.append("\\r"); break;
+                case '\t': out.append("\\t"); break;
+                case '\b': out.append("\\b"); break;
+                case '\f': out.append("\\f"); break;
+                default:
+                    out.append("\\u00").append(Character.forDigit(c >> 4, 16)).append(Character.forDigit(c & 0xF, 16));
+            }
+        }
+        out.append(s, run, s.length());
+        out.append('"');
+    }
+
+    private void newLine() {
+        if (pretty) printer.newLine();
+    }
+}
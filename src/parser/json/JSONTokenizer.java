@@ -1,77 +1,380 @@
 package parser.json;
 
 import parser.core.ParseException;
+import parser.core.ParseMetrics;
+import parser.core.SymbolTable;
 
-public class JSONTokenizer {
-    private final String input;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+// Two ways to use it: nextToken() hands out JSONToken objects, while the cursor methods (next(),
+// tokenType(), tokenStart()/tokenEnd()) only move offsets over the buffer and allocate nothing.
+// Strings and numbers are materialized only when stringValue()/numberText() are called.
+public class JSONTokenizer implements IJSONCursor {
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    // punctuation carries no data, so nextToken() can hand out shared instances
+    private static final JSONToken LEFT_BRACE_TOKEN = new JSONToken(JSONTokenType.LEFT_BRACE, "{");
+    private static final JSONToken RIGHT_BRACE_TOKEN = new JSONToken(JSONTokenType.RIGHT_BRACE, "}");
+    private static final JSONToken LEFT_BRACKET_TOKEN = new JSONToken(JSONTokenType.LEFT_BRACKET, "[");
+    private static final JSONToken RIGHT_BRACKET_TOKEN = new JSONToken(JSONTokenType.RIGHT_BRACKET, "]");
+    private static final JSONToken COLON_TOKEN = new JSONToken(JSONTokenType.COLON, ":");
+    private static final JSONToken COMMA_TOKEN = new JSONToken(JSONTokenType.COMMA, ",");
+    private static final JSONToken TRUE_TOKEN = new JSONToken(JSONTokenType.TRUE, "true");
+    private static final JSONToken FALSE_TOKEN = new JSONToken(JSONTokenType.FALSE, "false");
+    private static final JSONToken NULL_TOKEN = new JSONToken(JSONTokenType.NULL, "null");
+    private static final JSONToken EOF_TOKEN = new JSONToken(JSONTokenType.EOF, null);
+
+    private final Reader reader; // null when the whole input is already in memory
+    private char[] buf;
     private int pos = 0;
-    private final int length;
+    private int limit;
+    private int mark = -1; // start of the token being read, kept in the window while refilling
+    private long offset = 0; // number of chars dropped from the front of the window so far
+
+    // cursor state of the current token
+    private JSONTokenType type;
+    private int tokenStart;
+    private int tokenEnd;
+    private boolean escaped; // current string contains backslash escapes
+    private boolean numberIntegral; // current number has no fraction or exponent and fits in a long
+    private long longValue; // value of the current number when it is integral
+    private ParseMetrics metrics; // null unless the parse is monitored
 
     public JSONTokenizer(String input) {
-        this.input = input.strip();
-        this.length = input.length();
+        this.reader = null;
+        this.buf = input.strip().toCharArray();
+        this.limit = buf.length;
+    }
+
+    // Tokenizes a range of an existing buffer without copying it; positions stay relative to the buffer
+    JSONTokenizer(char[] buf, int start, int end) {
+        this.reader = null;
+        this.buf = buf;
+        this.pos = start;
+        this.limit = end;
+    }
+
+    // Streams the input through a bounded window instead of holding it all in memory
+    public JSONTokenizer(Reader reader) {
+        this(reader, DEFAULT_BUFFER_SIZE);
+    }
+
+    public JSONTokenizer(Reader reader, int bufferSize) {
+        if (bufferSize < 8) throw new IllegalArgumentException("Buffer size too small: " + bufferSize);
+        this.reader = reader;
+        this.buf = new char[bufferSize];
+        this.limit = 0;
     }
 
     public JSONToken nextToken(){
+        switch(next()){
+            case LEFT_BRACE: return LEFT_BRACE_TOKEN;
+            case RIGHT_BRACE: return RIGHT_BRACE_TOKEN;
+            case LEFT_BRACKET: return LEFT_BRACKET_TOKEN;
+            case RIGHT_BRACKET: return RIGHT_BRACKET_TOKEN;
+            case COLON: return COLON_TOKEN;
+            case COMMA: return COMMA_TOKEN;
+            case STRING: return new JSONToken(JSONTokenType.STRING, stringValue());
+            case NUMBER: return new JSONToken(JSONTokenType.NUMBER, numberText());
+            case TRUE: return TRUE_TOKEN;
+            case FALSE: return FALSE_TOKEN;
+            case NULL: return NULL_TOKEN;
+            default: return EOF_TOKEN;
+        }
+    }
+
+    // Cursor mode: moves to the next token and returns its type
+    @Override
+    public JSONTokenType next(){
+        JSONTokenType next = scan();
+        if(metrics != null) metrics.token(next);
+        return next;
+    }
+
+    @Override
+    public void setMetrics(ParseMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    private JSONTokenType scan(){
         skipWhitespace();
-        if(pos >= length) {
-            return new JSONToken(JSONTokenType.EOF, null); // End of File
+        if(pos >= limit && !fill()) {
+            tokenStart = tokenEnd = pos;
+            return type = JSONTokenType.EOF; // End of File
         }
-        char c = input.charAt(pos);
+        char c = buf[pos];
+        tokenStart = pos;
         switch(c){
-            case '{': pos++; return new JSONToken(JSONTokenType.LEFT_BRACE, "{");
-            case '}': pos++; return new JSONToken(JSONTokenType.RIGHT_BRACE, "}");
-            case '[': pos++; return new JSONToken(JSONTokenType.LEFT_BRACKET, "[");
-            case ']': pos++; return new JSONToken(JSONTokenType.RIGHT_BRACKET, "]");
-            case ':': pos++; return new JSONToken(JSONTokenType.COLON, ":");
-            case ',': pos++; return new JSONToken(JSONTokenType.COMMA, ",");
-            case '"': return stringToken();
+            case '{': tokenEnd = ++pos; return type = JSONTokenType.LEFT_BRACE;
+            case '}': tokenEnd = ++pos; return type = JSONTokenType.RIGHT_BRACE;
+            case '[': tokenEnd = ++pos; return type = JSONTokenType.LEFT_BRACKET;
+            case ']': tokenEnd = ++pos; return type = JSONTokenType.RIGHT_BRACKET;
+            case ':': tokenEnd = ++pos; return type = JSONTokenType.COLON;
+            case ',': tokenEnd = ++pos; return type = JSONTokenType.COMMA;
+            case '"': return type = scanString();
             default:
-                if(Character.isDigit(c) || c == '-') return numberToken();
-                if(input.startsWith("true", pos)) {pos += 4; return new JSONToken(JSONTokenType.TRUE, "true");}
-                if(input.startsWith("false", pos)) {pos += 5; return new JSONToken(JSONTokenType.FALSE, "false");}
-                if(input.startsWith("null", pos)) {pos += 4; return new JSONToken(JSONTokenType.NULL, "null");}
-                throw new ParseException("Unexpected character: " + c + " at position " + pos);
+                if((c >= '0' && c <= '9') || c == '-') return type = scanNumber();
+                if(matches("true")) {tokenStart = pos; tokenEnd = pos += 4; return type = JSONTokenType.TRUE;}
+                if(matches("false")) {tokenStart = pos; tokenEnd = pos += 5; return type = JSONTokenType.FALSE;}
+                if(matches("null")) {tokenStart = pos; tokenEnd = pos += 4; return type = JSONTokenType.NULL;}
+                throw new ParseException("Unexpected character: " + c + " at position " + position());
         }
     }
 
+    @Override
+    public JSONTokenType tokenType() {
+        return type;
+    }
+
+    // Window holding the current token; only valid until the next call to next() or skipValue()
+    public char[] buffer() {
+        return buf;
+    }
+
+    // Offsets of the current token in buffer(); for strings the quotes are excluded
+    public int tokenStart() {
+        return tokenStart;
+    }
+
+    public int tokenEnd() {
+        return tokenEnd;
+    }
+
+    // Absolute position of the next unread character in the input
+    @Override
+    public long position() {
+        return offset + pos;
+    }
+
+    // Decodes the current STRING token
+    @Override
+    public String stringValue() {
+        if(!escaped) return new String(buf, tokenStart, tokenEnd - tokenStart);
+        return unescape(buf, tokenStart, tokenEnd, offset);
+    }
+
+    // Escaped strings are rare as keys and bypass the table
+    @Override
+    public String stringValue(SymbolTable symbols) {
+        if(symbols == null || escaped) return stringValue();
+        return symbols.intern(buf, tokenStart, tokenEnd);
+    }
+
+    @Override
+    public boolean stringEquals(String text) {
+        if(escaped) return stringValue().equals(text);
+        int length = tokenEnd - tokenStart;
+        if(text.length() != length) return false;
+        for(int i = 0; i < length; i++) {
+            if(buf[tokenStart + i] != text.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    // Raw text of the current NUMBER token
+    @Override
+    public String numberText() {
+        return new String(buf, tokenStart, tokenEnd - tokenStart);
+    }
+
+    // True when the current NUMBER has no fraction or exponent and fits in a long
+    @Override
+    public boolean isIntegral() {
+        return numberIntegral;
+    }
+
+    // Value of the current NUMBER, accumulated while scanning so no parsing is needed
+    @Override
+    public long longValue() {
+        return longValue;
+    }
+
+    public double doubleValue() {
+        return numberIntegral ? longValue : Double.parseDouble(numberText());
+    }
+
+    // Skips the rest of the value whose first token is current. For objects and arrays this only balances
+    // brackets and hops over strings; nothing inside is decoded. Afterwards the closing bracket is current.
+    @Override
+    public void skipValue() {
+        if(type != JSONTokenType.LEFT_BRACE && type != JSONTokenType.LEFT_BRACKET) return;
+        long start = offset + tokenStart;
+        int depth = 1;
+        while(pos < limit || fill()) {
+            char c = buf[pos++];
+            if(c == '"') {
+                skipString(start);
+            } else if(c == '{' || c == '[') {
+                depth++;
+            } else if((c == '}' || c == ']') && --depth == 0) {
+                tokenStart = pos - 1;
+                tokenEnd = pos;
+                type = c == '}' ? JSONTokenType.RIGHT_BRACE : JSONTokenType.RIGHT_BRACKET;
+                return;
+            }
+        }
+        throw new ParseException("Unterminated " + (type == JSONTokenType.LEFT_BRACE ? "object" : "array") + " at position " + start);
+    }
+
     private void skipWhitespace(){
-        while(pos < length && Character.isWhitespace(input.charAt(pos))) { pos++; }
+        while((pos < limit || fill()) && Character.isWhitespace(buf[pos])) { pos++; }
+    }
+
+    private boolean matches(String literal) {
+        int n = literal.length();
+        while(limit - pos < n) {
+            if(!fill()) return false;
+        }
+        for(int i = 0; i < n; i++) {
+            if(buf[pos + i] != literal.charAt(i)) return false;
+        }
+        return true;
     }
 
-    private JSONToken stringToken(){
-        StringBuilder sb = new StringBuilder();
+    private JSONTokenType scanString(){
+        long start = position();
+        mark = pos;
         pos++; // skip the opening quote
-        while(pos < length) {
-            char c = input.charAt(pos);
+        escaped = false;
+        while(pos < limit || fill()) {
+            char c = buf[pos];
             if(c == '"') {
+                tokenStart = mark + 1;
+                tokenEnd = pos;
                 pos++; // skip the closing quote
-                return new JSONToken(JSONTokenType.STRING, sb.toString());
+                mark = -1;
+                return JSONTokenType.STRING;
             }
-            if(c == '\\' && pos+1<length) { // handle escape sequences
-                pos++; // skip the backslash
-                c = input.charAt(pos);
-                if(c=='n') sb.append('\n');
-                else if(c=='t') sb.append('\t');
-                else sb.append(c); // add the character after the backslash
-
-            } else {
-                sb.append(c);
+            if(c == '\\') { // the escaped character is decoded later, just step over it
+                escaped = true;
+                pos++;
+                if(pos >= limit && !fill()) break;
             }
             pos++;
         }
-        throw new ParseException("Unterminated string at position " + (pos - sb.length() -1 )); // to account for the opening quote
+        mark = -1;
+        throw new ParseException("Unterminated string at position " + start);
+    }
+
+    private void skipString(long containerStart) {
+        while(pos < limit || fill()) {
+            char c = buf[pos++];
+            if(c == '"') return;
+            if(c == '\\' && (pos < limit || fill())) pos++;
+        }
+        throw new ParseException("Unterminated string inside value at position " + containerStart);
     }
 
-    private JSONToken numberToken(){
-        int start = pos;
-        if(input.charAt(pos) == '-') pos++; // handle negative numbers
-        while(pos < length && Character.isDigit(input.charAt(pos))) pos++;
-        if(pos < length && input.charAt(pos) == '.') {
+    // The grammar of Numbers.isNumber, checked as the digits go by
+    private JSONTokenType scanNumber(){
+        mark = pos;
+        boolean negative = buf[pos] == '-';
+        if(negative) pos++; // handle negative numbers
+        // accumulated as a negative value, so that -9223372036854775808 still fits
+        long bound = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long value = 0;
+        int digits = 0;
+        boolean leadingZero = false;
+        boolean fits = true;
+        while((pos < limit || fill()) && isDigit(buf[pos])) {
+            int d = buf[pos++] - '0';
+            if(digits == 0) leadingZero = d == 0;
+            if(value < (bound + d) / 10) fits = false; // keep scanning, the text is still valid
+            value = value * 10 - d;
+            digits++;
+        }
+        if(digits == 0 || leadingZero && digits > 1) throw new ParseException("Invalid number at position " + (offset + mark));
+        boolean integral = true;
+        if((pos < limit || fill()) && buf[pos] == '.') {
+            integral = false;
             pos++; // skip the decimal point
-            while(pos < length && Character.isDigit(input.charAt(pos))) pos++;
+            scanDigits();
+        }
+        if((pos < limit || fill()) && (buf[pos] == 'e' || buf[pos] == 'E')) {
+            integral = false;
+            pos++; // skip the exponent marker and its sign
+            if((pos < limit || fill()) && (buf[pos] == '+' || buf[pos] == '-')) pos++;
+            scanDigits();
+        }
+        numberIntegral = integral && fits;
+        longValue = negative ? value : -value;
+        tokenStart = mark;
+        tokenEnd = pos;
+        mark = -1;
+        return JSONTokenType.NUMBER;
+    }
+
+    // Fraction and exponent need at least one digit: "1." and "1e+" are not numbers
+    private void scanDigits() {
+        int digits = 0; // counted, since fill() moves pos when it slides the window
+        while((pos < limit || fill()) && isDigit(buf[pos])) {
+            pos++;
+            digits++;
+        }
+        if(digits == 0) throw new ParseException("Invalid number at position " + (offset + mark));
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    // offset is the input position of buf[0], for error messages
+    static String unescape(char[] buf, int start, int end, long offset) {
+        StringBuilder sb = new StringBuilder(end - start);
+        for(int i = start; i < end; i++) {
+            char c = buf[i];
+            if(c != '\\' || i + 1 >= end) {
+                sb.append(c);
+                continue;
+            }
+            c = buf[++i];
+            switch(c) {
+                case 'n': sb.append('\n'); break;
+                case 't': sb.append('\t'); break;
+                case 'r': sb.append('\r'); break;
+                case 'b': sb.append('\b'); break;
+                case 'f': sb.append('\f'); break;
+                case 'u':
+                    if(i + 4 >= end) throw new ParseException("Invalid unicode escape at position " + (offset + i));
+                    int code = 0;
+                    for(int k = 1; k <= 4; k++) {
+                        int digit = Character.digit(buf[i + k], 16);
+                        if(digit < 0) throw new ParseException("Invalid unicode escape at position " + (offset + i));
+                        code = (code << 4) | digit;
+                    }
+                    sb.append((char) code);
+                    i += 4;
+                    break;
+                case '"': case '\\': case '/': sb.append(c); break;
+                default: throw new ParseException("Invalid escape at position " + (offset + i - 1));
+            }
         }
-        return new JSONToken(JSONTokenType.NUMBER, input.substring(start, pos));
+        return sb.toString();
+    }
 
+    // Slides the window forward and reads more input; returns false once the input is exhausted
+    private boolean fill() {
+        if(reader == null) return false;
+        int keepFrom = mark >= 0 ? mark : pos;
+        if(keepFrom > 0) {
+            System.arraycopy(buf, keepFrom, buf, 0, limit - keepFrom);
+            limit -= keepFrom;
+            pos -= keepFrom;
+            if(mark >= 0) mark -= keepFrom;
+            offset += keepFrom;
+        }
+        if(limit == buf.length) {
+            buf = Arrays.copyOf(buf, buf.length * 2); // a single token is larger than the window
+        }
+        try {
+            int n = reader.read(buf, limit, buf.length - limit);
+            if(n <= 0) return false;
+            limit += n;
+            return true;
+        } catch (IOException e) {
+            throw new ParseException("Failed to read JSON input at position " + position(), e);
+        }
     }
 }
@@ -0,0 +1,253 @@
+package parser.json;
+
+import parser.core.CompositeNode;
+import parser.core.IParser;
+import parser.core.Node;
+import parser.core.ParseException;
+import parser.core.SymbolTable;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+// Newline-delimited JSON (JSON Lines): one document per line. Files are cut into chunks at line
+// boundaries and the chunks are parsed in parallel, all sharing one JSONParser.
+// Key names are interned in one table for the whole file, so records share their key Strings.
+public class NDJSONParser implements IParser {
+    private static final int DEFAULT_CHUNK_SIZE = 4 << 20; // 4 MB of input per task
+
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+    private final JSONParser parser = new JSONParser(JSONParser.NumberMode.NATIVE, new SymbolTable()); // safe to share between workers
+
+    public NDJSONParser() {
+        this(ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+    }
+
+    public NDJSONParser(ForkJoinPool pool, int chunkSize) {
+        if (chunkSize <= 0) throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+    }
+
+    // Parses every line of the input and returns them, in order, as the children of one array node
+    @Override
+    public Node parse(String input) throws ParseException {
+        CompositeNode records = new CompositeNode(null, true);
+        List<int[]> ranges = new ArrayList<>();
+        int start = 0;
+        while (start < input.length()) {
+            int end = Math.min(input.length(), start + chunkSize);
+            int newline = input.indexOf('\n', end);
+            end = newline < 0 ? input.length() : newline + 1;
+            ranges.add(new int[]{start, end});
+            start = end;
+        }
+        List<ForkJoinTask<List<Node>>> tasks = new ArrayList<>(ranges.size());
+        for (int[] range : ranges) {
+            tasks.add(pool.submit(() -> parseLines(input.substring(range[0], range[1]),
+                    () -> lines(input, range[0]))));
+        }
+        for (ForkJoinTask<List<Node>> task : tasks) {
+            for (Node record : task.join()) records.addChild(record);
+        }
+        return records;
+    }
+
+    // Parses every line of the file and returns them, in order, as the children of one array node
+    @Override
+    public Node parse(Path file) throws ParseException {
+        CompositeNode records = new CompositeNode(null, true);
+        forEachOrdered(file, records::addChild);
+        return records;
+    }
+
+    // Delivers the records of a file in file order on the calling thread. Only a bounded number of
+    // chunks are parsed ahead, so memory stays proportional to the pool size rather than the file.
+    public void forEachOrdered(Path file, Consumer<? super Node> sink) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            int maxInFlight = Math.max(2, pool.getParallelism() * 2);
+            ArrayDeque<ForkJoinTask<List<Node>>> inFlight = new ArrayDeque<>();
+            for (Chunk chunk : chunks(channel)) {
+                inFlight.addLast(pool.submit(() -> parseChunk(channel, chunk)));
+                if (inFlight.size() >= maxInFlight) inFlight.removeFirst().join().forEach(sink);
+            }
+            while (!inFlight.isEmpty()) inFlight.removeFirst().join().forEach(sink);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Delivers the records as soon as their chunk is parsed, from the pool's threads and in no
+    // particular order; the sink must be thread-safe
+    public void forEach(Path file, Consumer<? super Node> sink) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            List<ForkJoinTask<?>> tasks = new ArrayList<>();
+            for (Chunk chunk : chunks(channel)) {
+                tasks.add(pool.submit(() -> parseChunk(channel, chunk).forEach(sink)));
+            }
+            for (ForkJoinTask<?> task : tasks) task.join();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Stream of the records in file order. The chunks are parsed on the pool, a bounded number ahead
+    // of the consumer as in forEachOrdered, while the stream's own operations run on the consuming
+    // thread. The file is read while the stream is consumed and is closed together with the stream.
+    public Stream<Node> stream(Path file) {
+        try {
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+            Iterator<Chunk> chunks = chunks(channel).iterator();
+            int maxInFlight = Math.max(2, pool.getParallelism() * 2);
+            ArrayDeque<ForkJoinTask<List<Node>>> inFlight = new ArrayDeque<>();
+            Iterator<List<Node>> parsed = new Iterator<>() {
+                @Override
+                public boolean hasNext() {
+                    while (inFlight.size() < maxInFlight && chunks.hasNext()) {
+                        Chunk chunk = chunks.next();
+                        inFlight.addLast(pool.submit(() -> parseChunk(channel, chunk)));
+                    }
+                    return !inFlight.isEmpty();
+                }
+
+                @Override
+                public List<Node> next() {
+                    if (!hasNext()) throw new NoSuchElementException();
+                    return inFlight.removeFirst().join();
+                }
+            };
+            return StreamSupport.stream(Spliterators.spliteratorUnknownSize(parsed, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                    .flatMap(List::stream)
+                    .onClose(() -> {
+                        inFlight.forEach(task -> task.cancel(false));
+                        try {
+                            channel.close();
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private record Chunk(long start, long end) {
+    }
+
+    // Cuts the file into chunks of about chunkSize bytes, each ending right after a '\n'. A newline
+    // byte never occurs inside a multi-byte UTF-8 sequence, so this is safe on raw bytes.
+    private List<Chunk> chunks(FileChannel channel) throws IOException {
+        List<Chunk> chunks = new ArrayList<>();
+        long size = channel.size();
+        ByteBuffer probe = ByteBuffer.allocate(4096);
+        long start = 0;
+        while (start < size) {
+            long end = Math.min(size, start + chunkSize);
+            while (end < size) {
+                probe.clear();
+                int n = channel.read(probe, end);
+                if (n <= 0) {
+                    end = size;
+                    break;
+                }
+                int newline = -1;
+                for (int i = 0; i < n; i++) {
+                    if (probe.get(i) == '\n') {
+                        newline = i;
+                        break;
+                    }
+                }
+                if (newline >= 0) {
+                    end += newline + 1;
+                    break;
+                }
+                end += n;
+            }
+            chunks.add(new Chunk(start, Math.min(end, size)));
+            start = end;
+        }
+        return chunks;
+    }
+
+    private List<Node> parseChunk(FileChannel channel, Chunk chunk) {
+        ByteBuffer bytes = ByteBuffer.allocate((int) (chunk.end() - chunk.start()));
+        try {
+            long position = chunk.start();
+            while (bytes.hasRemaining()) {
+                int n = channel.read(bytes, position);
+                if (n < 0) break;
+                position += n;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return parseLines(new String(bytes.array(), 0, bytes.position(), StandardCharsets.UTF_8),
+                () -> lines(channel, chunk.start()));
+    }
+
+    // Errors name the line, counted from 1, and keep the parser's message, whose positions are chars
+    // within that line. Lines before the chunk are only counted once a record fails.
+    private List<Node> parseLines(String text, LongSupplier linesBefore) {
+        List<Node> records = new ArrayList<>();
+        int start = 0;
+        int lineIndex = 0; // within the chunk
+        while (start < text.length()) {
+            int newline = text.indexOf('\n', start);
+            int end = newline < 0 ? text.length() : newline;
+            String line = text.substring(start, end);
+            if (!line.isBlank()) {
+                try {
+                    records.add(parser.parse(line));
+                } catch (ParseException e) {
+                    throw new ParseException("Invalid record on line " + (linesBefore.getAsLong() + lineIndex + 1) + ": " + e.getMessage(), e);
+                }
+            }
+            start = end + 1;
+            lineIndex++;
+        }
+        return records;
+    }
+
+    private static long lines(String input, int end) {
+        long count = 0;
+        for (int i = input.indexOf('\n'); i >= 0 && i < end; i = input.indexOf('\n', i + 1)) count++;
+        return count;
+    }
+
+    private static long lines(FileChannel channel, long end) {
+        long count = 0;
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        try {
+            for (long position = 0; position < end; ) {
+                buffer.clear().limit((int) Math.min(buffer.capacity(), end - position));
+                int n = channel.read(buffer, position);
+                if (n <= 0) break;
+                for (int i = 0; i < n; i++) {
+                    if (buffer.get(i) == '\n') count++;
+                }
+                position += n;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return count;
+    }
+}
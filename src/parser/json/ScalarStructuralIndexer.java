@@ -0,0 +1,17 @@
+package parser.json;
+
+import java.nio.ByteBuffer;
+
+// Classifies one byte at a time; used when the Vector API is not available
+final class ScalarStructuralIndexer extends StructuralIndexer {
+
+    @Override
+    public boolean isVectorized() {
+        return false;
+    }
+
+    @Override
+    void classify(ByteBuffer input, int at, int length, long[] masks) {
+        classifyScalar(input, at, length, masks);
+    }
+}
@@ -0,0 +1,49 @@
+package parser.json;
+
+// Stage-1 output: the position of every token start in a UTF-8 buffer, in order. That is each
+// structural character ({ } [ ] : ,) outside strings, the opening quote of each string, and the first
+// byte of each number or literal. A tokenizer walking the index never has to look at whitespace or
+// string contents to find the next token, and skips a whole value by balancing brackets over the index.
+// The backslashes found inside strings are kept as well, so a string's escapes are known without
+// reading it.
+public final class StructuralIndex {
+    private final int[] positions;
+    private final int size;
+    private final int[] escapes;
+    private final int escapeCount;
+    private final boolean endsInString; // the input stops inside a string
+
+    StructuralIndex(int[] positions, int size, int[] escapes, int escapeCount, boolean endsInString) {
+        this.positions = positions;
+        this.size = size;
+        this.escapes = escapes;
+        this.escapeCount = escapeCount;
+        this.endsInString = endsInString;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Buffer position of the i-th token start
+    public int position(int i) {
+        if (i >= size) throw new IndexOutOfBoundsException("Index " + i + " out of bounds for size " + size);
+        return positions[i];
+    }
+
+    int[] positions() {
+        return positions;
+    }
+
+    int[] escapes() {
+        return escapes;
+    }
+
+    int escapeCount() {
+        return escapeCount;
+    }
+
+    boolean endsInString() {
+        return endsInString;
+    }
+}
@@ -0,0 +1,179 @@
+package parser.json;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+// Stage-1 structural indexing in the style of simdjson. The input is read in blocks of 64 bytes; each
+// block is turned into four bitmasks (quotes, backslashes, structural characters, whitespace), and
+// the rest is plain long arithmetic: escaped quotes are removed, a prefix XOR of the quotes marks the
+// bytes inside strings, and the bits left over are the token starts. Only the classification step
+// differs between implementations: scalar() tests one byte at a time, vector() compares 32 or 64
+// bytes per instruction with the incubating Vector API.
+//
+// The parsers use an index only when it is switched on with -Dparser.json.simd:
+//   true    the Vector API when jdk.incubator.vector is present (--add-modules jdk.incubator.vector),
+//           the scalar indexer otherwise
+//   scalar  always the scalar indexer
+// Any other value, or none, leaves the plain tokenizers in charge. Indexers hold no state between
+// calls and can be shared by any number of threads.
+public abstract class StructuralIndexer {
+    public static final String PROPERTY = "parser.json.simd";
+
+    static final int QUOTE = 0;
+    static final int BACKSLASH = 1;
+    static final int STRUCTURAL = 2;
+    static final int WHITESPACE = 3;
+
+    private static final long EVEN_BITS = 0x5555_5555_5555_5555L;
+
+    private static final StructuralIndexer SCALAR = new ScalarStructuralIndexer();
+    private static final StructuralIndexer VECTOR = loadVector();
+    private static final StructuralIndexer CONFIGURED = configure(System.getProperty(PROPERTY));
+
+    public static StructuralIndexer scalar() {
+        return SCALAR;
+    }
+
+    // The Vector API indexer, or null when the module is not available at runtime
+    public static StructuralIndexer vector() {
+        return VECTOR;
+    }
+
+    // Whatever -Dparser.json.simd selects, or null when indexing is switched off
+    public static StructuralIndexer configured() {
+        return CONFIGURED;
+    }
+
+    public abstract boolean isVectorized();
+
+    // Fills masks[QUOTE..WHITESPACE] for the bytes at [at, at + length); bit i stands for byte at + i.
+    // length is 64 except for the last block.
+    abstract void classify(ByteBuffer input, int at, int length, long[] masks);
+
+    // Indexes input from its position to its limit; positions in the result are buffer positions
+    public StructuralIndex index(ByteBuffer input) {
+        return index(input, input.position(), input.limit());
+    }
+
+    public StructuralIndex index(ByteBuffer input, int start, int end) {
+        int[] positions = new int[Math.max(64, (end - start) >>> 3)];
+        int size = 0;
+        int[] escapes = new int[16];
+        int escapeCount = 0;
+        long[] masks = new long[4];
+        long prevEscaped = 0;  // 1 when the previous block ended with an unfinished escape
+        long prevInString = 0; // all ones when the previous block ended inside a string
+        long prevScalar = 0;   // 1 when the previous block ended inside a number or literal
+        for (int at = start; at < end; at += 64) {
+            int length = Math.min(64, end - at);
+            classify(input, at, length, masks);
+            long quote = masks[QUOTE];
+            long backslash = masks[BACKSLASH];
+            long structural = masks[STRUCTURAL];
+            long whitespace = masks[WHITESPACE];
+            if (length < 64) whitespace |= -1L << length; // past the end reads as whitespace
+
+            long rawBackslash = backslash;
+
+            // a character is escaped when an odd run of backslashes ends right before it
+            backslash &= ~prevEscaped;
+            long followsEscape = backslash << 1 | prevEscaped;
+            long oddStarts = backslash & ~EVEN_BITS & ~followsEscape;
+            long sequences = oddStarts + backslash;
+            prevEscaped = Long.compareUnsigned(sequences, oddStarts) < 0 ? 1 : 0; // carry out of the add
+            long escaped = (EVEN_BITS ^ (sequences << 1)) & followsEscape;
+            quote &= ~escaped;
+
+            // bytes from an opening quote up to (not including) its closing quote
+            long inString = prefixXor(quote) ^ prevInString;
+            prevInString = inString >> 63;
+
+            long scalar = ~(structural | whitespace | quote | inString);
+            long scalarStarts = scalar & ~(scalar << 1 | prevScalar);
+            prevScalar = scalar >>> 63;
+
+            long bits = (structural & ~inString) | (quote & inString) | scalarStarts;
+            if (size + 64 > positions.length) positions = Arrays.copyOf(positions, positions.length * 2);
+            size = flatten(bits, at, positions, size);
+            long inStringEscapes = rawBackslash & inString;
+            while (inStringEscapes != 0) {
+                if (escapeCount == escapes.length) escapes = Arrays.copyOf(escapes, escapeCount * 2);
+                escapes[escapeCount++] = at + Long.numberOfTrailingZeros(inStringEscapes);
+                inStringEscapes &= inStringEscapes - 1;
+            }
+        }
+        return new StructuralIndex(positions, size, escapes, escapeCount, prevInString != 0);
+    }
+
+    // Appends at + i for every set bit i. Positions are written four at a time whatever the count, as in
+    // simdjson, which keeps the loop free of a branch per bit; the slots past the last one are scratch.
+    private static int flatten(long bits, int at, int[] positions, int size) {
+        int end = size + Long.bitCount(bits);
+        while (bits != 0) {
+            positions[size] = at + Long.numberOfTrailingZeros(bits);
+            bits &= bits - 1;
+            positions[size + 1] = at + Long.numberOfTrailingZeros(bits);
+            bits &= bits - 1;
+            positions[size + 2] = at + Long.numberOfTrailingZeros(bits);
+            bits &= bits - 1;
+            positions[size + 3] = at + Long.numberOfTrailingZeros(bits);
+            bits &= bits - 1;
+            size += 4;
+        }
+        return end;
+    }
+
+    // Bit i of the result is the XOR of bits 0..i
+    private static long prefixXor(long bits) {
+        bits ^= bits << 1;
+        bits ^= bits << 2;
+        bits ^= bits << 4;
+        bits ^= bits << 8;
+        bits ^= bits << 16;
+        bits ^= bits << 32;
+        return bits;
+    }
+
+    // Class bits of every byte value: 1 << QUOTE, 1 << BACKSLASH, ...
+    private static final byte[] CLASSES = new byte[256];
+
+    static {
+        CLASSES['"'] = 1 << QUOTE;
+        CLASSES['\\'] = 1 << BACKSLASH;
+        for (char c : "{}[]:,".toCharArray()) CLASSES[c] = 1 << STRUCTURAL;
+        for (char c : " \t\n\r".toCharArray()) CLASSES[c] = 1 << WHITESPACE;
+    }
+
+    // Table lookups and shifts only, so the loop does not depend on branch prediction
+    static void classifyScalar(ByteBuffer input, int at, int length, long[] masks) {
+        long quote = 0, backslash = 0, structural = 0, whitespace = 0;
+        for (int i = 0; i < length; i++) {
+            long classes = CLASSES[input.get(at + i) & 0xFF];
+            quote |= (classes >>> QUOTE & 1) << i;
+            backslash |= (classes >>> BACKSLASH & 1) << i;
+            structural |= (classes >>> STRUCTURAL & 1) << i;
+            whitespace |= (classes >>> WHITESPACE & 1) << i;
+        }
+        masks[QUOTE] = quote;
+        masks[BACKSLASH] = backslash;
+        masks[STRUCTURAL] = structural;
+        masks[WHITESPACE] = whitespace;
+    }
+
+    private static StructuralIndexer loadVector() {
+        try {
+            // loading the class fails when jdk.incubator.vector is not in the module graph
+            Class<?> type = Class.forName("parser.json.VectorStructuralIndexer");
+            StructuralIndexer indexer = (StructuralIndexer) type.getDeclaredConstructor().newInstance();
+            return indexer.isVectorized() ? indexer : null;
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    private static StructuralIndexer configure(String flag) {
+        if ("true".equalsIgnoreCase(flag)) return VECTOR != null ? VECTOR : SCALAR;
+        if ("scalar".equalsIgnoreCase(flag)) return SCALAR;
+        return null;
+    }
+}
@@ -0,0 +1,76 @@
+package parser.json;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+// Classifies a 64-byte block with one 512-bit, two 256-bit or four 128-bit compares per character
+// class, whichever the CPU prefers. Only loaded through StructuralIndexer, so the rest of the library
+// works without jdk.incubator.vector.
+final class VectorStructuralIndexer extends StructuralIndexer {
+    private static final VectorSpecies<Byte> BYTES = ByteVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Long> LONGS = BYTES.withLanes(long.class);
+
+    // byte i of a vector holds bit i % 8; long lane j is shifted to bits 8j..8j+7 of the mask
+    private static final ByteVector BIT_WEIGHTS;
+    private static final LongVector LANE_SHIFTS;
+
+    static {
+        byte[] weights = new byte[BYTES.length()];
+        for (int i = 0; i < weights.length; i++) weights[i] = (byte) (1 << (i & 7));
+        BIT_WEIGHTS = ByteVector.fromArray(BYTES, weights, 0);
+        long[] shifts = new long[LONGS.length()];
+        for (int i = 0; i < shifts.length; i++) shifts[i] = 8L * i;
+        LANE_SHIFTS = LongVector.fromArray(LONGS, shifts, 0);
+    }
+
+    @Override
+    public boolean isVectorized() {
+        return BYTES.length() >= 16 && BYTES.length() <= 64; // below 128 bits the scalar loop is as fast
+    }
+
+    @Override
+    void classify(ByteBuffer input, int at, int length, long[] masks) {
+        if (length < 64) {
+            classifyScalar(input, at, length, masks);
+            return;
+        }
+        long quote = 0, backslash = 0, structural = 0, whitespace = 0;
+        for (int k = 0; k < 64; k += BYTES.length()) {
+            ByteVector v = ByteVector.fromByteBuffer(BYTES, input, at + k, ByteOrder.LITTLE_ENDIAN);
+            // '[' and '{', ']' and '}' differ only in bit 0x20
+            ByteVector folded = v.or((byte) 0x20);
+            quote |= bits(v.eq((byte) '"')) << k;
+            backslash |= bits(v.eq((byte) '\\')) << k;
+            structural |= bits(folded.eq((byte) '{')
+                    .or(folded.eq((byte) '}'))
+                    .or(v.eq((byte) ':'))
+                    .or(v.eq((byte) ','))) << k;
+            whitespace |= bits(v.eq((byte) ' ')
+                    .or(v.eq((byte) '\n'))
+                    .or(v.eq((byte) '\r'))
+                    .or(v.eq((byte) '\t'))) << k;
+        }
+        masks[QUOTE] = quote;
+        masks[BACKSLASH] = backslash;
+        masks[STRUCTURAL] = structural;
+        masks[WHITESPACE] = whitespace;
+    }
+
+    // Same result as mask.toLong(), which JDK 17 does not compile to vector instructions: each long lane
+    // gathers its eight bits with one multiply, and the lanes are shifted into place and ORed together
+    private static long bits(VectorMask<Byte> mask) {
+        if (!mask.anyTrue()) return 0;
+        return ByteVector.zero(BYTES).blend(BIT_WEIGHTS, mask)
+                .reinterpretAsLongs()
+                .lanewise(VectorOperators.MUL, 0x0101_0101_0101_0101L)
+                .lanewise(VectorOperators.LSHR, 56)
+                .lanewise(VectorOperators.LSHL, LANE_SHIFTS)
+                .reduceLanes(VectorOperators.OR);
+    }
+}
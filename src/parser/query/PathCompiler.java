@@ -0,0 +1,257 @@
+package parser.query;
+
+import parser.core.Numbers;
+import parser.core.ParseException;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+// Recursive descent compiler for path expressions:
+//
+//   path     ::= ('$' | '@') segment*
+//   segment  ::= '.' name | '.*' | '..' (name | '*' | bracket) | bracket
+//   bracket  ::= '[' ('*' | selector (',' selector)* | slice | '?(' filter ')') ']'
+//   selector ::= integer | 'name' | "name"
+//   filter   ::= and ('||' and)*       and ::= unary ('&&' unary)*
+//   unary    ::= '!' unary | '(' filter ')' | operand (op operand)?
+//   operand  ::= '@' segment* | number | string | true | false | null
+class PathCompiler {
+    private final String text;
+    private int pos = 0;
+
+    PathCompiler(String text) {
+        this.text = text;
+    }
+
+    PathQuery compile() {
+        skipBlanks();
+        if (!take('$')) throw error("Path must start with '$'");
+        PathQuery query = path(0);
+        skipBlanks();
+        if (pos < text.length()) throw error("Unexpected character '" + text.charAt(pos) + "'");
+        return query;
+    }
+
+    // Segments up to the first character that cannot continue the path
+    private PathQuery path(int start) {
+        List<PathStep> steps = new ArrayList<>();
+        while (pos < text.length()) {
+            char c = text.charAt(pos);
+            if (c == '.') {
+                pos++;
+                if (take('.')) {
+                    steps.add(new PathStep.Descendants(afterDot(true)));
+                } else {
+                    steps.add(afterDot(false));
+                }
+            } else if (c == '[') {
+                steps.add(bracket());
+            } else {
+                break;
+            }
+        }
+        return new PathQuery(text.substring(start, pos), steps.toArray(new PathStep[0]));
+    }
+
+    private PathStep afterDot(boolean descendants) {
+        if (take('*')) return new PathStep.Wildcard();
+        if (descendants && pos < text.length() && text.charAt(pos) == '[') return bracket();
+        int start = pos;
+        while (pos < text.length() && isNameChar(text.charAt(pos))) pos++;
+        if (pos == start) throw error("Expected a name");
+        return new PathStep.Field(text.substring(start, pos));
+    }
+
+    private PathStep bracket() {
+        expect('[');
+        skipBlanks();
+        PathStep step;
+        if (take('*')) {
+            step = new PathStep.Wildcard();
+        } else if (take('?')) {
+            skipBlanks();
+            expect('(');
+            PathFilter filter = or();
+            skipBlanks();
+            expect(')');
+            step = new PathStep.Filter(filter);
+        } else {
+            step = selectors();
+        }
+        skipBlanks();
+        expect(']');
+        return step;
+    }
+
+    // [0], [-1], [1:3], ['a'], [0,2,'b']
+    private PathStep selectors() {
+        List<PathStep> parts = new ArrayList<>();
+        do {
+            skipBlanks();
+            if (peekQuote()) {
+                parts.add(new PathStep.Field(quoted()));
+            } else {
+                Integer first = pos < text.length() && text.charAt(pos) == ':' ? null : integer();
+                skipBlanks();
+                if (take(':')) {
+                    if (!parts.isEmpty()) throw error("A slice cannot be part of a union");
+                    skipBlanks();
+                    Integer end = pos < text.length() && text.charAt(pos) == ']' ? null : integer();
+                    return new PathStep.Slice(first, end);
+                }
+                parts.add(new PathStep.Index(first));
+            }
+            skipBlanks();
+        } while (take(','));
+        return parts.size() == 1 ? parts.get(0) : new PathStep.Union(parts.toArray(new PathStep[0]));
+    }
+
+    private PathFilter or() {
+        PathFilter left = and();
+        while (takeOperator("||")) left = new PathFilter.Or(left, and());
+        return left;
+    }
+
+    private PathFilter and() {
+        PathFilter left = unary();
+        while (takeOperator("&&")) left = new PathFilter.And(left, unary());
+        return left;
+    }
+
+    private PathFilter unary() {
+        skipBlanks();
+        if (pos < text.length() && text.charAt(pos) == '!' && !text.startsWith("!=", pos)) {
+            pos++;
+            return new PathFilter.Not(unary());
+        }
+        if (take('(')) {
+            PathFilter inner = or();
+            skipBlanks();
+            expect(')');
+            return inner;
+        }
+        int leftStart = pos;
+        PathQuery leftPath = operandPath();
+        Object leftLiteral = leftPath == null ? literal() : null;
+        PathFilter.Operator operator = operator();
+        if (operator == null) {
+            if (leftPath == null) {
+                pos = leftStart;
+                throw error("Expected a comparison");
+            }
+            return new PathFilter.Exists(leftPath);
+        }
+        PathQuery rightPath = operandPath();
+        Object rightLiteral = rightPath == null ? literal() : null;
+        return new PathFilter.Compare(leftPath, leftLiteral, operator, rightPath, rightLiteral);
+    }
+
+    private PathQuery operandPath() {
+        skipBlanks();
+        if (!take('@')) return null;
+        return path(pos - 1);
+    }
+
+    private PathFilter.Operator operator() {
+        skipBlanks();
+        if (takeOperator("==")) return PathFilter.Operator.EQ;
+        if (takeOperator("!=")) return PathFilter.Operator.NE;
+        if (takeOperator("<=")) return PathFilter.Operator.LE;
+        if (takeOperator(">=")) return PathFilter.Operator.GE;
+        if (takeOperator("<")) return PathFilter.Operator.LT;
+        if (takeOperator(">")) return PathFilter.Operator.GT;
+        return null;
+    }
+
+    private Object literal() {
+        skipBlanks();
+        if (peekQuote()) return quoted();
+        for (String word : new String[]{"true", "false", "null"}) {
+            if (text.startsWith(word, pos)) {
+                pos += word.length();
+                return word.equals("null") ? null : Boolean.valueOf(word);
+            }
+        }
+        int start = pos;
+        while (pos < text.length() && "+-.eE0123456789".indexOf(text.charAt(pos)) >= 0) pos++;
+        Object number = number(text.substring(start, pos));
+        if (number == null) {
+            pos = start;
+            throw error("Expected a literal");
+        }
+        return number;
+    }
+
+    // Long when the text is an integer that fits, Double for other JSON numbers (also integers beyond
+    // the long range, which are compared as doubles), null otherwise
+    static Object number(String s) {
+        if (!Numbers.isNumber(s)) return null;
+        Number value = Numbers.parse(s);
+        return value instanceof BigInteger ? (Object) value.doubleValue() : value;
+    }
+
+    private Integer integer() {
+        int start = pos;
+        if (pos < text.length() && text.charAt(pos) == '-') pos++;
+        while (pos < text.length() && isDigit(text.charAt(pos))) pos++;
+        try {
+            return Integer.parseInt(text.substring(start, pos));
+        } catch (NumberFormatException e) {
+            pos = start;
+            throw error("Expected a position");
+        }
+    }
+
+    // 'text' or "text"; a backslash escapes the next character
+    private String quoted() {
+        char quote = text.charAt(pos++);
+        StringBuilder sb = new StringBuilder();
+        while (pos < text.length()) {
+            char c = text.charAt(pos++);
+            if (c == quote) return sb.toString();
+            if (c == '\\' && pos < text.length()) c = text.charAt(pos++);
+            sb.append(c);
+        }
+        throw error("Unterminated string");
+    }
+
+    private boolean peekQuote() {
+        return pos < text.length() && (text.charAt(pos) == '\'' || text.charAt(pos) == '"');
+    }
+
+    private boolean takeOperator(String operator) {
+        skipBlanks();
+        if (!text.startsWith(operator, pos)) return false;
+        pos += operator.length();
+        return true;
+    }
+
+    private boolean take(char c) {
+        if (pos < text.length() && text.charAt(pos) == c) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(char c) {
+        if (!take(c)) throw error("Expected '" + c + "'");
+    }
+
+    private void skipBlanks() {
+        while (pos < text.length() && text.charAt(pos) == ' ') pos++;
+    }
+
+    private static boolean isNameChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '-' || c == '$';
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private ParseException error(String message) {
+        return new ParseException(message + " at position " + pos + " in path: " + text);
+    }
+}
@@ -0,0 +1,150 @@
+package parser.query;
+
+import parser.core.LeafNode;
+import parser.core.Node;
+import parser.core.NumberLeafNode;
+
+// Condition of a [?(...)] step, evaluated against each child in turn. Relative paths (@.a.b) are
+// compiled queries themselves and only look for their first match.
+//
+// Comparisons are typed by the values: numbers compare numerically, strings and booleans as such.
+// A string that reads as a number, boolean or null compares as one, which makes the filters work on
+// YAML trees where every scalar is a string. Comparing with a missing value is always false.
+abstract class PathFilter {
+    private static final Object MISSING = new Object();
+
+    abstract boolean test(Node node);
+
+    static final class And extends PathFilter {
+        final PathFilter left;
+        final PathFilter right;
+
+        And(PathFilter left, PathFilter right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        boolean test(Node node) {
+            return left.test(node) && right.test(node);
+        }
+    }
+
+    static final class Or extends PathFilter {
+        final PathFilter left;
+        final PathFilter right;
+
+        Or(PathFilter left, PathFilter right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        boolean test(Node node) {
+            return left.test(node) || right.test(node);
+        }
+    }
+
+    static final class Not extends PathFilter {
+        final PathFilter filter;
+
+        Not(PathFilter filter) {
+            this.filter = filter;
+        }
+
+        @Override
+        boolean test(Node node) {
+            return !filter.test(node);
+        }
+    }
+
+    // [?(@.name)]: the relative path matches something
+    static final class Exists extends PathFilter {
+        final PathQuery path;
+
+        Exists(PathQuery path) {
+            this.path = path;
+        }
+
+        @Override
+        boolean test(Node node) {
+            return path.matches(node);
+        }
+    }
+
+    enum Operator {
+        EQ, NE, LT, LE, GT, GE
+    }
+
+    // Either side is a relative path or a literal (Long, Double, String, Boolean or null)
+    static final class Compare extends PathFilter {
+        final PathQuery leftPath;
+        final Object leftLiteral;
+        final Operator operator;
+        final PathQuery rightPath;
+        final Object rightLiteral;
+
+        Compare(PathQuery leftPath, Object leftLiteral, Operator operator, PathQuery rightPath, Object rightLiteral) {
+            this.leftPath = leftPath;
+            this.leftLiteral = leftLiteral;
+            this.operator = operator;
+            this.rightPath = rightPath;
+            this.rightLiteral = rightLiteral;
+        }
+
+        @Override
+        boolean test(Node node) {
+            Object left = leftPath == null ? leftLiteral : valueOf(leftPath.first(node));
+            if (left == MISSING) return false;
+            Object right = rightPath == null ? rightLiteral : valueOf(rightPath.first(node));
+            if (right == MISSING) return false;
+            Integer order = compare(left, right);
+            switch (operator) {
+                case EQ: return order != null && order == 0;
+                case NE: return order == null || order != 0;
+                case LT: return order != null && order < 0;
+                case LE: return order != null && order <= 0;
+                case GT: return order != null && order > 0;
+                default: return order != null && order >= 0;
+            }
+        }
+    }
+
+    // Value of a leaf, MISSING for no node or a container
+    private static Object valueOf(Node node) {
+        if (node instanceof NumberLeafNode) {
+            NumberLeafNode number = (NumberLeafNode) node;
+            return number.isIntegral() ? (Object) number.longValue() : (Object) number.doubleValue();
+        }
+        if (node instanceof LeafNode) return ((LeafNode) node).getValue();
+        return MISSING;
+    }
+
+    // Order of two values, null when they cannot be compared
+    static Integer compare(Object left, Object right) {
+        if (left instanceof String && !(right instanceof String)) left = coerce((String) left);
+        if (right instanceof String && !(left instanceof String)) right = coerce((String) right);
+        if (left == null || right == null) return left == right ? 0 : null;
+        if (left instanceof Number && right instanceof Number) {
+            if (left instanceof Long && right instanceof Long) return Long.compare((Long) left, (Long) right);
+            return Double.compare(((Number) left).doubleValue(), ((Number) right).doubleValue());
+        }
+        if (left instanceof String && right instanceof String) return ((String) left).compareTo((String) right);
+        if (left instanceof Boolean && right instanceof Boolean) return Boolean.compare((Boolean) left, (Boolean) right);
+        return null;
+    }
+
+    // Reads a string scalar as the number, boolean or null it spells; any other string stays a string
+    // and does not compare with non-strings
+    private static Object coerce(String text) {
+        switch (text) {
+            case "true": return Boolean.TRUE;
+            case "false": return Boolean.FALSE;
+            case "null":
+            case "~": return null;
+            default:
+                Object number = PathCompiler.number(text);
+                return number != null ? number : text;
+        }
+    }
+}
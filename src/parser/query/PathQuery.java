@@ -0,0 +1,77 @@
+package parser.query;
+
+import parser.core.Node;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// JSONPath-style query, compiled once into a list of steps and then run against any Node tree:
+//
+//   $.users[*].address.city     $..id     $.items[0]     $.items[-1]     $.items[1:3]
+//   $['first name']             $.a[0,2]  $.orders[?(@.total > 100 && @.status == 'open')]
+//
+// A compiled query keeps no state between runs, so it can be shared by any number of threads.
+// Named steps use CompositeNode.get, which is backed by a hash index on wide nodes, and first()
+// stops walking the tree at the first match.
+public class PathQuery {
+    private final String expression;
+    private final PathStep[] steps;
+
+    PathQuery(String expression, PathStep[] steps) {
+        this.expression = expression;
+        this.steps = steps;
+    }
+
+    // Throws ParseException when the expression is not valid
+    public static PathQuery compile(String expression) {
+        return new PathCompiler(expression).compile();
+    }
+
+    // All matches, in document order
+    public List<Node> select(Node root) {
+        List<Node> matches = new ArrayList<>();
+        walk(0, root, node -> {
+            matches.add(node);
+            return true;
+        });
+        return matches;
+    }
+
+    // First match, or null; the rest of the tree is not visited
+    public Node first(Node root) {
+        Node[] found = new Node[1];
+        walk(0, root, node -> {
+            found[0] = node;
+            return false;
+        });
+        return found[0];
+    }
+
+    public boolean matches(Node root) {
+        return first(root) != null;
+    }
+
+    public String getExpression() {
+        return expression;
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+
+    PathStep[] steps() {
+        return steps;
+    }
+
+    // Receives matches; returning false stops the walk
+    interface Sink {
+        boolean accept(Node node);
+    }
+
+    // Runs the steps from the given one on; false once the sink asked to stop
+    boolean walk(int step, Node node, Sink sink) {
+        if (step == steps.length) return sink.accept(node);
+        return steps[step].apply(this, step + 1, node, sink);
+    }
+}
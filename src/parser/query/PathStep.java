@@ -0,0 +1,147 @@
+package parser.query;
+
+import parser.core.CompositeNode;
+import parser.core.Node;
+
+import java.util.List;
+
+// One step of a compiled path: takes a node and hands each node it selects to the following steps
+abstract class PathStep {
+
+    // Returns false when the sink asked to stop
+    abstract boolean apply(PathQuery query, int next, Node node, PathQuery.Sink sink);
+
+    // .name or ['name']: every child with the name, through CompositeNode's index. Objects have
+    // one at most; repeated XML elements each match.
+    static final class Field extends PathStep {
+        final String name;
+
+        Field(String name) {
+            this.name = name;
+        }
+
+        @Override
+        boolean apply(PathQuery query, int next, Node node, PathQuery.Sink sink) {
+            if (!(node instanceof CompositeNode)) return true;
+            CompositeNode composite = (CompositeNode) node;
+            for (int i = composite.indexOf(name, 0); i >= 0; i = composite.indexOf(name, i + 1)) {
+                if (!query.walk(next, composite.get(i), sink)) return false;
+            }
+            return true;
+        }
+    }
+
+    // .* or [*]
+    static final class Wildcard extends PathStep {
+        @Override
+        boolean apply(PathQuery query, int next, Node node, PathQuery.Sink sink) {
+            List<Node> children = node.getChildren();
+            for (int i = 0; i < children.size(); i++) {
+                if (!query.walk(next, children.get(i), sink)) return false;
+            }
+            return true;
+        }
+    }
+
+    // [n] of an array, negative positions count from the end
+    static final class Index extends PathStep {
+        final int position;
+
+        Index(int position) {
+            this.position = position;
+        }
+
+        @Override
+        boolean apply(PathQuery query, int next, Node node, PathQuery.Sink sink) {
+            if (!(node instanceof CompositeNode) || !((CompositeNode) node).isArray()) return true;
+            CompositeNode composite = (CompositeNode) node;
+            int i = position < 0 ? composite.size() + position : position;
+            return i < 0 || i >= composite.size() || query.walk(next, composite.get(i), sink);
+        }
+    }
+
+    // [start:end] of an array, either bound may be left out or negative
+    static final class Slice extends PathStep {
+        final Integer start;
+        final Integer end;
+
+        Slice(Integer start, Integer end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        boolean apply(PathQuery query, int next, Node node, PathQuery.Sink sink) {
+            if (!(node instanceof CompositeNode) || !((CompositeNode) node).isArray()) return true;
+            CompositeNode composite = (CompositeNode) node;
+            int size = composite.size();
+            int from = bound(start, 0, size);
+            int to = bound(end, size, size);
+            for (int i = from; i < to; i++) {
+                if (!query.walk(next, composite.get(i), sink)) return false;
+            }
+            return true;
+        }
+
+        private static int bound(Integer value, int missing, int size) {
+            if (value == null) return missing;
+            int i = value < 0 ? size + value : value;
+            return Math.max(0, Math.min(size, i));
+        }
+    }
+
+    // [a,b] of names or positions, in the order written
+    static final class Union extends PathStep {
+        final PathStep[] parts;
+
+        Union(PathStep[] parts) {
+            this.parts = parts;
+        }
+
+        @Override
+        boolean apply(PathQuery query, int next, Node node, PathQuery.Sink sink) {
+            for (PathStep part : parts) {
+                if (!part.apply(query, next, node, sink)) return false;
+            }
+            return true;
+        }
+    }
+
+    // ..step: applies the step to the node and to every node below it
+    static final class Descendants extends PathStep {
+        final PathStep step;
+
+        Descendants(PathStep step) {
+            this.step = step;
+        }
+
+        @Override
+        boolean apply(PathQuery query, int next, Node node, PathQuery.Sink sink) {
+            if (!step.apply(query, next, node, sink)) return false;
+            List<Node> children = node.getChildren();
+            for (int i = 0; i < children.size(); i++) {
+                if (!apply(query, next, children.get(i), sink)) return false;
+            }
+            return true;
+        }
+    }
+
+    // [?(...)]: the children that satisfy the filter
+    static final class Filter extends PathStep {
+        final PathFilter filter;
+
+        Filter(PathFilter filter) {
+            this.filter = filter;
+        }
+
+        @Override
+        boolean apply(PathQuery query, int next, Node node, PathQuery.Sink sink) {
+            List<Node> children = node.getChildren();
+            for (int i = 0; i < children.size(); i++) {
+                Node child = children.get(i);
+                if (filter.test(child) && !query.walk(next, child, sink)) return false;
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package parser.query;
+
+import parser.core.ParseException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Set of paths a parser should keep, compiled into a tree of names that a streaming parser can follow
+// while it reads: at each level it asks which branch a key or array position leads to, and skips the
+// value unread when there is none.
+//
+//   Projection.of("$.id", "$.users[*].name", "$.meta")
+//
+// Only the steps a parser can decide before seeing the rest of the document are allowed: names,
+// wildcards, non-negative positions and unions of those. A path that ends on a container keeps the
+// whole container. Once built a projection is read-only and can be shared between threads.
+public class Projection {
+    private boolean all; // the value is kept whole
+    private final List<String> names = new ArrayList<>();
+    private final List<Projection> fields = new ArrayList<>();
+    private final List<Integer> positions = new ArrayList<>();
+    private final List<Projection> elements = new ArrayList<>();
+    private Projection any; // keys and positions with no branch of their own
+
+    private Projection() {
+    }
+
+    // Throws ParseException when a path is not valid or uses a step a projection cannot follow
+    public static Projection of(String... paths) {
+        PathQuery[] queries = new PathQuery[paths.length];
+        for (int i = 0; i < paths.length; i++) queries[i] = PathQuery.compile(paths[i]);
+        return of(queries);
+    }
+
+    public static Projection of(PathQuery... queries) {
+        Projection root = new Projection();
+        for (PathQuery query : queries) root.add(query, 0);
+        root.seal();
+        return root;
+    }
+
+    // The whole value is selected, so the parser builds it as usual
+    public boolean selectsAll() {
+        return all;
+    }
+
+    // Named branches; a key matching none of them follows any()
+    public int fieldCount() {
+        return names.size();
+    }
+
+    public String fieldName(int i) {
+        return names.get(i);
+    }
+
+    public Projection field(int i) {
+        return fields.get(i);
+    }
+
+    // Branch for a key, or null when the member is not selected
+    public Projection field(String name) {
+        int i = names.indexOf(name);
+        return i >= 0 ? fields.get(i) : any;
+    }
+
+    // Branch for any other key or position, or null
+    public Projection any() {
+        return any;
+    }
+
+    // Branch for an array position, or null when the element is not selected
+    public Projection element(int position) {
+        for (int i = 0; i < positions.size(); i++) {
+            if (positions.get(i) == position) return elements.get(i);
+        }
+        return any;
+    }
+
+    private void add(PathQuery query, int from) {
+        PathStep[] steps = query.steps();
+        if (from == steps.length) {
+            all = true;
+            return;
+        }
+        addStep(query, steps[from], from);
+    }
+
+    private void addStep(PathQuery query, PathStep step, int from) {
+        if (step instanceof PathStep.Field) {
+            named(((PathStep.Field) step).name).add(query, from + 1);
+        } else if (step instanceof PathStep.Wildcard) {
+            wildcard().add(query, from + 1);
+        } else if (step instanceof PathStep.Index && ((PathStep.Index) step).position >= 0) {
+            positioned(((PathStep.Index) step).position).add(query, from + 1);
+        } else if (step instanceof PathStep.Union) {
+            for (PathStep part : ((PathStep.Union) step).parts) addStep(query, part, from);
+        } else {
+            throw new ParseException("Only names, wildcards and non-negative positions can be projected: " + query);
+        }
+    }
+
+    private Projection named(String name) {
+        int i = names.indexOf(name);
+        if (i >= 0) return fields.get(i);
+        Projection child = new Projection();
+        names.add(name);
+        fields.add(child);
+        return child;
+    }
+
+    private Projection positioned(int position) {
+        int i = positions.indexOf(position);
+        if (i >= 0) return elements.get(i);
+        Projection child = new Projection();
+        positions.add(position);
+        elements.add(child);
+        return child;
+    }
+
+    private Projection wildcard() {
+        if (any == null) any = new Projection();
+        return any;
+    }
+
+    // Folds the wildcard branch into every named and positioned one, so a lookup never has to
+    // combine two branches while parsing
+    private void seal() {
+        if (all) {
+            names.clear();
+            fields.clear();
+            positions.clear();
+            elements.clear();
+            any = null;
+            return;
+        }
+        if (any != null) {
+            for (Projection field : fields) field.merge(any);
+            for (Projection element : elements) element.merge(any);
+        }
+        for (Projection field : fields) field.seal();
+        for (Projection element : elements) element.seal();
+        if (any != null) any.seal();
+    }
+
+    private void merge(Projection other) {
+        if (other.all) all = true;
+        for (int i = 0; i < other.names.size(); i++) named(other.names.get(i)).merge(other.fields.get(i));
+        for (int i = 0; i < other.positions.size(); i++) positioned(other.positions.get(i)).merge(other.elements.get(i));
+        if (other.any != null) wildcard().merge(other.any);
+    }
+}
@@ -0,0 +1,123 @@
+package parser.tape;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// Keeps track of open containers, sibling links and the name table; subclasses only decide where
+// the node records and string values are stored
+abstract class AbstractTapeBuilder implements ITapeBuilder {
+    private final Map<String, Integer> nameIndex = new HashMap<>();
+    private String[] nameTable = new String[16];
+
+    // open containers and the last child added to each
+    private int[] open = new int[16];
+    private int[] lastChild = new int[16];
+    private int depth = 0;
+    private int size = 0;
+
+    // Stores a node record; parent and next sibling start as NO_NODE
+    protected abstract void writeNode(int node, TapeKind kind, int name, int parent, long value);
+
+    protected abstract void writeNext(int node, int next);
+
+    // Adds one to a container's child count
+    protected abstract void incrementChildren(int node);
+
+    // Stores a string value and returns what goes in its node's value slot
+    protected abstract long writeString(String value);
+
+    @Override
+    public void startObject(String name) {
+        push(add(TapeKind.OBJECT, name, 0));
+    }
+
+    @Override
+    public void startArray(String name) {
+        push(add(TapeKind.ARRAY, name, 0));
+    }
+
+    @Override
+    public void end() {
+        if (depth == 0) throw new IllegalStateException("No open container");
+        depth--;
+    }
+
+    @Override
+    public void string(String name, String value) {
+        if (value == null) nullValue(name);
+        else add(TapeKind.STRING, name, writeString(value));
+    }
+
+    @Override
+    public void longValue(String name, long value) {
+        add(TapeKind.LONG, name, value);
+    }
+
+    @Override
+    public void doubleValue(String name, double value) {
+        add(TapeKind.DOUBLE, name, Double.doubleToRawLongBits(value));
+    }
+
+    @Override
+    public void number(String name, String text) {
+        add(TapeKind.NUMBER, name, writeString(text));
+    }
+
+    @Override
+    public void bool(String name, boolean value) {
+        add(value ? TapeKind.TRUE : TapeKind.FALSE, name, 0);
+    }
+
+    @Override
+    public void nullValue(String name) {
+        add(TapeKind.NULL, name, 0);
+    }
+
+    protected int size() {
+        return size;
+    }
+
+    protected String[] names() {
+        return Arrays.copyOf(nameTable, nameIndex.size());
+    }
+
+    // Checks that the document is complete before it is handed out
+    protected void checkComplete() {
+        if (depth != 0) throw new IllegalStateException(depth + " container(s) still open");
+        if (size == 0) throw new IllegalStateException("Empty document");
+    }
+
+    private int add(TapeKind kind, String name, long value) {
+        if (depth == 0 && size > 0) throw new IllegalStateException("A document has a single root");
+        int node = size++;
+        int parent = depth == 0 ? ITapeDocument.NO_NODE : open[depth - 1];
+        writeNode(node, kind, name == null ? ITapeDocument.NO_NODE : nameOf(name), parent, value);
+        if (depth > 0) {
+            if (lastChild[depth - 1] != ITapeDocument.NO_NODE) writeNext(lastChild[depth - 1], node);
+            lastChild[depth - 1] = node;
+            incrementChildren(parent);
+        }
+        return node;
+    }
+
+    private void push(int node) {
+        if (depth == open.length) {
+            open = Arrays.copyOf(open, depth * 2);
+            lastChild = Arrays.copyOf(lastChild, depth * 2);
+        }
+        open[depth] = node;
+        lastChild[depth] = ITapeDocument.NO_NODE;
+        depth++;
+    }
+
+    private int nameOf(String name) {
+        Integer index = nameIndex.get(name);
+        if (index != null) return index;
+        int added = nameIndex.size();
+        if (added == nameTable.length) nameTable = Arrays.copyOf(nameTable, added * 2);
+        nameTable[added] = name;
+        nameIndex.put(name, added);
+        return added;
+    }
+}
@@ -0,0 +1,77 @@
+package parser.tape;
+
+import parser.core.CompositeNode;
+import parser.core.DoubleLeafNode;
+import parser.core.LeafNode;
+import parser.core.LongLeafNode;
+import parser.core.Node;
+import parser.core.RawNumberLeafNode;
+import parser.core.TreeWalker;
+
+// Receives a document in order: start a container, add its children, end it. Parsers write to this
+// so the same pass can fill an on-heap TapeDocument or an OffHeapDocument.
+public interface ITapeBuilder {
+
+    void startObject(String name);
+
+    void startArray(String name);
+
+    // Closes the innermost open container
+    void end();
+
+    void string(String name, String value);
+
+    void longValue(String name, long value);
+
+    void doubleValue(String name, double value);
+
+    // A number kept exactly as written
+    void number(String name, String text);
+
+    void bool(String name, boolean value);
+
+    void nullValue(String name);
+
+    // Copies a Node tree. Leaf values other than strings, booleans, null and the number nodes are
+    // stored as their toString(); the YAML indent of a node is not kept. The tree is walked with
+    // TreeWalker, so its depth is not limited by the call stack.
+    default void append(Node node) {
+        if (!(node instanceof CompositeNode)) {
+            appendLeaf(node);
+            return;
+        }
+        TreeWalker.walk((CompositeNode) node, new TreeWalker.Handler() {
+            @Override
+            public void enter(CompositeNode composite, CompositeNode parent, int index) {
+                if (composite.isArray()) startArray(composite.getName());
+                else startObject(composite.getName());
+            }
+
+            @Override
+            public void leaf(Node leaf, CompositeNode parent, int index) {
+                appendLeaf(leaf);
+            }
+
+            @Override
+            public void exit(CompositeNode composite, CompositeNode parent, int index) {
+                end();
+            }
+        });
+    }
+
+    private void appendLeaf(Node node) {
+        String name = node.getName();
+        if (node instanceof LongLeafNode) {
+            longValue(name, ((LongLeafNode) node).longValue());
+        } else if (node instanceof DoubleLeafNode) {
+            doubleValue(name, ((DoubleLeafNode) node).doubleValue());
+        } else if (node instanceof RawNumberLeafNode) {
+            number(name, ((RawNumberLeafNode) node).getText());
+        } else {
+            Object value = ((LeafNode) node).getValue();
+            if (value == null) nullValue(name);
+            else if (value instanceof Boolean) bool(name, (Boolean) value);
+            else string(name, value.toString());
+        }
+    }
+}
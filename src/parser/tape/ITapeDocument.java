@@ -0,0 +1,55 @@
+package parser.tape;
+
+// Read access to a document laid out as a tape. Nodes are addressed by their int position in
+// document order; the root is 0 and a container's first child directly follows it.
+public interface ITapeDocument {
+    int ROOT = 0;
+    int NO_NODE = -1;
+
+    // Number of nodes
+    int size();
+
+    TapeKind kind(int node);
+
+    // Name of the node, null for array entries and the root
+    String name(int node);
+
+    int parent(int node);
+
+    int nextSibling(int node);
+
+    int childCount(int node);
+
+    String stringValue(int node);
+
+    long longValue(int node);
+
+    double doubleValue(int node);
+
+    // Leaf value as LeafNode.getValue() would return it; containers have none
+    Object value(int node);
+
+    default int firstChild(int node) {
+        return childCount(node) > 0 ? node + 1 : NO_NODE;
+    }
+
+    // First child with the given name, or NO_NODE; a scan over the children
+    default int child(int node, String name) {
+        for (int child = firstChild(node); child != NO_NODE; child = nextSibling(child)) {
+            if (name.equals(name(child))) return child;
+        }
+        return NO_NODE;
+    }
+
+    // Child at a position, or NO_NODE
+    default int child(int node, int position) {
+        if (position < 0 || position >= childCount(node)) return NO_NODE;
+        int child = firstChild(node);
+        for (int i = 0; i < position; i++) child = nextSibling(child);
+        return child;
+    }
+
+    default TapeCursor cursor() {
+        return new TapeCursor(this, ROOT);
+    }
+}
@@ -0,0 +1,330 @@
+package parser.tape;
+
+import parser.core.CompositeNode;
+import parser.core.DoubleLeafNode;
+import parser.core.LeafNode;
+import parser.core.LongLeafNode;
+import parser.core.Node;
+import parser.core.RawNumberLeafNode;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+// Tape document kept outside the Java heap: node records and string bytes live in direct buffers
+// allocated in chunks, so a multi-GB document adds almost nothing for the collector to trace. Only
+// the table of distinct names stays on the heap. The memory is released by close(); the document
+// must not be read by other threads while it is being closed, and using it afterwards throws.
+public class OffHeapDocument implements ITapeDocument, AutoCloseable {
+    // node record: kind, name index, parent, next sibling (4 bytes each), then the 8 byte value slot
+    private static final int RECORD_SIZE = 24;
+    private static final int KIND = 0, NAME = 4, PARENT = 8, NEXT = 12, VALUE = 16;
+    private static final int NODE_CHUNK_SHIFT = 16; // 64K records, 1.5 MB per node chunk
+    private static final int NODE_CHUNK_MASK = (1 << NODE_CHUNK_SHIFT) - 1;
+    private static final int TEXT_CHUNK_SIZE = 1 << 20; // string bytes, longer strings get their own chunk
+
+    private final int size;
+    private final String[] nameTable;
+    private volatile ByteBuffer[] nodes; // null once closed
+    private volatile ByteBuffer[] text;
+
+    private OffHeapDocument(int size, String[] nameTable, ByteBuffer[] nodes, ByteBuffer[] text) {
+        this.size = size;
+        this.nameTable = nameTable;
+        this.nodes = nodes;
+        this.text = text;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    // Copies a Node tree off-heap; see ITapeBuilder.append for how leaves are stored
+    public static OffHeapDocument of(Node root) {
+        Builder builder = new Builder();
+        try {
+            builder.append(root);
+            return builder.build();
+        } catch (RuntimeException e) {
+            builder.discard();
+            throw e;
+        }
+    }
+
+    // Read-only Node view of the root. Containers expand one level at a time when their children are
+    // first read, so only the parts of the document that are visited get heap objects.
+    public Node root() {
+        return view(ROOT);
+    }
+
+    @Override
+    public void close() {
+        ByteBuffer[] nodes = this.nodes;
+        ByteBuffer[] text = this.text;
+        if (nodes == null) return;
+        this.nodes = null;
+        this.text = null;
+        for (ByteBuffer buffer : nodes) DirectMemory.free(buffer);
+        for (ByteBuffer buffer : text) DirectMemory.free(buffer);
+    }
+
+    public boolean isClosed() {
+        return nodes == null;
+    }
+
+    // Direct memory held by the document
+    public long memorySize() {
+        ByteBuffer[] text = this.text;
+        long total = 0;
+        for (ByteBuffer buffer : nodes()) total += buffer.capacity();
+        for (ByteBuffer buffer : text) total += buffer.capacity();
+        return total;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public TapeKind kind(int node) {
+        return TapeKind.of(record(node).get(offset(node) + KIND));
+    }
+
+    @Override
+    public String name(int node) {
+        int index = record(node).getInt(offset(node) + NAME);
+        return index < 0 ? null : nameTable[index];
+    }
+
+    @Override
+    public int parent(int node) {
+        return record(node).getInt(offset(node) + PARENT);
+    }
+
+    @Override
+    public int nextSibling(int node) {
+        return record(node).getInt(offset(node) + NEXT);
+    }
+
+    @Override
+    public int childCount(int node) {
+        return kind(node).isContainer() ? (int) slot(node) : 0;
+    }
+
+    @Override
+    public String stringValue(int node) {
+        TapeKind kind = kind(node);
+        if (kind == TapeKind.STRING || kind == TapeKind.NUMBER) return readString(slot(node));
+        throw new IllegalStateException("Not a string: " + kind);
+    }
+
+    @Override
+    public long longValue(int node) {
+        switch (kind(node)) {
+            case LONG: return slot(node);
+            case DOUBLE: return (long) doubleValue(node);
+            case NUMBER: return new RawNumberLeafNode(null, readString(slot(node))).longValue();
+            default: throw new IllegalStateException("Not a number: " + kind(node));
+        }
+    }
+
+    @Override
+    public double doubleValue(int node) {
+        switch (kind(node)) {
+            case LONG: return slot(node);
+            case DOUBLE: return Double.longBitsToDouble(slot(node));
+            case NUMBER: return Double.parseDouble(readString(slot(node)));
+            default: throw new IllegalStateException("Not a number: " + kind(node));
+        }
+    }
+
+    @Override
+    public Object value(int node) {
+        switch (kind(node)) {
+            case STRING: return readString(slot(node));
+            case LONG: return slot(node);
+            case DOUBLE: return doubleValue(node);
+            case NUMBER: return new RawNumberLeafNode(null, readString(slot(node))).getValue();
+            case TRUE: return Boolean.TRUE;
+            case FALSE: return Boolean.FALSE;
+            default: return null;
+        }
+    }
+
+    private Node view(int node) {
+        String name = name(node);
+        switch (kind(node)) {
+            case OBJECT: return new View(name, false, node);
+            case ARRAY: return new View(name, true, node);
+            case LONG: return new LongLeafNode(name, slot(node));
+            case DOUBLE: return new DoubleLeafNode(name, doubleValue(node));
+            case NUMBER: return new RawNumberLeafNode(name, readString(slot(node)));
+            default: return new LeafNode(name, value(node));
+        }
+    }
+
+    private ByteBuffer[] nodes() {
+        ByteBuffer[] nodes = this.nodes;
+        if (nodes == null) throw new IllegalStateException("Document is closed");
+        return nodes;
+    }
+
+    private ByteBuffer record(int node) {
+        if (node < 0 || node >= size) throw new IndexOutOfBoundsException("No node " + node);
+        return nodes()[node >>> NODE_CHUNK_SHIFT];
+    }
+
+    private static int offset(int node) {
+        return (node & NODE_CHUNK_MASK) * RECORD_SIZE;
+    }
+
+    private long slot(int node) {
+        return record(node).getLong(offset(node) + VALUE);
+    }
+
+    // A string reference is the text chunk in the high 32 bits and the offset of its length prefix
+    // in the low ones
+    private String readString(long ref) {
+        ByteBuffer[] text = this.text;
+        if (text == null) throw new IllegalStateException("Document is closed");
+        ByteBuffer chunk = text[(int) (ref >>> 32)];
+        int offset = (int) ref;
+        int length = chunk.getInt(offset);
+        byte[] bytes = new byte[length];
+        chunk.get(offset + 4, bytes, 0, length);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Container seen as a CompositeNode; its children are created from the records on first access
+    private final class View extends CompositeNode {
+        private final int node;
+        private boolean expanded = false;
+
+        View(String name, boolean isArray, int node) {
+            super(name, isArray);
+            this.node = node;
+        }
+
+        @Override
+        protected void materialize() {
+            if (expanded) return;
+            expanded = true;
+            for (int child = firstChild(node); child != NO_NODE; child = nextSibling(child)) {
+                super.addChild(view(child));
+            }
+        }
+
+        @Override
+        public void addChild(Node child) {
+            throw new UnsupportedOperationException("Off-heap documents are read-only");
+        }
+    }
+
+    // Writes the records and strings of a document into direct buffers. If building fails, discard()
+    // releases what was allocated so far.
+    public static class Builder extends AbstractTapeBuilder {
+        private final List<ByteBuffer> nodes = new ArrayList<>();
+        private final List<ByteBuffer> text = new ArrayList<>();
+        private ByteBuffer currentText;
+        private boolean done = false;
+
+        private Builder() {
+        }
+
+        public OffHeapDocument build() {
+            checkComplete();
+            done = true;
+            return new OffHeapDocument(size(), names(), nodes.toArray(new ByteBuffer[0]), text.toArray(new ByteBuffer[0]));
+        }
+
+        public void discard() {
+            if (done) return;
+            done = true;
+            for (ByteBuffer buffer : nodes) DirectMemory.free(buffer);
+            for (ByteBuffer buffer : text) DirectMemory.free(buffer);
+            nodes.clear();
+            text.clear();
+        }
+
+        @Override
+        protected void writeNode(int node, TapeKind kind, int name, int parent, long value) {
+            if (done) throw new IllegalStateException("Builder already finished");
+            int chunk = node >>> NODE_CHUNK_SHIFT;
+            if (chunk == nodes.size()) nodes.add(allocate(RECORD_SIZE << NODE_CHUNK_SHIFT));
+            ByteBuffer records = nodes.get(chunk);
+            int offset = offset(node);
+            records.put(offset + KIND, (byte) kind.ordinal());
+            records.putInt(offset + NAME, name);
+            records.putInt(offset + PARENT, parent);
+            records.putInt(offset + NEXT, NO_NODE);
+            records.putLong(offset + VALUE, value);
+        }
+
+        @Override
+        protected void writeNext(int node, int next) {
+            nodes.get(node >>> NODE_CHUNK_SHIFT).putInt(offset(node) + NEXT, next);
+        }
+
+        @Override
+        protected void incrementChildren(int node) {
+            ByteBuffer records = nodes.get(node >>> NODE_CHUNK_SHIFT);
+            int offset = offset(node) + VALUE;
+            records.putLong(offset, records.getLong(offset) + 1);
+        }
+
+        @Override
+        protected long writeString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            int needed = bytes.length + 4;
+            if (currentText == null || currentText.remaining() < needed) {
+                currentText = allocate(Math.max(TEXT_CHUNK_SIZE, needed));
+                text.add(currentText);
+            }
+            int offset = currentText.position();
+            currentText.putInt(bytes.length).put(bytes);
+            return ((long) (text.size() - 1) << 32) | offset;
+        }
+
+        private static ByteBuffer allocate(int capacity) {
+            return ByteBuffer.allocateDirect(capacity).order(ByteOrder.nativeOrder());
+        }
+    }
+
+    // Releases a direct buffer right away through sun.misc.Unsafe.invokeCleaner. Where that is not
+    // available the buffer is left to the collector, which frees it once it is unreachable.
+    private static final class DirectMemory {
+        private static final Object UNSAFE;
+        private static final Method INVOKE_CLEANER;
+
+        static {
+            Object unsafe = null;
+            Method invokeCleaner = null;
+            try {
+                Class<?> type = Class.forName("sun.misc.Unsafe");
+                Field field = type.getDeclaredField("theUnsafe");
+                field.setAccessible(true);
+                unsafe = field.get(null);
+                invokeCleaner = type.getMethod("invokeCleaner", ByteBuffer.class);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                unsafe = null;
+                invokeCleaner = null;
+            }
+            UNSAFE = unsafe;
+            INVOKE_CLEANER = invokeCleaner;
+        }
+
+        static void free(ByteBuffer buffer) {
+            if (INVOKE_CLEANER == null || !buffer.isDirect()) return;
+            try {
+                INVOKE_CLEANER.invoke(UNSAFE, buffer);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                // left to the collector
+            }
+        }
+    }
+}
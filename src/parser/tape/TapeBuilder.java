@@ -0,0 +1,73 @@
+package parser.tape;
+
+import java.util.Arrays;
+
+// Appends nodes to an on-heap tape in document order: start a container, add its children, end it.
+// Names go through a small table, so a key repeated across records is stored once.
+public class TapeBuilder extends AbstractTapeBuilder {
+    private byte[] kinds;
+    private int[] names;
+    private int[] parents;
+    private int[] next;
+    private long[] values;
+
+    private String[] strings = new String[16];
+    private int stringCount = 0;
+
+    public TapeBuilder() {
+        this(64);
+    }
+
+    public TapeBuilder(int expectedNodes) {
+        int capacity = Math.max(expectedNodes, 16);
+        kinds = new byte[capacity];
+        names = new int[capacity];
+        parents = new int[capacity];
+        next = new int[capacity];
+        values = new long[capacity];
+    }
+
+    public TapeDocument build() {
+        checkComplete();
+        int size = size();
+        return new TapeDocument(size, Arrays.copyOf(kinds, size), Arrays.copyOf(names, size),
+                Arrays.copyOf(parents, size), Arrays.copyOf(next, size), Arrays.copyOf(values, size),
+                names(), Arrays.copyOf(strings, stringCount));
+    }
+
+    @Override
+    protected void writeNode(int node, TapeKind kind, int name, int parent, long value) {
+        if (node == kinds.length) grow();
+        kinds[node] = (byte) kind.ordinal();
+        names[node] = name;
+        parents[node] = parent;
+        next[node] = ITapeDocument.NO_NODE;
+        values[node] = value;
+    }
+
+    @Override
+    protected void writeNext(int node, int next) {
+        this.next[node] = next;
+    }
+
+    @Override
+    protected void incrementChildren(int node) {
+        values[node]++; // containers count their children in the value slot
+    }
+
+    @Override
+    protected long writeString(String value) {
+        if (stringCount == strings.length) strings = Arrays.copyOf(strings, stringCount * 2);
+        strings[stringCount] = value;
+        return stringCount++;
+    }
+
+    private void grow() {
+        int capacity = kinds.length * 2;
+        kinds = Arrays.copyOf(kinds, capacity);
+        names = Arrays.copyOf(names, capacity);
+        parents = Arrays.copyOf(parents, capacity);
+        next = Arrays.copyOf(next, capacity);
+        values = Arrays.copyOf(values, capacity);
+    }
+}
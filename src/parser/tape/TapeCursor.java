@@ -0,0 +1,77 @@
+package parser.tape;
+
+// Moves over a tape document without creating nodes. The move methods return false and stay in place
+// when there is nowhere to go.
+public class TapeCursor {
+    private final ITapeDocument document;
+    private int node;
+
+    TapeCursor(ITapeDocument document, int node) {
+        this.document = document;
+        this.node = node;
+    }
+
+    public int node() {
+        return node;
+    }
+
+    public void moveTo(int node) {
+        if (node < 0 || node >= document.size()) throw new IndexOutOfBoundsException("No node " + node);
+        this.node = node;
+    }
+
+    public boolean firstChild() {
+        return move(document.firstChild(node));
+    }
+
+    public boolean nextSibling() {
+        return move(document.nextSibling(node));
+    }
+
+    public boolean parent() {
+        return move(document.parent(node));
+    }
+
+    // Moves to the child with the given name
+    public boolean child(String name) {
+        return move(document.child(node, name));
+    }
+
+    public boolean child(int position) {
+        return move(document.child(node, position));
+    }
+
+    public TapeKind kind() {
+        return document.kind(node);
+    }
+
+    public String name() {
+        return document.name(node);
+    }
+
+    public int childCount() {
+        return document.childCount(node);
+    }
+
+    public String stringValue() {
+        return document.stringValue(node);
+    }
+
+    public long longValue() {
+        return document.longValue(node);
+    }
+
+    public double doubleValue() {
+        return document.doubleValue(node);
+    }
+
+    public Object value() {
+        return document.value(node);
+    }
+
+    private boolean move(int target) {
+        if (target == ITapeDocument.NO_NODE) return false;
+        node = target;
+        return true;
+    }
+}
@@ -0,0 +1,184 @@
+package parser.tape;
+
+import parser.core.CompositeNode;
+import parser.core.DoubleLeafNode;
+import parser.core.LeafNode;
+import parser.core.LongLeafNode;
+import parser.core.Node;
+import parser.core.RawNumberLeafNode;
+
+import java.util.Arrays;
+
+// Compact alternative to a Node tree: the nodes are laid out in document order in parallel primitive
+// arrays (kind, name index, parent, next sibling, value slot), so a document costs about 21 bytes per
+// node plus its distinct names and string values, instead of an object, a list and a boxed value per
+// node. Nodes are addressed by their int position; the root is 0 and a container's first child
+// directly follows it. The value slot holds the long, the double's bits, the index of a string or
+// number text, or a container's child count. The document is immutable once built.
+public class TapeDocument implements ITapeDocument {
+    private final int size;
+    private final byte[] kinds;
+    private final int[] names;
+    private final int[] parents;
+    private final int[] next;
+    private final long[] values;
+    private final String[] nameTable;
+    private final String[] strings;
+
+    TapeDocument(int size, byte[] kinds, int[] names, int[] parents, int[] next, long[] values,
+                 String[] nameTable, String[] strings) {
+        this.size = size;
+        this.kinds = kinds;
+        this.names = names;
+        this.parents = parents;
+        this.next = next;
+        this.values = values;
+        this.nameTable = nameTable;
+        this.strings = strings;
+    }
+
+    // Copies a Node tree onto a tape; see ITapeBuilder.append for how leaves are stored
+    public static TapeDocument of(Node root) {
+        TapeBuilder builder = new TapeBuilder();
+        builder.append(root);
+        return builder.build();
+    }
+
+    // Rebuilds the Node tree, with the same node classes the parsers produce
+    public Node toNode() {
+        return toNode(ROOT);
+    }
+
+    // One pass over the subtree, which is the run of nodes that follows it on the tape: each node's
+    // parent is on the stack of open containers, so deep documents need no recursion
+    public Node toNode(int node) {
+        Node root = single(node);
+        if (!(root instanceof CompositeNode)) return root;
+        int[] open = new int[16];
+        CompositeNode[] composites = new CompositeNode[16];
+        open[0] = node;
+        composites[0] = (CompositeNode) root;
+        int depth = 1;
+        for (int i = node + 1; i < size; i++) {
+            while (depth > 0 && open[depth - 1] != parents[i]) depth--;
+            if (depth == 0) break; // past the end of the subtree
+            Node child = single(i);
+            composites[depth - 1].addChild(child);
+            if (child instanceof CompositeNode) {
+                if (depth == open.length) {
+                    open = Arrays.copyOf(open, depth * 2);
+                    composites = Arrays.copyOf(composites, depth * 2);
+                }
+                open[depth] = i;
+                composites[depth++] = (CompositeNode) child;
+            }
+        }
+        return root;
+    }
+
+    // The node without its children
+    private Node single(int node) {
+        String name = name(node);
+        switch (kind(node)) {
+            case OBJECT:
+            case ARRAY: return new CompositeNode(name, kind(node) == TapeKind.ARRAY);
+            case LONG: return new LongLeafNode(name, values[node]);
+            case DOUBLE: return new DoubleLeafNode(name, doubleValue(node));
+            case NUMBER: return new RawNumberLeafNode(name, strings[(int) values[node]]);
+            default: return new LeafNode(name, value(node));
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public TapeKind kind(int node) {
+        return TapeKind.of(kinds[node]);
+    }
+
+    @Override
+    public String name(int node) {
+        int index = names[node];
+        return index < 0 ? null : nameTable[index];
+    }
+
+    @Override
+    public int parent(int node) {
+        return parents[node];
+    }
+
+    @Override
+    public int firstChild(int node) {
+        return childCount(node) > 0 ? node + 1 : NO_NODE;
+    }
+
+    @Override
+    public int nextSibling(int node) {
+        return next[node];
+    }
+
+    @Override
+    public int childCount(int node) {
+        return kind(node).isContainer() ? (int) values[node] : 0;
+    }
+
+    @Override
+    public int child(int node, String name) {
+        for (int child = firstChild(node); child != NO_NODE; child = next[child]) {
+            int index = names[child];
+            if (index >= 0 && nameTable[index].equals(name)) return child;
+        }
+        return NO_NODE;
+    }
+
+    @Override
+    public int child(int node, int position) {
+        if (position < 0 || position >= childCount(node)) return NO_NODE;
+        int child = firstChild(node);
+        for (int i = 0; i < position; i++) child = next[child];
+        return child;
+    }
+
+    @Override
+    public String stringValue(int node) {
+        TapeKind kind = kind(node);
+        if (kind == TapeKind.STRING || kind == TapeKind.NUMBER) return strings[(int) values[node]];
+        throw new IllegalStateException("Not a string: " + kind);
+    }
+
+    @Override
+    public long longValue(int node) {
+        switch (kind(node)) {
+            case LONG: return values[node];
+            case DOUBLE: return (long) doubleValue(node);
+            case NUMBER: return new RawNumberLeafNode(null, strings[(int) values[node]]).longValue();
+            default: throw new IllegalStateException("Not a number: " + kind(node));
+        }
+    }
+
+    @Override
+    public double doubleValue(int node) {
+        switch (kind(node)) {
+            case LONG: return values[node];
+            case DOUBLE: return Double.longBitsToDouble(values[node]);
+            case NUMBER: return Double.parseDouble(strings[(int) values[node]]);
+            default: throw new IllegalStateException("Not a number: " + kind(node));
+        }
+    }
+
+    @Override
+    public Object value(int node) {
+        switch (kind(node)) {
+            case STRING: return strings[(int) values[node]];
+            case LONG: return values[node];
+            case DOUBLE: return doubleValue(node);
+            case NUMBER: return new RawNumberLeafNode(null, strings[(int) values[node]]).getValue();
+            case TRUE: return Boolean.TRUE;
+            case FALSE: return Boolean.FALSE;
+            default: return null;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package parser.tape;
+
+// Kind of a node on the tape, stored as its ordinal in one byte per node
+public enum TapeKind {
+    OBJECT,
+    ARRAY,
+    STRING,
+    LONG,   // integer that fits in a long
+    DOUBLE,
+    NUMBER, // number kept as its text (exact decimals, integers beyond the long range)
+    TRUE,
+    FALSE,
+    NULL;
+
+    private static final TapeKind[] VALUES = values();
+
+    static TapeKind of(byte ordinal) {
+        return VALUES[ordinal];
+    }
+
+    public boolean isContainer() {
+        return this == OBJECT || this == ARRAY;
+    }
+}
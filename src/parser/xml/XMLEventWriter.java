@@ -0,0 +1,195 @@
+package parser.xml;
+
+import parser.core.CharSink;
+import parser.core.EventType;
+import parser.core.IEventWriter;
+import parser.core.IndentPrinter;
+import parser.core.ParseException;
+
+import java.io.Writer;
+import java.util.Arrays;
+
+// Writes XML from events with the mapping and layout of XMLPrettyPrintVisitorI: "@name" fields become
+// attributes, "#text" fields text content, arrays repeat their name once per entry and unnamed values
+// are <root> at the top and <item> elsewhere. The start tag of an object is held open until its first
+// field that is not an attribute, so attributes have to come first, as XMLStreamReader and the JSON
+// of other XML tools report them; later "@name" fields are written as elements. The state is the
+// stack of open tags, so memory does not grow with the size of the document.
+public class XMLEventWriter implements IEventWriter {
+    private static final String ROOT = "root";
+    private static final String ITEM = "item";
+
+    // kinds of open frame
+    private static final int OBJECT = 0;
+    private static final int ARRAY = 1;   // tag is the element repeated for each entry
+    private static final int WRAPPER = 2; // element around a nested array, closed with it
+
+    private final CharSink out;
+    private final IndentPrinter printer;
+    private final boolean pretty;
+    private final String rootName;
+    private int[] kinds = new int[16];
+    private String[] tags = new String[16];
+    private boolean[] content = new boolean[16]; // an entry or a child has been written
+    private int depth = 0;
+    private boolean tagOpen = false; // the innermost object's start tag still takes attributes
+    private String name; // from the last FIELD_NAME, until its value is written
+
+    public XMLEventWriter(Writer writer) {
+        this(new CharSink(writer), true);
+    }
+
+    public XMLEventWriter(CharSink out, boolean pretty) {
+        this(out, pretty, ROOT, IndentPrinter.DEFAULT_WIDTH, ' ');
+    }
+
+    // rootName is the tag of the root value, which has no FIELD_NAME; compact output has no line
+    // breaks or indentation
+    public XMLEventWriter(CharSink out, boolean pretty, String rootName, int indentWidth, char indentChar) {
+        this.out = out;
+        this.printer = new IndentPrinter(out, indentWidth, indentChar);
+        this.pretty = pretty;
+        this.rootName = XMLPrettyPrintVisitorI.xmlName(rootName);
+    }
+
+    @Override
+    public void write(EventType event, String text) {
+        switch (event) {
+            case FIELD_NAME:
+                name = text;
+                return;
+            case START_OBJECT:
+                String tag = childTag();
+                out.append('<').append(push(OBJECT, tag));
+                tagOpen = true;
+                break;
+            case START_ARRAY:
+                if (depth > 0 && kinds[depth - 1] == OBJECT) {
+                    push(ARRAY, childTag()); // the entries take the array's place
+                } else {
+                    wrapper(childTag());
+                }
+                break;
+            case END_OBJECT:
+                endObject();
+                break;
+            case END_ARRAY:
+                endArray();
+                break;
+            case END_DOCUMENT:
+                break;
+            default:
+                if (tagOpen && isAttribute(name)) {
+                    out.append(' ').append(XMLPrettyPrintVisitorI.xmlName(name.substring(XMLParser.ATTRIBUTE_PREFIX.length()))).append("=\"");
+                    if (event != EventType.VALUE_NULL) XMLPrettyPrintVisitorI.escape(out, scalarText(event, text), true);
+                    out.append('"');
+                } else if (depth > 0 && kinds[depth - 1] == OBJECT && XMLParser.TEXT_NAME.equals(name)) {
+                    childTag();
+                    if (event != EventType.VALUE_NULL) XMLPrettyPrintVisitorI.escape(out, scalarText(event, text), false);
+                } else {
+                    leaf(childTag(), event, text);
+                }
+        }
+        name = null;
+    }
+
+    // Moves to where the next value goes and returns the tag it is written with
+    private String childTag() {
+        if (depth == 0) return name != null ? XMLPrettyPrintVisitorI.xmlName(name) : rootName;
+        int top = depth - 1;
+        if (kinds[top] == ARRAY) {
+            if (content[top]) newLine();
+            content[top] = true;
+            return tags[top];
+        }
+        if (tagOpen) {
+            out.append('>');
+            printer.indent();
+            tagOpen = false;
+        }
+        content[top] = true;
+        newLine();
+        return name != null ? XMLPrettyPrintVisitorI.xmlName(name) : ITEM;
+    }
+
+    // <tag> holding the entries of an array as <item> elements; a document has a single root
+    // element and nested arrays keep their entries apart this way
+    private void wrapper(String tag) {
+        out.append('<').append(tag).append('>');
+        printer.indent();
+        newLine();
+        push(WRAPPER, tag);
+        push(ARRAY, ITEM);
+    }
+
+    private void endObject() {
+        if (depth == 0 || kinds[depth - 1] != OBJECT) throw new ParseException("Unexpected END_OBJECT");
+        String tag = tags[--depth];
+        if (tagOpen) {
+            out.append("/>");
+            tagOpen = false;
+            return;
+        }
+        printer.dedent();
+        newLine();
+        out.append("</").append(tag).append('>');
+    }
+
+    private void endArray() {
+        if (depth == 0 || kinds[depth - 1] != ARRAY) throw new ParseException("Unexpected END_ARRAY");
+        depth--;
+        if (!content[depth]) out.append('<').append(tags[depth]).append("/>");
+        if (depth > 0 && kinds[depth - 1] == WRAPPER) {
+            depth--;
+            printer.dedent();
+            newLine();
+            out.append("</").append(tags[depth]).append('>');
+        }
+    }
+
+    private void leaf(String tag, EventType event, String text) {
+        if (event == EventType.VALUE_NULL || text != null && text.isEmpty()) {
+            out.append('<').append(tag).append("/>");
+            return;
+        }
+        out.append('<').append(tag).append('>');
+        XMLPrettyPrintVisitorI.escape(out, scalarText(event, text), false);
+        out.append("</").append(tag).append('>');
+    }
+
+    private String push(int kind, String tag) {
+        if (depth == kinds.length) {
+            kinds = Arrays.copyOf(kinds, depth * 2);
+            tags = Arrays.copyOf(tags, depth * 2);
+            content = Arrays.copyOf(content, depth * 2);
+        }
+        kinds[depth] = kind;
+        tags[depth] = tag;
+        content[depth] = false;
+        depth++;
+        return tag;
+    }
+
+    private static boolean isAttribute(String name) {
+        return name != null && name.length() > XMLParser.ATTRIBUTE_PREFIX.length() && name.startsWith(XMLParser.ATTRIBUTE_PREFIX);
+    }
+
+    private static String scalarText(EventType event, String text) {
+        if (text != null) return text;
+        return event == EventType.VALUE_TRUE ? "true" : event == EventType.VALUE_FALSE ? "false" : "";
+    }
+
+    private void newLine() {
+        if (pretty) printer.newLine();
+    }
+
+    @Override
+    public void flush() {
+        out.flush();
+    }
+
+    @Override
+    public void close() {
+        out.close();
+    }
+}
@@ -1,12 +1,228 @@
 package parser.xml;
 
+import parser.core.CompositeNode;
 import parser.core.IParser;
+import parser.core.LeafNode;
 import parser.core.Node;
 import parser.core.ParseException;
+import parser.core.ParseLimits;
+import parser.core.ParseMetrics;
+import parser.core.ParseMonitor;
+import parser.core.SymbolTable;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// Builds a Node tree from XML, one node per element:
+//
+//   - an element with neither attributes nor child elements is a LeafNode holding its text ("" when
+//     empty), so <name>Ada</name> reads like "name": "Ada" in JSON,
+//   - any other element is a CompositeNode whose children are its attributes, as leaves named
+//     "@attribute", followed by its child elements in document order; repeated elements stay repeated
+//     children with the same name,
+//   - text between child elements becomes a "#text" leaf without its leading and trailing whitespace;
+//     text that is only whitespace is dropped.
+//
+// Values are Strings, as in YAML trees. Holds no parse state itself, so one instance can be shared
+// by any number of threads.
 public class XMLParser implements IParser {
+    public static final String ATTRIBUTE_PREFIX = "@";
+    public static final String TEXT_NAME = "#text";
+    private static final String FORMAT = "xml"; // as named in ParserFactory
+
+    private final SymbolTable symbols; // shared by all parse calls, null for a table per call
+
+    public XMLParser() {
+        this(null);
+    }
+
+    // Element and attribute names are interned in the given table, which is kept across parse calls
+    // (and threads); without one each call has a table of its own
+    public XMLParser(SymbolTable symbols) {
+        this.symbols = symbols;
+    }
+
     @Override
     public Node parse(String input) throws ParseException {
-        return null;
+        if (ParseMonitor.isEnabled()) return ParseMonitor.record(FORMAT, metrics -> parse(input, metrics));
+        return new ParseContext(new XMLTokenizer(input, symbols)).parseDocument();
+    }
+
+    @Override
+    public Node parse(String input, ParseMetrics metrics) throws ParseException {
+        metrics.addInput(input.length());
+        return document(new XMLTokenizer(input, symbols), metrics);
+    }
+
+    // Reads the file as UTF-8 through the tokenizer's window; the tree is still built in full
+    @Override
+    public Node parse(Path file) throws ParseException {
+        if (ParseMonitor.isEnabled()) return ParseMonitor.record(FORMAT, metrics -> parse(file, metrics));
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return parse(reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public Node parse(Path file, ParseMetrics metrics) throws ParseException {
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return parse(reader, metrics);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public Node parse(Reader reader) {
+        if (ParseMonitor.isEnabled()) return ParseMonitor.record(FORMAT, metrics -> parse(reader, metrics));
+        XMLTokenizer tokenizer = new XMLTokenizer(reader, symbols);
+        try {
+            return new ParseContext(tokenizer).parseDocument();
+        } finally {
+            tokenizer.close();
+        }
+    }
+
+    // Input is counted as the chars read, also when the parse fails part way
+    public Node parse(Reader reader, ParseMetrics metrics) {
+        XMLTokenizer tokenizer = new XMLTokenizer(reader, symbols);
+        try {
+            return document(tokenizer, metrics);
+        } finally {
+            metrics.addInput(tokenizer.position());
+            tokenizer.close();
+        }
+    }
+
+    // Event mode: reports the document as a stream of events without building a tree; memory stays
+    // bounded by the tokenizer's window and the nesting depth
+    public XMLStreamReader parseEvents(String input) {
+        return parseEvents(new StringReader(input));
+    }
+
+    public XMLStreamReader parseEvents(Reader reader) {
+        return new XMLStreamReader(reader, symbols);
+    }
+
+    // Without metrics this is just the parse; with them the tokenizer counts its tokens, the parse is
+    // timed and the finished tree counted
+    private static Node document(XMLTokenizer tokenizer, ParseMetrics metrics) {
+        tokenizer.setMetrics(metrics);
+        long start = System.nanoTime();
+        Node root = new ParseContext(tokenizer).parseDocument();
+        metrics.addParseNanos(System.nanoTime() - start);
+        metrics.countTree(root);
+        return root;
+    }
+
+    // The run of text without surrounding whitespace
+    static String trimmed(StringBuilder text) {
+        int start = 0;
+        int end = text.length();
+        while (start < end && Character.isWhitespace(text.charAt(start))) start++;
+        while (end > start && Character.isWhitespace(text.charAt(end - 1))) end--;
+        return text.substring(start, end);
+    }
+
+    // Tokenizer of one parse call, and the "@" names made for its attributes
+    private static final class ParseContext {
+        private final XMLTokenizer tokenizer;
+        private final Map<String, String> attributeKeys = new HashMap<>();
+        private final StringBuilder text = new StringBuilder(); // text run being collected
+
+        private ParseContext(XMLTokenizer tokenizer) {
+            this.tokenizer = tokenizer;
+        }
+
+        private Node parseDocument() {
+            XMLTokenType first = tokenizer.next(); // the prolog is skipped by the tokenizer
+            if (first != XMLTokenType.START_ELEMENT) throw new ParseException("Expected the root element, found: " + first);
+            Node root = parseElement();
+            XMLTokenType last = tokenizer.next();
+            if (last != XMLTokenType.EOF) throw new ParseException("Unexpected token after the root element: " + last);
+            return root;
+        }
+
+        // Current token is the root's START_ELEMENT; returns once its END_ELEMENT is current. Open
+        // elements are kept on stacks here rather than on the call stack, so the depth is bounded by
+        // ParseLimits and the heap only.
+        private Node parseElement() {
+            String[] names = new String[16];
+            CompositeNode[] elements = new CompositeNode[16]; // null until an element has an attribute or a child
+            int depth = 0;
+            open:
+            while (true) {
+                ParseLimits.checkDepth(depth);
+                if (depth == names.length) {
+                    names = Arrays.copyOf(names, depth * 2);
+                    elements = Arrays.copyOf(elements, depth * 2);
+                }
+                String name = tokenizer.name();
+                CompositeNode element = null;
+                int attributes = tokenizer.attributeCount();
+                if (attributes > 0) {
+                    element = new CompositeNode(name, false);
+                    for (int i = 0; i < attributes; i++) {
+                        element.addChild(new LeafNode(attributeKey(tokenizer.attributeName(i)), tokenizer.attributeValue(i)));
+                    }
+                }
+                names[depth] = name;
+                elements[depth++] = element;
+                text.setLength(0);
+                boolean blank = true; // the text run so far is only whitespace
+                while (true) {
+                    switch (tokenizer.next()) {
+                        case TEXT:
+                        case CDATA:
+                            // whitespace between child elements is not kept, so it is not copied either
+                            if (element != null && text.length() == 0 && tokenizer.isWhitespace()) break;
+                            if (blank && !tokenizer.isWhitespace()) blank = false;
+                            tokenizer.appendText(text);
+                            break;
+                        case START_ELEMENT:
+                            if (element == null) element = elements[depth - 1] = new CompositeNode(name, false);
+                            if (!blank) element.addChild(new LeafNode(TEXT_NAME, trimmed(text)));
+                            continue open;
+                        case END_ELEMENT:
+                            Node closed;
+                            if (element == null) {
+                                closed = new LeafNode(name, text.toString());
+                            } else {
+                                if (!blank) element.addChild(new LeafNode(TEXT_NAME, trimmed(text)));
+                                closed = element;
+                            }
+                            elements[--depth] = null;
+                            if (depth == 0) return closed;
+                            // back in the parent, which has a child now and so is a composite
+                            name = names[depth - 1];
+                            element = elements[depth - 1];
+                            element.addChild(closed);
+                            text.setLength(0);
+                            blank = true;
+                            break;
+                        default:
+                            throw new ParseException("Unexpected end of input inside <" + name + ">");
+                    }
+                }
+            }
+        }
+
+        private String attributeKey(String attribute) {
+            String key = attributeKeys.get(attribute);
+            if (key == null) {
+                key = ATTRIBUTE_PREFIX + attribute;
+                attributeKeys.put(attribute, key);
+            }
+            return key;
+        }
     }
 }
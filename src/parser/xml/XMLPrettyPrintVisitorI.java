@@ -1,22 +1,206 @@
 package parser.xml;
 
+import parser.core.CharSink;
 import parser.core.CompositeNode;
+import parser.core.IndentPrinter;
 import parser.core.LeafNode;
+import parser.core.Node;
+import parser.core.NumberLeafNode;
 import parser.core.INodeVisitor;
+import parser.core.TreeWalker;
 
+import java.util.Arrays;
+import java.util.List;
+
+// Prints a tree as indented XML, reversing the mapping XMLParser uses: "@name" leaves become
+// attributes, "#text" leaves text content and every other child an element. Trees from the other
+// formats print too: an array repeats its own name once per entry (<tags>a</tags><tags>b</tags>),
+// unnamed nodes are <root> at the top and <item> elsewhere, and names that are not valid XML have
+// the offending characters replaced by '_'.
 public class XMLPrettyPrintVisitorI implements INodeVisitor {
+    private static final String ROOT = "root";
+    private static final String ITEM = "item";
+
+    private final StringBuilder sb = new StringBuilder();
+    private final IndentPrinter printer;
+    private final CharSink out;
+
+    public XMLPrettyPrintVisitorI() {
+        this(IndentPrinter.DEFAULT_WIDTH, ' ');
+    }
+
+    public XMLPrettyPrintVisitorI(int indentWidth, char indentChar) {
+        this.out = CharSink.of(sb);
+        this.printer = new IndentPrinter(out, indentWidth, indentChar);
+    }
+
     @Override
     public String getResult() {
-        return "";
+        out.flush();
+        return sb.toString();
     }
 
     @Override
     public void visitComposite(CompositeNode node) {
-
+        if (sb.length() == 0 && printer.level() == 0) {
+            sb.ensureCapacity(IndentPrinter.estimateSize(node)); // size the output once for the whole tree
+        }
+        TreeWalker.walk(node, new Layout());
     }
 
     @Override
     public void visitLeaf(LeafNode node) {
+        leaf(node.getName() != null ? xmlName(node.getName()) : ROOT, node);
+    }
+
+    // Each node is written from the current position; lines after the first start with the current
+    // indentation. The stack holds, per open composite, the tag its entries or children are written
+    // with and the end tag it closes with (null when it has none).
+    private final class Layout implements TreeWalker.Handler {
+        private String[] tags = new String[16];
+        private String[] endTags = new String[16];
+        private int depth = 0;
+
+        @Override
+        public void enter(CompositeNode node, CompositeNode parent, int index) {
+            String tag = tagIn(node, parent, index);
+            if (node.isArray()) {
+                if (parent == null || parent.isArray()) {
+                    // a document has a single root element, and nested arrays keep their entries apart
+                    out.append('<').append(tag).append('>');
+                    printer.indent();
+                    printer.newLine();
+                    push(ITEM, tag);
+                } else {
+                    push(tag, null); // an array repeats its own name once per entry
+                }
+                if (node.getChildren().isEmpty()) out.append('<').append(tags[depth - 1]).append("/>");
+                return;
+            }
+            out.append('<').append(tag);
+            boolean content = false;
+            List<Node> children = node.getChildren();
+            for (int i = 0; i < children.size(); i++) {
+                Node child = children.get(i);
+                if (isAttribute(child)) {
+                    out.append(' ').append(xmlName(child.getName().substring(XMLParser.ATTRIBUTE_PREFIX.length()))).append("=\"");
+                    Object value = ((LeafNode) child).getValue();
+                    if (value != null) escape(value.toString(), true);
+                    out.append('"');
+                } else {
+                    content = true;
+                }
+            }
+            if (!content) {
+                out.append("/>");
+                push(tag, null);
+                return;
+            }
+            out.append('>');
+            printer.indent();
+            push(tag, tag);
+        }
+
+        @Override
+        public void leaf(Node node, CompositeNode parent, int index) {
+            if (!parent.isArray() && isAttribute(node)) return; // written with the start tag
+            String tag = tagIn(node, parent, index);
+            if (!parent.isArray() && XMLParser.TEXT_NAME.equals(node.getName())) {
+                Object value = ((LeafNode) node).getValue();
+                if (value != null) escape(value.toString(), false);
+            } else {
+                XMLPrettyPrintVisitorI.this.leaf(tag, (LeafNode) node);
+            }
+        }
+
+        @Override
+        public void exit(CompositeNode node, CompositeNode parent, int index) {
+            String endTag = endTags[--depth];
+            tags[depth] = null;
+            endTags[depth] = null;
+            if (endTag == null) return;
+            printer.dedent();
+            printer.newLine();
+            out.append("</").append(endTag).append('>');
+        }
+
+        // Moves to the node's line and returns its tag: the array's for an entry, its own name (or
+        // <item>) for a child of an element
+        private String tagIn(Node node, CompositeNode parent, int index) {
+            if (parent == null) return node.getName() != null ? xmlName(node.getName()) : ROOT;
+            if (parent.isArray()) {
+                if (index > 0) printer.newLine();
+                return tags[depth - 1];
+            }
+            printer.newLine();
+            return node.getName() != null ? xmlName(node.getName()) : ITEM;
+        }
+
+        private void push(String tag, String endTag) {
+            if (depth == tags.length) {
+                tags = Arrays.copyOf(tags, depth * 2);
+                endTags = Arrays.copyOf(endTags, depth * 2);
+            }
+            tags[depth] = tag;
+            endTags[depth] = endTag;
+            depth++;
+        }
+    }
+
+    private void leaf(String tag, LeafNode node) {
+        Object value = node.getValue();
+        if (value == null || "".equals(value)) {
+            out.append('<').append(tag).append("/>");
+            return;
+        }
+        out.append('<').append(tag).append('>');
+        if (node instanceof NumberLeafNode) {
+            ((NumberLeafNode) node).appendTo(out); // numbers are printed without boxing
+        } else {
+            escape(value.toString(), false);
+        }
+        out.append("</").append(tag).append('>');
+    }
+
+    private static boolean isAttribute(Node child) {
+        String name = child.getName();
+        return child instanceof LeafNode && name != null && name.length() > XMLParser.ATTRIBUTE_PREFIX.length()
+                && name.startsWith(XMLParser.ATTRIBUTE_PREFIX);
+    }
+
+    private void escape(String text, boolean attribute) {
+        escape(out, text, attribute);
+    }
+
+    // Copies the text in runs, replacing only the characters XML reserves
+    static void escape(CharSink out, String text, boolean attribute) {
+        int start = 0;
+        for (int i = 0; i < text.length(); i++) {
+            String entity;
+            switch (text.charAt(i)) {
+                case '&': entity = "&amp;"; break;
+                case '<': entity = "&lt;"; break;
+                case '>': entity = "&gt;"; break;
+                case '"': entity = attribute ? "&quot;" : null; break;
+                default: entity = null;
+            }
+            if (entity == null) continue;
+            out.append(text, start, i).append(entity);
+            start = i + 1;
+        }
+        out.append(text, start, text.length());
+    }
 
+    static String xmlName(String name) {
+        boolean valid = !name.isEmpty() && XMLTokenizer.isNameStart(name.charAt(0));
+        for (int i = 1; valid && i < name.length(); i++) valid = XMLTokenizer.isNameChar(name.charAt(i));
+        if (valid) return name;
+        StringBuilder fixed = new StringBuilder(name.length() + 1);
+        if (name.isEmpty() || !XMLTokenizer.isNameStart(name.charAt(0))) fixed.append('_');
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            fixed.append(XMLTokenizer.isNameChar(c) ? c : '_');
+        }
+        return fixed.toString();
     }
 }
@@ -0,0 +1,180 @@
+package parser.xml;
+
+import parser.core.EventType;
+import parser.core.IEventReader;
+import parser.core.ParseException;
+import parser.core.SymbolTable;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// Pull parser for XML: reports the tree XMLParser would build as events, without building it. An
+// element that becomes a LeafNode is a FIELD_NAME followed by VALUE_STRING; any other element is a
+// FIELD_NAME followed by START_OBJECT, its "@attribute" fields, its children and "#text" fields in
+// document order, and END_OBJECT. The root element has no FIELD_NAME, like the root of a JSON
+// document; getRootName() returns its name. All values are VALUE_STRING.
+//
+// Memory is bounded by the tokenizer's window, the nesting depth and the longest text run, since the
+// text of an element is held until the tag after it shows whether the element is a leaf.
+public class XMLStreamReader implements IEventReader {
+    private final XMLTokenizer tokenizer;
+    private final Map<String, String> attributeKeys = new HashMap<>();
+    private final StringBuilder textRun = new StringBuilder();
+    private boolean blank; // textRun is only whitespace
+    private boolean lookahead = false; // the tokenizer's current token was read ahead and not handled yet
+
+    // events decided but not returned yet; an element with attributes produces several at once
+    private EventType[] queue = new EventType[16];
+    private String[] queueText = new String[16];
+    private int head = 0;
+    private int tail = 0;
+
+    private String rootName;
+    private int depth = 0;
+    private EventType current;
+    private String text;
+
+    public XMLStreamReader(String input) {
+        this(new StringReader(input));
+    }
+
+    public XMLStreamReader(Reader reader) {
+        this(reader, null);
+    }
+
+    public XMLStreamReader(Reader reader, SymbolTable names) {
+        this(new XMLTokenizer(reader, names));
+    }
+
+    XMLStreamReader(XMLTokenizer tokenizer) {
+        this.tokenizer = tokenizer;
+    }
+
+    @Override
+    public EventType next() {
+        if (current == EventType.END_DOCUMENT) return current;
+        while (head == tail) {
+            XMLTokenType type = lookahead ? tokenizer.tokenType() : tokenizer.next();
+            lookahead = false;
+            switch (type) {
+                case START_ELEMENT:
+                    startElement();
+                    break;
+                case TEXT:
+                case CDATA:
+                    readText(true);
+                    lookahead = true; // the token after the run
+                    enqueueText();
+                    break;
+                case END_ELEMENT:
+                    enqueue(EventType.END_OBJECT, null); // leaves are consumed whole by startElement
+                    break;
+                default:
+                    enqueue(EventType.END_DOCUMENT, null);
+            }
+        }
+        current = queue[head];
+        text = queueText[head];
+        queueText[head] = null;
+        head++;
+        if (current == EventType.START_OBJECT) depth++;
+        else if (current == EventType.END_OBJECT) depth--;
+        return current;
+    }
+
+    private void startElement() {
+        String name = tokenizer.name();
+        boolean root = rootName == null;
+        if (root) rootName = name;
+        int attributes = tokenizer.attributeCount();
+        if (attributes > 0) {
+            if (!root) enqueue(EventType.FIELD_NAME, name);
+            enqueue(EventType.START_OBJECT, null);
+            for (int i = 0; i < attributes; i++) {
+                enqueue(EventType.FIELD_NAME, attributeKey(tokenizer.attributeName(i)));
+                enqueue(EventType.VALUE_STRING, tokenizer.attributeValue(i));
+            }
+            return;
+        }
+        // no attributes: a leaf unless a child element comes before the end tag
+        readText(false);
+        if (tokenizer.tokenType() == XMLTokenType.END_ELEMENT) {
+            if (!root) enqueue(EventType.FIELD_NAME, name);
+            enqueue(EventType.VALUE_STRING, textRun.toString());
+            return;
+        }
+        if (tokenizer.tokenType() != XMLTokenType.START_ELEMENT) throw new ParseException("Unexpected end of input inside <" + name + ">");
+        if (!root) enqueue(EventType.FIELD_NAME, name);
+        enqueue(EventType.START_OBJECT, null);
+        enqueueText();
+        lookahead = true; // the child's START_ELEMENT
+    }
+
+    // Collects consecutive TEXT and CDATA tokens into textRun; the token after them is left current
+    private void readText(boolean fromCurrent) {
+        textRun.setLength(0);
+        blank = true;
+        XMLTokenType type = fromCurrent ? tokenizer.tokenType() : tokenizer.next();
+        while (type == XMLTokenType.TEXT || type == XMLTokenType.CDATA) {
+            if (blank && !tokenizer.isWhitespace()) blank = false;
+            tokenizer.appendText(textRun);
+            type = tokenizer.next();
+        }
+    }
+
+    // Text between child elements, trimmed, unless it is only whitespace
+    private void enqueueText() {
+        if (blank) return;
+        enqueue(EventType.FIELD_NAME, XMLParser.TEXT_NAME);
+        enqueue(EventType.VALUE_STRING, XMLParser.trimmed(textRun));
+    }
+
+    private void enqueue(EventType event, String eventText) {
+        if (head == tail) {
+            head = tail = 0;
+        } else if (tail == queue.length) {
+            queue = Arrays.copyOf(queue, queue.length * 2);
+            queueText = Arrays.copyOf(queueText, queueText.length * 2);
+        }
+        queue[tail] = event;
+        queueText[tail] = eventText;
+        tail++;
+    }
+
+    private String attributeKey(String attribute) {
+        String key = attributeKeys.get(attribute);
+        if (key == null) {
+            key = XMLParser.ATTRIBUTE_PREFIX + attribute;
+            attributeKeys.put(attribute, key);
+        }
+        return key;
+    }
+
+    // Name of the root element, once its START_OBJECT (or VALUE_STRING) has been read
+    public String getRootName() {
+        return rootName;
+    }
+
+    @Override
+    public EventType current() {
+        return current;
+    }
+
+    @Override
+    public String getText() {
+        return text;
+    }
+
+    @Override
+    public int getDepth() {
+        return depth;
+    }
+
+    @Override
+    public void close() {
+        tokenizer.close();
+    }
+}
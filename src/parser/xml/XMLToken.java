@@ -1,4 +1,19 @@
 package parser.xml;
 
+import java.util.Map;
+
 public class XMLToken {
+    private final XMLTokenType type;
+    private final String value; // element name, or the decoded text of TEXT and CDATA
+    private final Map<String, String> attributes; // of a START_ELEMENT, empty otherwise
+
+    public XMLToken(XMLTokenType type, String value, Map<String, String> attributes) {
+        this.type = type;
+        this.value = value;
+        this.attributes = attributes;
+    }
+
+    public XMLTokenType getType() { return type; }
+    public String getValue() { return value; }
+    public Map<String, String> getAttributes() { return attributes; }
 }
@@ -1,4 +1,9 @@
 package parser.xml;
 
 public enum XMLTokenType {
+    START_ELEMENT, // <name attr="value">, also the start of <name/>
+    END_ELEMENT,   // </name>, also reported right after the start of <name/>
+    TEXT,          // character data between tags
+    CDATA,         // <![CDATA[ ... ]]> contents, taken literally
+    EOF            // End of File
 }
@@ -1,4 +1,606 @@
 package parser.xml;
 
+import parser.core.ParseException;
+import parser.core.ParseMetrics;
+import parser.core.SymbolTable;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Pull tokenizer for XML, in the manner of StAX. The cursor methods (next(), name(), attribute*(),
+// text()) work on offsets into a bounded window over the input; only text() and attributeValue()
+// make Strings, and element and attribute names come from a symbol table, so once the names of a
+// document have been seen a token costs no allocation. nextToken() hands out XMLToken objects instead.
+//
+// The XML declaration, comments, processing instructions and the DOCTYPE are skipped. Entities are
+// the five predefined ones and character references; entities declared in a DTD are not supported.
+// Text longer than the window is handed out in several TEXT (or CDATA) tokens in a row, so the window
+// only grows for a start tag that does not fit in it.
 public class XMLTokenizer {
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+    private static final int MIN_BUFFER_SIZE = 64; // room for the longest entity when text is split
+    private static final Map<String, String> NO_ATTRIBUTES = Collections.emptyMap();
+
+    private final Reader reader; // null when the whole input is already in memory
+    private final SymbolTable names; // element and attribute names
+    private char[] buf;
+    private int pos = 0;
+    private int limit;
+    private int mark = -1; // start of the token being read, kept in the window while refilling
+    private long offset = 0; // number of chars dropped from the front of the window so far
+
+    // cursor state of the current token
+    private XMLTokenType type;
+    private String name; // START_ELEMENT and END_ELEMENT
+    private int[] attributes = new int[16]; // name start, name end, value start, value end per attribute
+    private int attributeCount;
+    private int tokenStart; // TEXT and CDATA contents
+    private int tokenEnd;
+    private boolean escaped; // current text or attribute values contain '&'
+    private boolean whitespace; // current TEXT is nothing but whitespace
+    private boolean pendingEnd; // the current start tag was <name/>
+    private boolean inCData; // the window filled up in the middle of a CDATA section
+    private ParseMetrics metrics; // null unless the parse is monitored
+
+    // open elements, innermost last
+    private String[] open = new String[16];
+    private int depth = 0;
+    private boolean rootSeen = false;
+
+    public XMLTokenizer(String input) {
+        this(input, null);
+    }
+
+    // Names are looked up in the given table before a String is made; null uses a table of its own
+    public XMLTokenizer(String input, SymbolTable names) {
+        this.reader = null;
+        this.names = names != null ? names : new SymbolTable(256);
+        this.buf = input.toCharArray();
+        this.limit = buf.length;
+    }
+
+    public XMLTokenizer(Reader reader) {
+        this(reader, DEFAULT_BUFFER_SIZE, null);
+    }
+
+    public XMLTokenizer(Reader reader, SymbolTable names) {
+        this(reader, DEFAULT_BUFFER_SIZE, names);
+    }
+
+    // Streams the input through a window of bufferSize chars instead of holding it all in memory
+    public XMLTokenizer(Reader reader, int bufferSize, SymbolTable names) {
+        if (bufferSize < MIN_BUFFER_SIZE) throw new IllegalArgumentException("Buffer size too small: " + bufferSize);
+        this.reader = reader;
+        this.names = names != null ? names : new SymbolTable(256);
+        this.buf = new char[bufferSize];
+        this.limit = 0;
+    }
+
+    public XMLToken nextToken() {
+        switch (next()) {
+            case START_ELEMENT:
+                if (attributeCount == 0) return new XMLToken(XMLTokenType.START_ELEMENT, name, NO_ATTRIBUTES);
+                Map<String, String> values = new LinkedHashMap<>();
+                for (int i = 0; i < attributeCount; i++) values.put(attributeName(i), attributeValue(i));
+                return new XMLToken(XMLTokenType.START_ELEMENT, name, Collections.unmodifiableMap(values));
+            case END_ELEMENT: return new XMLToken(XMLTokenType.END_ELEMENT, name, NO_ATTRIBUTES);
+            case TEXT: return new XMLToken(XMLTokenType.TEXT, text(), NO_ATTRIBUTES);
+            case CDATA: return new XMLToken(XMLTokenType.CDATA, text(), NO_ATTRIBUTES);
+            default: return new XMLToken(XMLTokenType.EOF, null, NO_ATTRIBUTES);
+        }
+    }
+
+    // Cursor mode: moves to the next token and returns its type
+    public XMLTokenType next() {
+        XMLTokenType next = scan();
+        if (metrics != null) metrics.token(next);
+        return next;
+    }
+
+    // Counts each token next() returns into metrics; null (the default) counts nothing. Elements passed
+    // over by skipElement() are not counted.
+    public void setMetrics(ParseMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    private XMLTokenType scan() {
+        if (pendingEnd) { // <name/>: the end follows its start, with the same name
+            pendingEnd = false;
+            attributeCount = 0;
+            open[--depth] = null;
+            return type = XMLTokenType.END_ELEMENT;
+        }
+        if (inCData) return type = scanCData();
+        while (true) {
+            if (pos >= limit && !fill()) {
+                if (depth > 0) throw new ParseException("Unclosed element <" + open[depth - 1] + "> at end of input");
+                if (!rootSeen) throw new ParseException("No root element found");
+                return type = XMLTokenType.EOF;
+            }
+            char c = buf[pos];
+            if (c != '<') {
+                if (depth > 0) return type = scanText();
+                if (!isWhitespace(c) && !(c == '\uFEFF' && position() == 0)) { // a byte order mark may lead
+                    throw new ParseException("Text outside the root element at position " + position());
+                }
+                pos++;
+                continue;
+            }
+            if (!ensure(2)) throw new ParseException("Unexpected end of input at position " + position());
+            char next = buf[pos + 1];
+            if (next == '/') return type = scanEndTag();
+            if (next == '?') {
+                skipPast(2, "?>", "processing instruction");
+            } else if (next == '!') {
+                if (startsWith("<!--")) {
+                    skipPast(4, "-->", "comment");
+                } else if (startsWith("<![CDATA[")) {
+                    if (depth == 0) throw new ParseException("CDATA outside the root element at position " + position());
+                    pos += 9;
+                    inCData = true;
+                    return type = scanCData();
+                } else if (startsWith("<!DOCTYPE")) {
+                    skipDoctype();
+                } else {
+                    throw new ParseException("Unexpected markup at position " + position());
+                }
+            } else {
+                return type = scanStartTag();
+            }
+        }
+    }
+
+    public XMLTokenType tokenType() {
+        return type;
+    }
+
+    // Name of the current START_ELEMENT or END_ELEMENT
+    public String name() {
+        return name;
+    }
+
+    // Number of open elements, counting the current START_ELEMENT and not the current END_ELEMENT
+    public int getDepth() {
+        return depth;
+    }
+
+    // Attributes of the current START_ELEMENT, in document order
+    public int attributeCount() {
+        return attributeCount;
+    }
+
+    public String attributeName(int index) {
+        int i = checkAttribute(index);
+        return names.intern(buf, attributes[i], attributes[i + 1]);
+    }
+
+    public String attributeValue(int index) {
+        int i = checkAttribute(index);
+        return decode(attributes[i + 2], attributes[i + 3]);
+    }
+
+    // Value of the named attribute of the current START_ELEMENT, or null
+    public String attributeValue(String attributeName) {
+        for (int index = 0; index < attributeCount; index++) {
+            int i = index * 4;
+            if (regionEquals(attributes[i], attributes[i + 1], attributeName)) return decode(attributes[i + 2], attributes[i + 3]);
+        }
+        return null;
+    }
+
+    // Decoded contents of the current TEXT or CDATA token
+    public String text() {
+        if (type == XMLTokenType.CDATA || !escaped) return new String(buf, tokenStart, tokenEnd - tokenStart);
+        return decode(tokenStart, tokenEnd);
+    }
+
+    // Appends the decoded contents of the current TEXT or CDATA token without making a String of them
+    public void appendText(StringBuilder sb) {
+        if (type == XMLTokenType.CDATA || !escaped) {
+            sb.append(buf, tokenStart, tokenEnd - tokenStart);
+        } else {
+            decode(tokenStart, tokenEnd, sb);
+        }
+    }
+
+    // True when the current TEXT is only whitespace, as between the child elements of indented XML
+    public boolean isWhitespace() {
+        return type == XMLTokenType.TEXT && whitespace;
+    }
+
+    // Window holding the current token; only valid until the next call to next() or skipElement()
+    public char[] buffer() {
+        return buf;
+    }
+
+    // Offsets of the current TEXT or CDATA contents in buffer(), entities not decoded
+    public int tokenStart() {
+        return tokenStart;
+    }
+
+    public int tokenEnd() {
+        return tokenEnd;
+    }
+
+    // Absolute position of the next unread character in the input
+    public long position() {
+        return offset + pos;
+    }
+
+    // Skips the rest of the element whose START_ELEMENT is current; its END_ELEMENT becomes current.
+    // Tags are still matched, text is never decoded.
+    public void skipElement() {
+        if (type != XMLTokenType.START_ELEMENT) return;
+        int target = depth - 1;
+        while (scan() != XMLTokenType.END_ELEMENT || depth > target) {
+            // nothing to do, scan() checks the nesting
+        }
+    }
+
+    public void close() {
+        if (reader == null) return;
+        try {
+            reader.close();
+        } catch (IOException e) {
+            throw new ParseException("Failed to close XML input", e);
+        }
+    }
+
+    // <name attr="value" ...> or <name .../>. Offsets are kept relative to the tag start while
+    // scanning, since refilling the window may move it.
+    private XMLTokenType scanStartTag() {
+        if (depth == 0 && rootSeen) throw new ParseException("Content after the root element at position " + position());
+        long start = position();
+        mark = pos;
+        pos++; // skip '<'
+        int nameStart = pos - mark;
+        scanName("element", start);
+        int nameEnd = pos - mark;
+        attributeCount = 0;
+        escaped = false;
+        while (true) {
+            boolean spaced = skipSpace();
+            if (pos >= limit && !fill()) throw new ParseException("Unterminated start tag at position " + start);
+            char c = buf[pos];
+            if (c == '>') {
+                pos++;
+                break;
+            }
+            if (c == '/') {
+                if (!ensure(2) || buf[pos + 1] != '>') throw new ParseException("Expected '>' after '/' at position " + position());
+                pos += 2;
+                pendingEnd = true;
+                break;
+            }
+            if (!spaced) throw new ParseException("Expected whitespace before attribute at position " + position());
+            scanAttribute(start);
+        }
+        // the whole tag is in the window now, make the offsets absolute
+        name = names.intern(buf, mark + nameStart, mark + nameEnd);
+        for (int i = 0; i < attributeCount * 4; i++) attributes[i] += mark;
+        mark = -1;
+        checkDuplicateAttributes(start);
+        if (depth == open.length) open = Arrays.copyOf(open, depth * 2);
+        open[depth++] = name;
+        rootSeen = true;
+        return XMLTokenType.START_ELEMENT;
+    }
+
+    private void scanAttribute(long tagStart) {
+        int nameStart = pos - mark;
+        scanName("attribute", tagStart);
+        int nameEnd = pos - mark;
+        skipSpace();
+        if ((pos >= limit && !fill()) || buf[pos] != '=') throw new ParseException("Expected '=' after attribute name at position " + position());
+        pos++;
+        skipSpace();
+        if (pos >= limit && !fill()) throw new ParseException("Unterminated start tag at position " + tagStart);
+        char quote = buf[pos];
+        if (quote != '"' && quote != '\'') throw new ParseException("Expected a quoted attribute value at position " + position());
+        pos++;
+        int valueStart = pos - mark;
+        while (true) {
+            if (pos >= limit && !fill()) throw new ParseException("Unterminated attribute value at position " + tagStart);
+            char c = buf[pos];
+            if (c == quote) break;
+            if (c == '<') throw new ParseException("'<' in attribute value at position " + position());
+            if (c == '&') escaped = true;
+            pos++;
+        }
+        int valueEnd = pos - mark;
+        pos++; // skip the closing quote
+        int i = attributeCount * 4;
+        if (i == attributes.length) attributes = Arrays.copyOf(attributes, i * 2);
+        attributes[i] = nameStart;
+        attributes[i + 1] = nameEnd;
+        attributes[i + 2] = valueStart;
+        attributes[i + 3] = valueEnd;
+        attributeCount++;
+    }
+
+    private void checkDuplicateAttributes(long tagStart) {
+        for (int a = 1; a < attributeCount; a++) {
+            for (int b = 0; b < a; b++) {
+                if (regionEquals(attributes[a * 4], attributes[a * 4 + 1], attributes[b * 4], attributes[b * 4 + 1])) {
+                    throw new ParseException("Duplicate attribute " + attributeName(a) + " at position " + tagStart);
+                }
+            }
+        }
+    }
+
+    // </name>, which must close the innermost open element
+    private XMLTokenType scanEndTag() {
+        long start = position();
+        mark = pos;
+        pos += 2; // skip "</"
+        int nameStart = pos - mark;
+        scanName("element", start);
+        int nameEnd = pos - mark;
+        skipSpace();
+        if ((pos >= limit && !fill()) || buf[pos] != '>') throw new ParseException("Expected '>' at position " + position());
+        pos++;
+        int from = mark + nameStart;
+        int to = mark + nameEnd;
+        mark = -1;
+        if (depth == 0) throw new ParseException("Unexpected end tag </" + new String(buf, from, to - from) + "> at position " + start);
+        String expected = open[depth - 1];
+        if (!regionEquals(from, to, expected)) {
+            throw new ParseException("Expected </" + expected + "> but found </" + new String(buf, from, to - from) + "> at position " + start);
+        }
+        name = expected;
+        attributeCount = 0;
+        open[--depth] = null;
+        return XMLTokenType.END_ELEMENT;
+    }
+
+    // Character data up to the next '<'. When the text fills the whole window, what is there so far
+    // becomes a token of its own, ended before an entity that may not be complete yet.
+    private XMLTokenType scanText() {
+        mark = pos;
+        escaped = false;
+        whitespace = true;
+        while (true) {
+            if (pos >= limit) {
+                if (reader != null && pos - mark == buf.length) {
+                    pos = splitPoint();
+                    break;
+                }
+                if (!fill()) break; // the end of input is reported by the next call
+            }
+            char c = buf[pos];
+            if (c == '<') break;
+            if (c == '&') escaped = true;
+            else if (whitespace && !isWhitespace(c)) whitespace = false;
+            pos++;
+        }
+        tokenStart = mark;
+        tokenEnd = pos;
+        mark = -1;
+        return XMLTokenType.TEXT;
+    }
+
+    // Where to cut a text chunk that filled the window: before the last '&' that has no ';' after it
+    private int splitPoint() {
+        for (int i = pos - 1; i >= mark && i >= pos - MIN_BUFFER_SIZE / 2; i--) {
+            if (buf[i] == ';') return pos;
+            if (buf[i] == '&') return i;
+        }
+        return pos;
+    }
+
+    // CDATA contents up to "]]>", handed out in pieces when the section does not fit in the window
+    private XMLTokenType scanCData() {
+        long start = position();
+        mark = pos;
+        while (true) {
+            if (limit - pos < 3) {
+                if (reader != null && pos > mark && limit - mark == buf.length) break; // full window, rest follows
+                if (!fill()) throw new ParseException("Unterminated CDATA section at position " + start);
+                continue;
+            }
+            if (buf[pos] == ']' && buf[pos + 1] == ']' && buf[pos + 2] == '>') {
+                inCData = false;
+                break;
+            }
+            pos++;
+        }
+        tokenStart = mark;
+        tokenEnd = pos;
+        mark = -1;
+        if (!inCData) pos += 3; // skip "]]>"
+        return XMLTokenType.CDATA;
+    }
+
+    private void scanName(String what, long tagStart) {
+        if ((pos >= limit && !fill()) || !isNameStart(buf[pos])) {
+            throw new ParseException("Invalid " + what + " name at position " + position());
+        }
+        pos++;
+        while ((pos < limit || fill()) && isNameChar(buf[pos])) pos++;
+        if (pos >= limit && !fill()) throw new ParseException("Unterminated tag at position " + tagStart);
+    }
+
+    // Skips markup from its opening (prefix chars) up to and including the terminator; nothing is kept
+    private void skipPast(int prefix, String terminator, String what) {
+        long start = position();
+        pos += prefix;
+        int n = terminator.length();
+        while (true) {
+            if (!ensure(n)) throw new ParseException("Unterminated " + what + " at position " + start);
+            if (buf[pos] == terminator.charAt(0) && startsWith(terminator)) {
+                pos += n;
+                return;
+            }
+            pos++;
+        }
+    }
+
+    // <!DOCTYPE ...>, with an internal subset in brackets and quoted literals
+    private void skipDoctype() {
+        long start = position();
+        pos += 9;
+        int brackets = 0;
+        char quote = 0;
+        while (pos < limit || fill()) {
+            char c = buf[pos++];
+            if (quote != 0) {
+                if (c == quote) quote = 0;
+            } else if (c == '"' || c == '\'') {
+                quote = c;
+            } else if (c == '[') {
+                brackets++;
+            } else if (c == ']') {
+                brackets--;
+            } else if (c == '>' && brackets == 0) {
+                return;
+            }
+        }
+        throw new ParseException("Unterminated DOCTYPE at position " + start);
+    }
+
+    private boolean skipSpace() {
+        boolean skipped = false;
+        while ((pos < limit || fill()) && isWhitespace(buf[pos])) {
+            pos++;
+            skipped = true;
+        }
+        return skipped;
+    }
+
+    // Makes n chars available from pos; false when the input ends first
+    private boolean ensure(int n) {
+        while (limit - pos < n) {
+            if (!fill()) return false;
+        }
+        return true;
+    }
+
+    private boolean startsWith(String literal) {
+        int n = literal.length();
+        if (!ensure(n)) return false;
+        for (int i = 0; i < n; i++) {
+            if (buf[pos + i] != literal.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private boolean regionEquals(int start, int end, String text) {
+        int length = end - start;
+        if (text.length() != length) return false;
+        for (int i = 0; i < length; i++) {
+            if (buf[start + i] != text.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private boolean regionEquals(int start, int end, int otherStart, int otherEnd) {
+        if (end - start != otherEnd - otherStart) return false;
+        for (int i = 0; i < end - start; i++) {
+            if (buf[start + i] != buf[otherStart + i]) return false;
+        }
+        return true;
+    }
+
+    private int checkAttribute(int index) {
+        if (index < 0 || index >= attributeCount) throw new IndexOutOfBoundsException("Attribute " + index + " of " + attributeCount);
+        return index * 4;
+    }
+
+    private String decode(int start, int end) {
+        int amp = start;
+        while (amp < end && buf[amp] != '&') amp++;
+        if (amp == end) return new String(buf, start, end - start);
+        StringBuilder sb = new StringBuilder(end - start);
+        decode(start, end, sb);
+        return sb.toString();
+    }
+
+    // &lt; &gt; &amp; &quot; &apos; &#nn; &#xhh;
+    private void decode(int start, int end, StringBuilder sb) {
+        for (int i = start; i < end; i++) {
+            char c = buf[i];
+            if (c != '&') {
+                sb.append(c);
+                continue;
+            }
+            int semicolon = i + 1;
+            while (semicolon < end && buf[semicolon] != ';') semicolon++;
+            if (semicolon == end) throw new ParseException("Unterminated entity at position " + (offset + i));
+            int nameStart = i + 1;
+            if (buf[nameStart] == '#') {
+                sb.appendCodePoint(characterReference(nameStart + 1, semicolon, i));
+            } else if (regionEquals(nameStart, semicolon, "lt")) {
+                sb.append('<');
+            } else if (regionEquals(nameStart, semicolon, "gt")) {
+                sb.append('>');
+            } else if (regionEquals(nameStart, semicolon, "amp")) {
+                sb.append('&');
+            } else if (regionEquals(nameStart, semicolon, "quot")) {
+                sb.append('"');
+            } else if (regionEquals(nameStart, semicolon, "apos")) {
+                sb.append('\'');
+            } else {
+                throw new ParseException("Undefined entity &" + new String(buf, nameStart, semicolon - nameStart) + "; at position " + (offset + i));
+            }
+            i = semicolon;
+        }
+    }
+
+    private int characterReference(int start, int end, int entityStart) {
+        int radix = 10;
+        if (start < end && buf[start] == 'x') {
+            radix = 16;
+            start++;
+        }
+        if (start == end) throw new ParseException("Invalid character reference at position " + (offset + entityStart));
+        int code = 0;
+        for (int i = start; i < end; i++) {
+            int digit = Character.digit(buf[i], radix);
+            if (digit < 0 || code > (Character.MAX_CODE_POINT - digit) / radix) {
+                throw new ParseException("Invalid character reference at position " + (offset + entityStart));
+            }
+            code = code * radix + digit;
+        }
+        return code;
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\n' || c == '\t' || c == '\r';
+    }
+
+    static boolean isNameStart(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_' || c == ':' || c > 0x7F;
+    }
+
+    static boolean isNameChar(char c) {
+        return isNameStart(c) || (c >= '0' && c <= '9') || c == '-' || c == '.';
+    }
+
+    // Slides the window forward and reads more input; returns false once the input is exhausted
+    private boolean fill() {
+        if (reader == null) return false;
+        int keepFrom = mark >= 0 ? mark : pos;
+        if (keepFrom > 0) {
+            System.arraycopy(buf, keepFrom, buf, 0, limit - keepFrom);
+            limit -= keepFrom;
+            pos -= keepFrom;
+            if (mark >= 0) mark -= keepFrom;
+            offset += keepFrom;
+        }
+        if (limit == buf.length) {
+            buf = Arrays.copyOf(buf, buf.length * 2); // a start tag is larger than the window
+        }
+        try {
+            int n = reader.read(buf, limit, buf.length - limit);
+            if (n <= 0) return false;
+            limit += n;
+            return true;
+        } catch (IOException e) {
+            throw new ParseException("Failed to read XML input at position " + position(), e);
+        }
+    }
 }
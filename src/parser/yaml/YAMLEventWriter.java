@@ -0,0 +1,143 @@
+package parser.yaml;
+
+import parser.core.CharSink;
+import parser.core.EventType;
+import parser.core.IEventWriter;
+import parser.core.IndentPrinter;
+import parser.core.ParseException;
+
+import java.io.Writer;
+import java.util.Arrays;
+
+// Writes YAML from events with the layouts of YAMLStreamingPrintVisitor: block style when pretty,
+// flow style on one line otherwise. Each open mapping or sequence is a few flag bits on a stack, so
+// memory does not grow with the size of the document.
+public class YAMLEventWriter implements IEventWriter {
+
+    // flags of an open mapping or sequence
+    private static final int SEQUENCE = 1;
+    private static final int INDENTED = 2; // block style: the printer was indented for it
+    private static final int ENTRIES = 4;  // flow style: an entry has been written
+
+    private final CharSink out;
+    private final IndentPrinter printer;
+    private final boolean pretty;
+    private int[] frames = new int[16];
+    private int depth = 0;
+    private String name; // from the last FIELD_NAME, until its value is written
+
+    public YAMLEventWriter(Writer writer, boolean pretty) {
+        this(new CharSink(writer), pretty);
+    }
+
+    public YAMLEventWriter(CharSink out, boolean pretty) {
+        this(out, pretty, IndentPrinter.DEFAULT_WIDTH);
+    }
+
+    public YAMLEventWriter(CharSink out, boolean pretty, int indentWidth) {
+        this.out = out;
+        this.printer = new IndentPrinter(out, indentWidth, ' ');
+        this.pretty = pretty;
+    }
+
+    @Override
+    public void write(EventType event, String text) {
+        switch (event) {
+            case FIELD_NAME:
+                name = text;
+                break;
+            case START_OBJECT:
+            case START_ARRAY:
+                int flags = event == EventType.START_ARRAY ? SEQUENCE : 0;
+                if (pretty) flags |= blockStart();
+                else flowEntry().append(event == EventType.START_ARRAY ? '[' : '{');
+                if (depth == frames.length) frames = Arrays.copyOf(frames, depth * 2);
+                frames[depth++] = flags;
+                name = null;
+                break;
+            case END_OBJECT:
+            case END_ARRAY:
+                if (depth == 0) throw new ParseException("Unexpected " + event + " at the top level");
+                int closed = frames[--depth];
+                if (pretty) {
+                    if ((closed & INDENTED) != 0) printer.dedent();
+                } else {
+                    out.append(event == EventType.END_ARRAY ? ']' : '}');
+                    if (depth == 0) out.append('\n');
+                }
+                break;
+            case END_DOCUMENT:
+                break;
+            default:
+                if (pretty) blockScalar(event, text);
+                else flowScalar(event, text);
+                name = null;
+        }
+    }
+
+    // A key or a "- " entry on a line of its own, with the mapping or sequence indented below it;
+    // at the top level, or without a name inside a mapping, the entries just follow
+    private int blockStart() {
+        if (depth == 0) return 0;
+        if ((frames[depth - 1] & SEQUENCE) != 0) {
+            printer.writeIndent();
+            out.append("- \n");
+        } else if (name != null) {
+            printer.writeIndent();
+            YAMLStreamingPrintVisitor.writeBlockText(out, name).append(":\n");
+        } else {
+            return 0;
+        }
+        printer.indent();
+        return INDENTED;
+    }
+
+    private void blockScalar(EventType event, String text) {
+        printer.writeIndent();
+        if (depth > 0 && (frames[depth - 1] & SEQUENCE) != 0) {
+            out.append("- ");
+        } else if (name != null && !name.isEmpty()) {
+            YAMLStreamingPrintVisitor.writeBlockText(out, name).append(": ");
+        }
+        if (event == EventType.VALUE_STRING) YAMLStreamingPrintVisitor.writeBlockText(out, text);
+        else out.append(scalarText(event, text));
+        out.append('\n');
+    }
+
+    private void flowScalar(EventType event, String text) {
+        flowEntry();
+        if (event == EventType.VALUE_STRING) YAMLStreamingPrintVisitor.writeFlowText(out, text);
+        else out.append(scalarText(event, text));
+        if (depth == 0) out.append('\n');
+    }
+
+    // Separator and name in front of a flow value
+    private CharSink flowEntry() {
+        if (depth > 0) {
+            if ((frames[depth - 1] & ENTRIES) != 0) out.append(", ");
+            frames[depth - 1] |= ENTRIES;
+        }
+        if (name != null) YAMLStreamingPrintVisitor.writeFlowText(out, name).append(": ");
+        return out;
+    }
+
+    // Scalars keep the text they were read with; readers that leave it out get the canonical word
+    private static String scalarText(EventType event, String text) {
+        if (text != null) return text;
+        switch (event) {
+            case VALUE_TRUE: return "true";
+            case VALUE_FALSE: return "false";
+            default: return "null";
+        }
+    }
+
+    @Override
+    public void flush() {
+        out.flush();
+    }
+
+    @Override
+    public void close() {
+        out.close();
+    }
+}
@@ -4,102 +4,354 @@ import parser.core.CompositeNode;
 import parser.core.IParser;
 import parser.core.LeafNode;
 import parser.core.Node;
+import parser.core.ParseException;
+import parser.core.ParseMetrics;
+import parser.core.ParseLimits;
+import parser.core.ParseMonitor;
+import parser.core.SymbolTable;
+import parser.core.Utf8CharSequence;
 
+import java.io.Reader;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+// Holds no parse state itself (that lives in a ParseContext per call), so one instance can be
+// shared by any number of threads
 public class YAMLParser implements IParser {
-    private YAMLTokenizer tokenizer;
-    private YAMLToken currentToken;
+    private static final String FORMAT = "yaml"; // as named in ParserFactory
+    private static final int BATCH_SIZE = 64 << 10; // chars of input per parallel task in parseAll
+    private final SymbolTable symbols; // shared by all parse calls, null when not shared
+    private final boolean internKeys;  // a fresh table per parse call when there is no shared one
+
+    public YAMLParser() {
+        this(false);
+    }
+
+    // internKeys: keys are interned in a table created for each parse call
+    public YAMLParser(boolean internKeys) {
+        this.symbols = null;
+        this.internKeys = internKeys;
+    }
 
-    private void advance() {
-        this.currentToken = tokenizer.getNextToken();
+    // Keys are interned in the given table, which is kept across parse calls (and threads)
+    public YAMLParser(SymbolTable symbols) {
+        this.symbols = symbols;
+        this.internKeys = symbols != null;
     }
 
     @Override
     public Node parse(String input) {
-        this.tokenizer = new YAMLTokenizer(input);
-        // Start parsing from the first token
-        advance();
-        CompositeNode root = new CompositeNode(null, false, currentToken.getIndent());
-        // Continue parsing until we reach the end of the stream
-        while (currentToken != null && currentToken.getType() != YAMLTokenType.STREAM_END) {
-            Node node = parseNode();
-            if (node != null) {
-                root.addChild(node);
-            }
+        if (ParseMonitor.isEnabled()) return ParseMonitor.record(FORMAT, metrics -> parse(input, metrics));
+        return new ParseContext(new YAMLTokenizer(input, keyTable())).parseDocument();
+    }
+
+    @Override
+    public Node parse(String input, ParseMetrics metrics) {
+        metrics.addInput(input.length());
+        return document(new YAMLTokenizer(input, keyTable()), metrics);
+    }
+
+    // Memory maps the file; the tokenizer scans the UTF-8 bytes and only decodes keys and scalars
+    @Override
+    public Node parse(Path file) {
+        if (ParseMonitor.isEnabled()) return ParseMonitor.record(FORMAT, metrics -> parse(file, metrics));
+        return new ParseContext(new YAMLTokenizer(Utf8CharSequence.map(file), keyTable())).parseDocument();
+    }
+
+    @Override
+    public Node parse(Path file, ParseMetrics metrics) {
+        Utf8CharSequence input = Utf8CharSequence.map(file);
+        metrics.addInput(input.length());
+        return document(new YAMLTokenizer(input, keyTable()), metrics);
+    }
+
+    // Reads the input line by line instead of loading it first; the tree is still built in full
+    public Node parse(Reader reader) {
+        if (ParseMonitor.isEnabled()) return ParseMonitor.record(FORMAT, metrics -> parse(reader, metrics));
+        YAMLTokenizer tokenizer = new YAMLTokenizer(reader, keyTable());
+        try {
+            return new ParseContext(tokenizer).parseDocument();
+        } finally {
+            tokenizer.close();
+        }
+    }
+
+    // Input is counted as the chars read, also when the parse fails part way
+    public Node parse(Reader reader, ParseMetrics metrics) {
+        YAMLTokenizer tokenizer = new YAMLTokenizer(reader, keyTable());
+        try {
+            return document(tokenizer, metrics);
+        } finally {
+            metrics.addInput(tokenizer.position());
+            tokenizer.close();
         }
+    }
+
+    // Event mode: reports the document as a stream of events without building a tree, holding only
+    // the current line and the open blocks, so input of any size runs in bounded memory
+    public YAMLStreamReader parseEvents(Reader reader) {
+        return new YAMLStreamReader(reader, keyTable());
+    }
+
+    // Multi-document stream: one root per document separated by "---" (or ended by "..."), in input
+    // order. Documents are parsed in parallel on the common pool.
+    //
+    // When monitored, the stream is reported as one operation: splitting it into documents is the
+    // tokenize time and the parse time is summed over the tasks, so it can exceed the wall clock time.
+    public List<Node> parseAll(String input) {
+        return parseAll(input, ForkJoinPool.commonPool());
+    }
+
+    public List<Node> parseAll(String input, Executor executor) {
+        if (ParseMonitor.isEnabled()) return ParseMonitor.record(FORMAT, metrics -> parseDocuments(input, executor, metrics));
+        return parseDocuments(input, executor, null);
+    }
+
+    // Memory maps the file; each document is tokenized straight from the mapped bytes
+    public List<Node> parseAll(Path file) {
+        return parseAll(file, ForkJoinPool.commonPool());
+    }
+
+    public List<Node> parseAll(Path file, Executor executor) {
+        if (ParseMonitor.isEnabled()) return ParseMonitor.record(FORMAT, metrics -> parseDocuments(Utf8CharSequence.map(file), executor, metrics));
+        return parseDocuments(Utf8CharSequence.map(file), executor, null);
+    }
+
+    // Without metrics this is just the parse; with them the tokenizer counts its tokens, the parse is
+    // timed and the finished tree counted
+    private static Node document(YAMLTokenizer tokenizer, ParseMetrics metrics) {
+        if (metrics == null) return new ParseContext(tokenizer).parseDocument();
+        tokenizer.setMetrics(metrics);
+        long start = System.nanoTime();
+        Node root = new ParseContext(tokenizer).parseDocument();
+        metrics.addParseNanos(System.nanoTime() - start);
+        metrics.countTree(root);
         return root;
     }
 
-    private Node parseNode() {
-        if (currentToken == null || currentToken.getType() == YAMLTokenType.STREAM_END)
-            return null;
+    // metrics may be null; otherwise each task records into its own instance and they are added up
+    // once the tasks are done
+    private List<Node> parseDocuments(CharSequence input, Executor executor, ParseMetrics metrics) {
+        long start = metrics == null ? 0 : System.nanoTime();
+        List<int[]> documents = splitDocuments(input);
+        if (metrics != null) {
+            metrics.addTokenizeNanos(System.nanoTime() - start);
+            metrics.addInput(input.length());
+        }
+        SymbolTable keys = keyTable(); // one table for the whole stream, safe to share between tasks
+        List<CompletableFuture<List<Node>>> batches = new ArrayList<>();
+        List<ParseMetrics> batchMetrics = new ArrayList<>();
+        int first = 0;
+        while (first < documents.size()) {
+            // small documents are grouped so each task has a reasonable amount of input
+            int last = first;
+            int chars = 0;
+            while (last < documents.size() && (last == first || chars < BATCH_SIZE)) {
+                chars += documents.get(last)[1] - documents.get(last)[0];
+                last++;
+            }
+            List<int[]> batch = documents.subList(first, last);
+            int offset = first;
+            ParseMetrics recorded = metrics == null ? null : new ParseMetrics(FORMAT);
+            if (recorded != null) batchMetrics.add(recorded);
+            batches.add(CompletableFuture.supplyAsync(() -> parseBatch(input, batch, offset, keys, recorded), executor));
+            first = last;
+        }
+        List<Node> roots = new ArrayList<>(documents.size());
+        for (CompletableFuture<List<Node>> batch : batches) {
+            try {
+                roots.addAll(batch.join());
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+                throw e;
+            }
+        }
+        // every task is done with its instance by now
+        if (metrics != null) {
+            for (ParseMetrics recorded : batchMetrics) metrics.add(recorded);
+        }
+        return roots;
+    }
 
-        int myIndent = currentToken.getIndent();
+    private static List<Node> parseBatch(CharSequence input, List<int[]> batch, int firstIndex, SymbolTable keys, ParseMetrics metrics) {
+        List<Node> roots = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            int[] range = batch.get(i);
+            // Strings are copied out for fast charAt(); mapped input is tokenized through a view
+            CharSequence text = input instanceof String ? input.toString().substring(range[0], range[1]) : input.subSequence(range[0], range[1]);
+            try {
+                roots.add(document(new YAMLTokenizer(text, keys), metrics));
+            } catch (ParseException e) {
+                throw new ParseException("Invalid document " + (firstIndex + i) + ": " + e.getMessage(), e);
+            }
+        }
+        return roots;
+    }
 
-        switch (currentToken.getType()) {
-            case KEY -> {
-                String key = currentToken.getValue();
-                advance();
+    // Start and end offsets of each document. A marker is a line starting with "---" or "..." followed
+    // by a blank or the line end; text after "---" on its line belongs to the new document. Parts with
+    // nothing but blanks and comments (such as the space before a leading "---") are not documents.
+    static List<int[]> splitDocuments(CharSequence input) {
+        List<int[]> documents = new ArrayList<>();
+        int length = input.length();
+        int start = 0;
+        int lineStart = 0;
+        while (lineStart < length) {
+            int lineEnd = lineStart;
+            while (lineEnd < length && input.charAt(lineEnd) != '\n') lineEnd++;
+            boolean begin = isMarker(input, lineStart, lineEnd, '-');
+            if (begin || isMarker(input, lineStart, lineEnd, '.')) {
+                addDocument(input, start, lineStart, documents);
+                start = begin ? lineStart + 3 : lineEnd;
+            }
+            lineStart = lineEnd + 1;
+        }
+        addDocument(input, start, length, documents);
+        return documents;
+    }
 
-                // Inline value: simple key/value
-                if (currentToken != null &&
-                        currentToken.getType() == YAMLTokenType.SCALAR &&
-                        currentToken.getIndent() == myIndent) {
-                    String value = currentToken.getValue();
-                    advance();
-                    return new LeafNode(key, value, currentToken.getIndent());
-                }
+    private static boolean isMarker(CharSequence input, int lineStart, int lineEnd, char c) {
+        if (lineEnd - lineStart < 3) return false;
+        for (int i = 0; i < 3; i++) {
+            if (input.charAt(lineStart + i) != c) return false;
+        }
+        return lineEnd - lineStart == 3 || Character.isWhitespace(input.charAt(lineStart + 3));
+    }
 
-                // Otherwise, this key is a block parent. Attach nested nodes.
+    private static void addDocument(CharSequence input, int start, int end, List<int[]> documents) {
+        boolean comment = false;
+        for (int i = start; i < end; i++) {
+            char c = input.charAt(i);
+            if (c == '\n') comment = false;
+            else if (c == '#') comment = true;
+            else if (!comment && !Character.isWhitespace(c)) {
+                documents.add(new int[]{start, end});
+                return;
+            }
+        }
+    }
+
+    // Table the keys of one parse call are interned in, or null
+    private SymbolTable keyTable() {
+        if (symbols != null) return symbols;
+        return internKeys ? new SymbolTable() : null;
+    }
 
-                CompositeNode keyNode = new CompositeNode(key, false,currentToken.getIndent());
-                while (currentToken != null &&
-                        currentToken.getType() != YAMLTokenType.STREAM_END &&
-                        currentToken.getIndent() > myIndent) {
-                    Node child = parseNode();
+    // Tokenizer and current token of one parse call
+    private static final class ParseContext {
+        private final YAMLTokenizer tokenizer;
+        private YAMLToken currentToken;
+
+        private ParseContext(YAMLTokenizer tokenizer) {
+            this.tokenizer = tokenizer;
+        }
+
+        private void advance() {
+            this.currentToken = tokenizer.getNextToken();
+        }
 
-                    if (child != null) {
-                        // If it's an anonymous list node, flatten its children into the key's children
-                        if (child instanceof CompositeNode && child.getName() == null) {
-                            keyNode.setIsArray(true); // Mark as array if it has children
-                            for (Node subchild : child.getChildren()) {
-                                keyNode.addChild(subchild);
+        private Node parseDocument() {
+            // Start parsing from the first token
+            advance();
+            CompositeNode root = new CompositeNode(null, false, currentToken.getIndent());
+            List<Block> open = new ArrayList<>();
+            open.add(new Block(ROOT, root, -1));
+            // Continue parsing until we reach the end of the stream
+            while (true) {
+                Block block = open.get(open.size() - 1);
+                if (!continues(block)) {
+                    if (block.kind == ROOT) return root;
+                    open.remove(open.size() - 1);
+                    attach(open.get(open.size() - 1), block.node);
+                    continue;
+                }
+                if (block.kind == SEQUENCE && isEntry(block.indent)) {
+                    block.node.addChild(new LeafNode(null, currentToken.getValue(), currentToken.getIndent()));
+                    advance();
+                    continue;
+                }
+                int myIndent = currentToken.getIndent();
+                switch (currentToken.getType()) {
+                    case KEY -> {
+                        String key = currentToken.getValue();
+                        advance();
 
-                            }
+                        // Inline value: simple key/value
+                        if (currentToken != null &&
+                                currentToken.getType() == YAMLTokenType.SCALAR &&
+                                currentToken.getIndent() == myIndent) {
+                            String value = currentToken.getValue();
+                            advance();
+                            attach(block, new LeafNode(key, value, currentToken.getIndent()));
                         } else {
-                            keyNode.addChild(child);
+                            // Otherwise, this key is a block parent; the nested nodes are attached to it
+                            ParseLimits.checkDepth(open.size());
+                            open.add(new Block(KEY, new CompositeNode(key, false, currentToken.getIndent()), myIndent));
                         }
                     }
-                }
-                return keyNode;
-            }
-            case SEQUENCE_ENTRY -> {
-                CompositeNode listNode = new CompositeNode(null, false,currentToken.getIndent());
-                while (currentToken != null &&
-                        currentToken.getType() == YAMLTokenType.SEQUENCE_ENTRY &&
-                        currentToken.getIndent() == myIndent) {
-                    listNode.addChild(new LeafNode(null, currentToken.getValue(),currentToken.getIndent()));
-                    advance();
-                    // Optional: handle nested mappings after "-"
-                    while (currentToken != null &&
-                            currentToken.getType() != YAMLTokenType.SEQUENCE_ENTRY &&
-                            currentToken.getType() != YAMLTokenType.STREAM_END &&
-                            currentToken.getIndent() > myIndent) {
-                        Node nested = parseNode();
-                        if (nested != null) listNode.addChild(nested);
+                    case SEQUENCE_ENTRY -> {
+                        ParseLimits.checkDepth(open.size());
+                        open.add(new Block(SEQUENCE, new CompositeNode(null, false, currentToken.getIndent()), myIndent));
+                    }
+                    case SCALAR -> {
+                        String value = currentToken.getValue();
+                        advance();
+                        attach(block, new LeafNode(null, value, currentToken.getIndent()));
                     }
+                    default -> advance();
                 }
-                return listNode;
-            }
-            case SCALAR -> {
-                String value = currentToken.getValue();
-                advance();
-                return new LeafNode(null, value,currentToken.getIndent());
             }
-            default -> {
-                advance();
-                return null;
+        }
+
+        // Whether the block takes the current token: a key block takes everything indented deeper than
+        // the key, a sequence its "- " entries and, after an entry, what is nested under it
+        private boolean continues(Block block) {
+            if (currentToken == null || currentToken.getType() == YAMLTokenType.STREAM_END) return false;
+            return switch (block.kind) {
+                case KEY -> currentToken.getIndent() > block.indent;
+                case SEQUENCE -> isEntry(block.indent) || currentToken.getType() != YAMLTokenType.SEQUENCE_ENTRY
+                        && currentToken.getIndent() > block.indent;
+                default -> true;
+            };
+        }
+
+        private boolean isEntry(int indent) {
+            return currentToken.getType() == YAMLTokenType.SEQUENCE_ENTRY && currentToken.getIndent() == indent;
+        }
+
+        private static void attach(Block parent, Node child) {
+            // If it's an anonymous list node, flatten its children into the key's children
+            if (parent.kind == KEY && child instanceof CompositeNode && child.getName() == null) {
+                parent.node.setIsArray(true); // Mark as array if it has children
+                for (Node subchild : child.getChildren()) {
+                    parent.node.addChild(subchild);
+                }
+            } else {
+                parent.node.addChild(child);
             }
         }
     }
 
+    // kinds of open block
+    private static final int ROOT = 0;
+    private static final int KEY = 1;      // children of a block key, indented deeper than the key
+    private static final int SEQUENCE = 2; // "- " entries at one indent and whatever is nested under them
+
+    // A node still taking children, kept on an explicit stack so nesting does not use the call stack
+    private static final class Block {
+        final int kind;
+        final CompositeNode node;
+        final int indent; // of the key or the "- " entries
+
+        Block(int kind, CompositeNode node, int indent) {
+            this.kind = kind;
+            this.node = node;
+            this.indent = indent;
+        }
+    }
 }
@@ -1,90 +1,97 @@
 package parser.yaml;
 
+import parser.core.CharSink;
 import parser.core.CompositeNode;
+import parser.core.IndentPrinter;
 import parser.core.LeafNode;
 import parser.core.Node;
+import parser.core.NumberLeafNode;
 import parser.core.INodeVisitor;
+import parser.core.TreeWalker;
 
 public class YAMLPrettyPrintVisitorI implements INodeVisitor {
     private final StringBuilder sb = new StringBuilder();
-    private int indent = 0;
-    private static final String INDENT_STR = "  ";
+    private final IndentPrinter printer; // YAML only allows spaces, so just the width is configurable
+    private final CharSink out;
+
+    public YAMLPrettyPrintVisitorI() {
+        this(IndentPrinter.DEFAULT_WIDTH);
+    }
+
+    public YAMLPrettyPrintVisitorI(int indentWidth) {
+        this.out = CharSink.of(sb);
+        this.printer = new IndentPrinter(out, indentWidth, ' ');
+    }
 
     @Override
     public String getResult() {
+        out.flush();
         return sb.toString();
     }
 
-    private void appendIndent() {
-        sb.append(INDENT_STR.repeat(indent));
-    }
-
     @Override
     public void visitComposite(CompositeNode node) {
-        boolean isSequence = node.isArray(); // <-- your isArray() should check all children are anonymous
-        boolean isRoot = node.getName() == null;
+        if (sb.length() == 0 && printer.level() == 0) {
+            sb.ensureCapacity(IndentPrinter.estimateSize(node)); // size the output once for the whole tree
+        }
+        TreeWalker.walk(node, layout);
+    }
 
-        if (!isRoot && isSequence) {
-            // Named node, value is a sequence (like skills, numbers)
-            appendIndent();
-            sb.append(node.getName()).append(":\n");
-            indent++;
-            for (Node child : node.getChildren()) {
-                appendIndent();
-                sb.append("- ");
-                if (child instanceof CompositeNode) {
-                    // composite entry in a sequence: print structure on new line
-                    sb.append("\n");
-                    indent++;
-                    child.accept(this);
-                    indent--;
-                } else if (child instanceof LeafNode) {
-                    Object value = ((LeafNode) child).getValue();
-                    sb.append(value == null ? "null" : value.toString());
-                    sb.append("\n");
-                }
-            }
-            indent--;
-        } else if (!isRoot) {
-            // Named node, value is a mapping
-            appendIndent();
-            sb.append(node.getName()).append(":\n");
-            indent++;
-            for (Node child : node.getChildren()) {
-                child.accept(this);
+    // A named node is "name:" with its sequence or mapping indented below; the root (or any unnamed
+    // node) is just its entries. Sequence entries are "- value", or "- " with the structure on the
+    // lines after it.
+    private final TreeWalker.Handler layout = new TreeWalker.Handler() {
+        @Override
+        public void enter(CompositeNode node, CompositeNode parent, int index) {
+            if (parent != null && parent.isArray()) {
+                // composite entry in a sequence: print structure on new line
+                printer.writeIndent();
+                out.append("- \n");
+                printer.indent();
             }
-            indent--;
-        } else if (isSequence) {
-            // Anonymous sequence, usually only as root (rare in your model)
-            for (Node child : node.getChildren()) {
-                appendIndent();
-                sb.append("- ");
-                if (child instanceof CompositeNode) {
-                    sb.append("\n");
-                    indent++;
-                    child.accept(this);
-                    indent--;
-                } else if (child instanceof LeafNode) {
-                    Object value = ((LeafNode) child).getValue();
-                    sb.append(value == null ? "null" : value.toString());
-                    sb.append("\n");
-                }
+            if (node.getName() != null) {
+                printer.writeIndent();
+                YAMLStreamingPrintVisitor.writeBlockText(out, node.getName()).append(":\n");
+                printer.indent();
             }
-        } else {
-            // Root or mapping: just visit children
-            for (Node child : node.getChildren()) {
-                child.accept(this);
+        }
+
+        @Override
+        public void leaf(Node node, CompositeNode parent, int index) {
+            if (!parent.isArray()) {
+                node.accept(YAMLPrettyPrintVisitorI.this);
+            } else if (node instanceof LeafNode) {
+                printer.writeIndent();
+                out.append("- ");
+                appendValue((LeafNode) node);
+                out.append('\n');
             }
         }
-    }
+
+        @Override
+        public void exit(CompositeNode node, CompositeNode parent, int index) {
+            if (node.getName() != null) printer.dedent();
+            if (parent != null && parent.isArray()) printer.dedent();
+        }
+    };
 
     @Override
     public void visitLeaf(LeafNode node) {
-        appendIndent();
+        printer.writeIndent();
         if (node.getName() != null && !node.getName().isEmpty()) {
-            sb.append(node.getName()).append(": ");
+            YAMLStreamingPrintVisitor.writeBlockText(out, node.getName()).append(": ");
+        }
+        appendValue(node);
+        out.append('\n');
+    }
+
+    private void appendValue(LeafNode node) {
+        if (node instanceof NumberLeafNode) {
+            ((NumberLeafNode) node).appendTo(out);
+            return;
         }
         Object value = node.getValue();
-        sb.append(value == null ? "null" : value.toString()).append("\n");
+        if (value == null) out.append("null");
+        else YAMLStreamingPrintVisitor.writeBlockText(out, value.toString());
     }
 }
@@ -0,0 +1,214 @@
+package parser.yaml;
+
+import parser.core.EventType;
+import parser.core.IEventReader;
+import parser.core.Numbers;
+import parser.core.SymbolTable;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+// Pull parser for YAML: follows the same rules as YAMLParser but reports events instead of building
+// nodes. With a Reader only the current line and the stack of open blocks are held in memory.
+//
+// The events mirror the tree YAMLParser builds: the document is one mapping, a block key becomes a
+// FIELD_NAME followed by its mapping or sequence, and a sequence directly under a key is that key's
+// value. Values that YAMLParser would add to a mapping without a name (sequence entries at the top
+// level, for example) come without a FIELD_NAME. Scalars are reported as VALUE_TRUE, VALUE_FALSE,
+// VALUE_NULL (null, ~) or VALUE_NUMBER when they read as such, otherwise as VALUE_STRING; getText()
+// always returns the scalar as written.
+public class YAMLStreamReader implements IEventReader {
+
+    // kinds of open block
+    private static final int ROOT = 0;
+    private static final int KEY = 1;      // children of a block key, indented deeper than the key
+    private static final int SEQUENCE = 2; // "- " entries at one indent and whatever is nested under them
+
+    private final YAMLTokenizer tokenizer;
+    private final List<Frame> frames = new ArrayList<>(); // open blocks, innermost last
+    private YAMLToken token; // lookahead, as currentToken in YAMLParser
+    private int depth = 0;
+    private EventType current;
+    private String text;
+    private EventType pendingEvent; // value that follows the FIELD_NAME just returned
+    private String pendingText;
+    private boolean started = false;
+
+    private static final class Frame {
+        final int kind;
+        final int indent;
+        final boolean container; // emitted its own start/end events (false for a sequence merged into its key)
+        final boolean isArray;
+
+        Frame(int kind, int indent, boolean container, boolean isArray) {
+            this.kind = kind;
+            this.indent = indent;
+            this.container = container;
+            this.isArray = isArray;
+        }
+    }
+
+    public YAMLStreamReader(String input) {
+        this(new StringReader(input));
+    }
+
+    public YAMLStreamReader(Reader reader) {
+        this(new YAMLTokenizer(reader));
+    }
+
+    public YAMLStreamReader(Reader reader, SymbolTable symbols) {
+        this(new YAMLTokenizer(reader, symbols));
+    }
+
+    YAMLStreamReader(YAMLTokenizer tokenizer) {
+        this.tokenizer = tokenizer;
+    }
+
+    @Override
+    public EventType next() {
+        if (pendingEvent != null) {
+            EventType event = pendingEvent;
+            pendingEvent = null;
+            if (event == EventType.START_OBJECT || event == EventType.START_ARRAY) depth++;
+            return emit(event, pendingText);
+        }
+        if (current == EventType.END_DOCUMENT) return current;
+        if (!started) {
+            started = true;
+            advance();
+            frames.add(new Frame(ROOT, 0, true, false));
+            depth++;
+            return emit(EventType.START_OBJECT, null);
+        }
+        while (true) {
+            Frame frame = frames.get(frames.size() - 1);
+            boolean end = atEnd();
+            switch (frame.kind) {
+                case ROOT:
+                    if (end) {
+                        frames.remove(frames.size() - 1);
+                        depth--;
+                        pendingEvent = EventType.END_DOCUMENT;
+                        return emit(EventType.END_OBJECT, null);
+                    }
+                    break;
+                case KEY:
+                    if (end || token.getIndent() <= frame.indent) return endBlock();
+                    break;
+                default: // SEQUENCE
+                    if (!end && token.getType() == YAMLTokenType.SEQUENCE_ENTRY && token.getIndent() == frame.indent) {
+                        YAMLToken entry = token;
+                        advance();
+                        return scalar(entry);
+                    }
+                    if (end || token.getType() == YAMLTokenType.SEQUENCE_ENTRY || token.getIndent() <= frame.indent) {
+                        if (frame.container) return endBlock();
+                        frames.remove(frames.size() - 1); // merged into its key, nothing to report
+                        continue;
+                    }
+            }
+            EventType event = startNode(frame);
+            if (event != null) return event;
+        }
+    }
+
+    // Same cases as YAMLParser.parseNode; returns null when the token produced no event
+    private EventType startNode(Frame parent) {
+        int indent = token.getIndent();
+        switch (token.getType()) {
+            case KEY: {
+                String key = token.getValue();
+                advance();
+                if (token != null && token.getType() == YAMLTokenType.SCALAR && token.getIndent() == indent) {
+                    YAMLToken value = token;
+                    advance();
+                    pendingEvent = scalarType(value);
+                    pendingText = value.getValue();
+                    return emit(EventType.FIELD_NAME, key);
+                }
+                // block key: a sequence right under it makes it a sequence, anything else a mapping
+                boolean isArray = !atEnd() && token.getIndent() > indent && token.getType() == YAMLTokenType.SEQUENCE_ENTRY;
+                frames.add(new Frame(KEY, indent, true, isArray));
+                pendingEvent = isArray ? EventType.START_ARRAY : EventType.START_OBJECT;
+                pendingText = null;
+                return emit(EventType.FIELD_NAME, key);
+            }
+            case SEQUENCE_ENTRY: {
+                boolean merged = parent.kind == KEY;
+                frames.add(new Frame(SEQUENCE, indent, !merged, true));
+                if (merged) return null;
+                depth++;
+                return emit(EventType.START_ARRAY, null);
+            }
+            case SCALAR: {
+                YAMLToken value = token;
+                advance();
+                return scalar(value);
+            }
+            default:
+                advance(); // document markers are skipped, as in YAMLParser
+                return null;
+        }
+    }
+
+    private EventType endBlock() {
+        Frame frame = frames.remove(frames.size() - 1);
+        depth--;
+        return emit(frame.isArray ? EventType.END_ARRAY : EventType.END_OBJECT, null);
+    }
+
+    private EventType scalar(YAMLToken token) {
+        return emit(scalarType(token), token.getValue());
+    }
+
+    // Quoted scalars are strings whatever their text
+    private static EventType scalarType(YAMLToken token) {
+        return token.isQuoted() ? EventType.VALUE_STRING : scalarType(token.getValue());
+    }
+
+    static EventType scalarType(String value) {
+        switch (value) {
+            case "true": return EventType.VALUE_TRUE;
+            case "false": return EventType.VALUE_FALSE;
+            case "null":
+            case "~": return EventType.VALUE_NULL;
+            default: return Numbers.isNumber(value) ? EventType.VALUE_NUMBER : EventType.VALUE_STRING;
+        }
+    }
+
+    private boolean atEnd() {
+        return token == null || token.getType() == YAMLTokenType.STREAM_END;
+    }
+
+    private void advance() {
+        token = tokenizer.getNextToken();
+    }
+
+    private EventType emit(EventType event, String text) {
+        this.current = event;
+        this.text = text;
+        return event;
+    }
+
+    @Override
+    public EventType current() {
+        return current;
+    }
+
+    @Override
+    public String getText() {
+        return text;
+    }
+
+    @Override
+    public int getDepth() {
+        return depth;
+    }
+
+    @Override
+    public void close() {
+        tokenizer.close();
+    }
+}
@@ -0,0 +1,187 @@
+package parser.yaml;
+
+import parser.core.CharSink;
+import parser.core.CompositeNode;
+import parser.core.INodeVisitor;
+import parser.core.IndentPrinter;
+import parser.core.LeafNode;
+import parser.core.Node;
+import parser.core.NumberLeafNode;
+import parser.core.TreeWalker;
+
+import java.io.Writer;
+
+// Writes YAML to a CharSink while walking the tree. Pretty mode produces the same block layout as
+// YAMLPrettyPrintVisitorI; compact mode writes flow style ({key: value, list: [a, b]}) on one line.
+public class YAMLStreamingPrintVisitor implements INodeVisitor {
+    private final CharSink out;
+    private final IndentPrinter printer;
+    private final boolean pretty;
+    private int depth = 0; // nesting of flow collections in compact mode
+
+    public YAMLStreamingPrintVisitor(Writer writer, boolean pretty) {
+        this(new CharSink(writer), pretty);
+    }
+
+    public YAMLStreamingPrintVisitor(CharSink out, boolean pretty) {
+        this(out, pretty, IndentPrinter.DEFAULT_WIDTH);
+    }
+
+    public YAMLStreamingPrintVisitor(CharSink out, boolean pretty, int indentWidth) {
+        this.out = out;
+        this.printer = new IndentPrinter(out, indentWidth, ' ');
+        this.pretty = pretty;
+    }
+
+    // The output has already been written to the sink; this only flushes it
+    @Override
+    public String getResult() {
+        out.flush();
+        return "";
+    }
+
+    public void flush() {
+        out.flush();
+    }
+
+    @Override
+    public void visitComposite(CompositeNode node) {
+        TreeWalker.walk(node, pretty ? block : flow);
+    }
+
+    @Override
+    public void visitLeaf(LeafNode node) {
+        if (pretty) {
+            printer.writeIndent();
+            if (node.getName() != null && !node.getName().isEmpty()) {
+                writeBlockText(out, node.getName()).append(": ");
+            }
+            writeScalar(node);
+            out.append('\n');
+        } else {
+            if (node.getName() != null) writeFlowText(node.getName()).append(": ");
+            writeScalar(node);
+            if (depth == 0) out.append('\n');
+        }
+    }
+
+    // Same layout as YAMLPrettyPrintVisitorI
+    private final TreeWalker.Handler block = new TreeWalker.Handler() {
+        @Override
+        public void enter(CompositeNode node, CompositeNode parent, int index) {
+            if (parent != null && parent.isArray()) {
+                // composite entry in a sequence: print structure on new line
+                printer.writeIndent();
+                out.append("- \n");
+                printer.indent();
+            }
+            if (node.getName() != null) {
+                // Named node, its value is a sequence or a mapping
+                printer.writeIndent();
+                writeBlockText(out, node.getName()).append(":\n");
+                printer.indent();
+            }
+        }
+
+        @Override
+        public void leaf(Node node, CompositeNode parent, int index) {
+            if (!parent.isArray()) {
+                node.accept(YAMLStreamingPrintVisitor.this);
+            } else if (node instanceof LeafNode) {
+                printer.writeIndent();
+                out.append("- ");
+                writeScalar((LeafNode) node);
+                out.append('\n');
+            }
+        }
+
+        @Override
+        public void exit(CompositeNode node, CompositeNode parent, int index) {
+            if (node.getName() != null) printer.dedent();
+            if (parent != null && parent.isArray()) printer.dedent();
+        }
+    };
+
+    private final TreeWalker.Handler flow = new TreeWalker.Handler() {
+        @Override
+        public void enter(CompositeNode node, CompositeNode parent, int index) {
+            if (index > 0) out.append(", ");
+            if (node.getName() != null) writeFlowText(node.getName()).append(": ");
+            out.append(node.isArray() ? '[' : '{');
+            depth++;
+        }
+
+        @Override
+        public void leaf(Node node, CompositeNode parent, int index) {
+            if (index > 0) out.append(", ");
+            node.accept(YAMLStreamingPrintVisitor.this);
+        }
+
+        @Override
+        public void exit(CompositeNode node, CompositeNode parent, int index) {
+            depth--;
+            out.append(node.isArray() ? ']' : '}');
+            if (depth == 0) out.append('\n');
+        }
+    };
+
+    private void writeScalar(LeafNode node) {
+        if (node instanceof NumberLeafNode) {
+            ((NumberLeafNode) node).appendTo(out);
+            return;
+        }
+        Object value = node.getValue();
+        if (value == null) out.append("null");
+        else if (pretty) writeBlockText(out, value.toString());
+        else writeFlowText(value.toString());
+    }
+
+    private CharSink writeFlowText(String s) {
+        return writeFlowText(out, s);
+    }
+
+    // Flow style reserves , [ ] { } : # so such scalars are double quoted, as are those that start
+    // with an indicator
+    static CharSink writeFlowText(CharSink out, String s) {
+        boolean quote = s.isEmpty() || startsWithIndicator(s);
+        for (int i = 0; i < s.length() && !quote; i++) {
+            char c = s.charAt(i);
+            quote = c == ',' || c == '[' || c == ']' || c == '{' || c == '}' || c == ':' || c == '#' || c == '"' || c < 0x20;
+        }
+        return quote ? writeQuoted(out, s) : out.append(s);
+    }
+
+    // Block style: keys and scalars are plain unless they would read as something else, such as
+    // "#text" (a comment), "@x" (a reserved indicator) or "a: b" (a mapping); those are double quoted
+    static CharSink writeBlockText(CharSink out, String s) {
+        if (s.isEmpty()) return out;
+        char last = s.charAt(s.length() - 1);
+        boolean quote = startsWithIndicator(s) || s.charAt(0) == ' ' || last == ' ' || last == ':';
+        for (int i = 0; i < s.length() && !quote; i++) {
+            char c = s.charAt(i);
+            char next = i + 1 < s.length() ? s.charAt(i + 1) : 0;
+            quote = c < 0x20 || c == ':' && next == ' ' || c == ' ' && next == '#';
+        }
+        return quote ? writeQuoted(out, s) : out.append(s);
+    }
+
+    // A plain scalar cannot start with an indicator character; - ? : only count when a space or
+    // the end follows, so -5 and -x stay plain
+    private static boolean startsWithIndicator(String s) {
+        char first = s.charAt(0);
+        if ("@#&*!|>'\"%`[]{},".indexOf(first) >= 0) return true;
+        return (first == '-' || first == '?' || first == ':') && (s.length() == 1 || s.charAt(1) == ' ');
+    }
+
+    private static CharSink writeQuoted(CharSink out, String s) {
+        out.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\') out.append('\\').append(c);
+            else if (c == '\n') out.append("\\n");
+            else if (c == '\t') out.append("\\t");
+            else out.append(c);
+        }
+        return out.append('"');
+    }
+}
@@ -5,15 +5,22 @@ public class YAMLToken {
     private final String value;
     private final int line;
     private final int indent;
+    private final boolean quoted; // a double-quoted scalar, which is always a string
 
     public YAMLToken(YAMLTokenType type, String value, int line, int indent) {
+        this(type, value, line, indent, false);
+    }
+
+    public YAMLToken(YAMLTokenType type, String value, int line, int indent, boolean quoted) {
         this.type = type;
         this.value = value;
         this.line = line;
         this.indent = indent;
+        this.quoted = quoted;
     }
     public YAMLTokenType getType() { return type; }
     public String getValue() { return value; }
     public int getLine() { return line; }
     public int getIndent() { return indent; }
+    public boolean isQuoted() { return quoted; }
 }
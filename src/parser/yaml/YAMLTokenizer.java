@@ -1,15 +1,67 @@
 package parser.yaml;
 
+import parser.core.ParseException;
+import parser.core.ParseMetrics;
+import parser.core.SymbolTable;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+
+// No token spans a line break, so the tokenizer only ever needs the current line: with a Reader it
+// holds one line at a time, with a String or CharSequence it scans the whole text in place
 public class YAMLTokenizer {
-    private final String input;
+    private CharSequence input;
+    private final SymbolTable symbols; // keys are interned here when not null
+    private final BufferedReader reader; // null when the whole input is in memory
+    private final StringBuilder lineBuffer; // current line plus its '\n', when reading from a Reader
     private int pos = 0;
-    private final int length;
+    private int length;
     private int line = 1;
     private boolean startOfLine = true;
+    private long consumed = 0; // chars of the lines already replaced, when reading from a Reader
+    private ParseMetrics metrics; // null unless the parse is monitored
 
     public YAMLTokenizer(String input) {
-        this.input = input.strip();
-        this.length = this.input.length();
+        this((CharSequence) input);
+    }
+
+    // Works on any text, including a Utf8CharSequence over a memory mapped file; leading and trailing
+    // whitespace is skipped without copying the input
+    public YAMLTokenizer(CharSequence input) {
+        this(input, null);
+    }
+
+    // Key names are looked up in the symbol table before a String is made, so repeated keys share one
+    public YAMLTokenizer(CharSequence input, SymbolTable symbols) {
+        int start = 0;
+        int end = input.length();
+        while (start < end && Character.isWhitespace(input.charAt(start))) start++;
+        while (end > start && Character.isWhitespace(input.charAt(end - 1))) end--;
+        this.input = input;
+        this.symbols = symbols;
+        this.reader = null;
+        this.lineBuffer = null;
+        this.pos = start;
+        this.length = end;
+    }
+
+    public YAMLTokenizer(Reader reader) {
+        this(reader, null);
+    }
+
+    // Pulls the input one line at a time; leading whitespace is skipped as with in-memory input
+    public YAMLTokenizer(Reader reader, SymbolTable symbols) {
+        this.reader = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+        this.lineBuffer = new StringBuilder(128);
+        this.input = lineBuffer;
+        this.symbols = symbols;
+        this.length = 0;
+        this.line = 0; // counted up as lines are read
+        while (fill()) {
+            while (pos < length && Character.isWhitespace(input.charAt(pos))) pos++;
+            if (pos < length) break;
+        }
     }
 
     public YAMLToken nextToken() {
@@ -44,11 +96,25 @@ public class YAMLTokenizer {
         if (peek("-")) {
             pos++;
             if (pos < length && input.charAt(pos) == ' ') pos++;
-            String value = parseUnquotedScalar();
             startOfLine = false;
+            if (pos < length && input.charAt(pos) == '"') {
+                return new YAMLToken(YAMLTokenType.SEQUENCE_ENTRY, parseQuotedScalar(), line, indent, true);
+            }
+            String value = parseUnquotedScalar();
             return new YAMLToken(YAMLTokenType.SEQUENCE_ENTRY, value, line, indent);
         }
 
+        // Quoted key, or a quoted scalar on its own
+        if (pos < length && input.charAt(pos) == '"') {
+            String quoted = parseQuotedScalar();
+            startOfLine = false;
+            if (pos < length && input.charAt(pos) == ':') {
+                pos++;
+                return keyValue(quoted, indent);
+            }
+            return new YAMLToken(YAMLTokenType.SCALAR, quoted, line, indent, true);
+        }
+
         // Key
         int keyStart = pos;
         // Find the end of the key (until ':', newline, or comment)
@@ -57,28 +123,10 @@ public class YAMLTokenizer {
         }
         // If found ':', treat as key
         if (pos < length && input.charAt(pos) == ':') {
-            String key = input.substring(keyStart, pos).strip();
+            String key = key(keyStart, pos);
             pos++;
-            // Check if immediate value after colon (key: value)
-            int valueStart = pos;
-            // find the end of the value (until newline or comment)
-            while (pos < length && input.charAt(pos) != '\n' && input.charAt(pos) != '#') {
-                pos++;
-            }
-            String value = input.substring(valueStart, pos).strip();
             startOfLine = false;
-            if (value.isEmpty()) {
-                return new YAMLToken(YAMLTokenType.KEY, key, line, indent);
-            } else {
-                // Inline value, emit KEY token first, later parser will read SCALAR
-                // But for simplicity let's emit as two tokens
-                // (Key)
-                YAMLToken keyTok = new YAMLToken(YAMLTokenType.KEY, key, line, indent);
-                // (Value as SCALAR)
-                // Schedule to return value token on next call
-                this.lastValueToken = new YAMLToken(YAMLTokenType.SCALAR, value, line, indent);
-                return keyTok;
-            }
+            return keyValue(key, indent);
         }
 
         // If no key, parse as scalar
@@ -90,27 +138,114 @@ public class YAMLTokenizer {
         return null;
     }
 
+    // After the ':' of a key: the KEY token, with any value on the same line held back as the next
+    // SCALAR token
+    private YAMLToken keyValue(String key, int indent) {
+        while (pos < length && input.charAt(pos) == ' ') pos++;
+        if (pos < length && input.charAt(pos) == '"') {
+            this.lastValueToken = new YAMLToken(YAMLTokenType.SCALAR, parseQuotedScalar(), line, indent, true);
+            return new YAMLToken(YAMLTokenType.KEY, key, line, indent);
+        }
+        // Check if immediate value after colon (key: value)
+        int valueStart = pos;
+        // find the end of the value (until newline or comment)
+        while (pos < length && input.charAt(pos) != '\n' && input.charAt(pos) != '#') {
+            pos++;
+        }
+        String value = slice(valueStart, pos);
+        if (value.isEmpty()) {
+            return new YAMLToken(YAMLTokenType.KEY, key, line, indent);
+        } else {
+            // Inline value, emit KEY token first, later parser will read SCALAR
+            // But for simplicity let's emit as two tokens
+            // (Key)
+            YAMLToken keyTok = new YAMLToken(YAMLTokenType.KEY, key, line, indent);
+            // (Value as SCALAR)
+            // Schedule to return value token on next call
+            this.lastValueToken = new YAMLToken(YAMLTokenType.SCALAR, value, line, indent);
+            return keyTok;
+        }
+    }
+
     // --- Internal helpers ---
 
     private YAMLToken lastValueToken = null; // For handling inline value after key
 
     private void skipWhitespaceAndComments() {
-        while (pos < length) {
+        while (pos < length || fill()) {
             char ch = input.charAt(pos);
             if (ch == '\n') {
                 pos++;
-                line++;
+                if (reader == null) line++;
                 startOfLine = true;
             } else if (ch == '#') {
                 while (pos < length && input.charAt(pos) != '\n') pos++;
+            } else if (startOfLine && skipBlank()) {
+                continue; // line holds nothing but spaces, or spaces and a comment
             } else {
                 break;
             }
         }
     }
 
+    // Steps over leading blanks when the rest of the line is empty or a comment; otherwise stays put
+    private boolean skipBlank() {
+        int end = pos;
+        while (end < length && (input.charAt(end) == ' ' || input.charAt(end) == '\t' || input.charAt(end) == '\r')) end++;
+        if (end == pos || (end < length && input.charAt(end) != '\n' && input.charAt(end) != '#')) return false;
+        pos = end;
+        return true;
+    }
+
+    // Replaces the consumed line with the next one from the reader; false at the end of the input
+    private boolean fill() {
+        if (reader == null) return false;
+        String next;
+        try {
+            next = reader.readLine();
+        } catch (IOException e) {
+            throw new ParseException("Failed to read YAML input at line " + (line + 1), e);
+        }
+        if (next == null) return false;
+        consumed += lineBuffer.length();
+        lineBuffer.setLength(0);
+        lineBuffer.append(next).append('\n');
+        pos = 0;
+        length = lineBuffer.length();
+        line++;
+        return true;
+    }
+
+    public void close() {
+        if (reader == null) return;
+        try {
+            reader.close();
+        } catch (IOException e) {
+            throw new ParseException("Failed to close YAML input", e);
+        }
+    }
+
     private boolean peek(String s) {
-        return pos + s.length() <= length && input.startsWith(s, pos);
+        if (pos + s.length() > length) return false;
+        for (int i = 0; i < s.length(); i++) {
+            if (input.charAt(pos + i) != s.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    // Stripped text between two positions
+    private String slice(int start, int end) {
+        while (start < end && Character.isWhitespace(input.charAt(start))) start++;
+        while (end > start && Character.isWhitespace(input.charAt(end - 1))) end--;
+        return input.subSequence(start, end).toString();
+    }
+
+    // Stripped key, through the symbol table if there is one
+    private String key(int start, int end) {
+        if (symbols == null) return slice(start, end);
+        while (start < end && Character.isWhitespace(input.charAt(start))) start++;
+        while (end > start && Character.isWhitespace(input.charAt(end - 1))) end--;
+        return symbols.intern(input, start, end);
     }
 
     private String parseUnquotedScalar() {
@@ -118,16 +253,57 @@ public class YAMLTokenizer {
         while (pos < length && input.charAt(pos) != '\n' && input.charAt(pos) != '#') {
             pos++;
         }
-        return input.substring(start, pos).strip();
+        return slice(start, pos);
+    }
+
+    // "..." with the escapes YAML's printers write (\" \\ \/ \n \t \r); the current char is the
+    // opening quote. Stops after the closing quote and any spaces that follow it.
+    private String parseQuotedScalar() {
+        pos++;
+        StringBuilder sb = new StringBuilder();
+        while (true) {
+            if (pos >= length || input.charAt(pos) == '\n') {
+                throw new ParseException("Unterminated quoted scalar at line " + line);
+            }
+            char c = input.charAt(pos++);
+            if (c == '"') break;
+            if (c != '\\') {
+                sb.append(c);
+                continue;
+            }
+            char escaped = pos < length ? input.charAt(pos++) : '\n';
+            switch (escaped) {
+                case 'n': sb.append('\n'); break;
+                case 't': sb.append('\t'); break;
+                case 'r': sb.append('\r'); break;
+                case '"': case '\\': case '/': sb.append(escaped); break;
+                default: throw new ParseException("Invalid escape in quoted scalar at line " + line);
+            }
+        }
+        while (pos < length && (input.charAt(pos) == ' ' || input.charAt(pos) == '\t')) pos++;
+        return sb.toString();
     }
 
     // On each call, if a value token is pending (from inline key: value), return that first
     public YAMLToken getNextToken() {
+        YAMLToken token;
         if (lastValueToken != null) {
-            YAMLToken temp = lastValueToken;
+            token = lastValueToken;
             lastValueToken = null;
-            return temp;
+        } else {
+            token = nextToken();
         }
-        return nextToken();
+        if (metrics != null) metrics.token(token.getType());
+        return token;
+    }
+
+    // Counts each token getNextToken() returns into metrics; null (the default) counts nothing
+    public void setMetrics(ParseMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    // Chars of input read so far (bytes for a Utf8CharSequence)
+    public long position() {
+        return reader == null ? pos : consumed + pos;
     }
 }